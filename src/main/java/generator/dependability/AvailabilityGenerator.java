@@ -34,7 +34,11 @@ public class AvailabilityGenerator {
     randomGenerator = new Random(SEED);
   }
 
-  public static AvailabilityGenerator getInstance() {
+  public AvailabilityGenerator(long seed) {
+    randomGenerator = new Random(seed);
+  }
+
+  public static synchronized AvailabilityGenerator getInstance() {
     if(instance == null)
       instance = new AvailabilityGenerator();
     return instance;
@@ -2,6 +2,7 @@ package generator.network;
 
 import generator.network.components.NodeGenerator;
 import generator.network.components.LinkGenerator;
+import generator.util.RandomContext;
 import generator.util.Randomizer;
 
 import java.util.HashMap;
@@ -21,6 +22,12 @@ public class SubstrateNetworkGenerator {
     linkGenerator = new LinkGenerator();
   }
 
+  public SubstrateNetworkGenerator(RandomContext context) {
+    randomizer = context.getRandomizer();
+    nodeGenerator = new NodeGenerator(context);
+    linkGenerator = new LinkGenerator(context);
+  }
+
   public SubstrateNetwork generate(int numberOfNodes) {
     HashMap<Integer, PhysicalNode> nodes = new HashMap<Integer, PhysicalNode>();
     HashMap<String, PhysicalLink> links = new HashMap<String, PhysicalLink>();
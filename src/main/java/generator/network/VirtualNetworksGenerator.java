@@ -1,6 +1,7 @@
 package generator.network;
 
 import generator.network.components.*;
+import generator.util.RandomContext;
 import generator.util.Randomizer;
 
 import java.util.ArrayList;
@@ -20,6 +21,12 @@ public class VirtualNetworksGenerator {
     linkGenerator = new LinkGenerator();
   }
 
+  public VirtualNetworksGenerator(RandomContext context) {
+    randomizer = context.getRandomizer();
+    nodeGenerator = new NodeGenerator(context);
+    linkGenerator = new LinkGenerator(context);
+  }
+
   public ArrayList<Request> generateVirtualNetworks(int numberOfNetworks) {
     ArrayList<Request> requests = new ArrayList<Request>();
     int baseTime = 0;
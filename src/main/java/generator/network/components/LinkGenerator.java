@@ -1,5 +1,7 @@
 package generator.network.components;
 
+import generator.dependability.AvailabilityGenerator;
+import generator.util.RandomContext;
 import generator.util.Randomizer;
 
 import simulator.network.components.physical.*;
@@ -7,9 +9,16 @@ import simulator.network.components.virtual.*;
 
 public class LinkGenerator {
   private Randomizer randomizer;
+  private AvailabilityGenerator availabilityGenerator;
 
   public LinkGenerator() {
     randomizer = Randomizer.getInstance();
+    availabilityGenerator = AvailabilityGenerator.getInstance();
+  }
+
+  public LinkGenerator(RandomContext context) {
+    randomizer = context.getRandomizer();
+    availabilityGenerator = context.getAvailabilityGenerator();
   }
 
   public PhysicalLink generatePhysicalLink(String id, PhysicalNode sourceNode,
@@ -18,7 +27,8 @@ public class LinkGenerator {
     int bandwidthIntegerPortion = randomizer.nextInt(50) + 50;
     double bandwidth = (double) bandwidthIntegerPortion + bandwidthDecimalPortion;
 
-    return new PhysicalLink(id, sourceNode, destinyNode, bandwidth, 0, 0);
+    return new PhysicalLink(id, sourceNode, destinyNode, bandwidth, 0, 0,
+      availabilityGenerator);
   }
 
   public VirtualLink generateVirtualLink(String id, VirtualNode sourceNode,
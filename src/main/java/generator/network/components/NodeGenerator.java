@@ -1,5 +1,7 @@
 package generator.network.components;
 
+import generator.dependability.AvailabilityGenerator;
+import generator.util.RandomContext;
 import generator.util.Randomizer;
 
 import simulator.network.components.physical.PhysicalNode;
@@ -7,9 +9,16 @@ import simulator.network.components.virtual.VirtualNode;
 
 public class NodeGenerator {
   private Randomizer randomizer;
+  private AvailabilityGenerator availabilityGenerator;
 
   public NodeGenerator() {
     randomizer = Randomizer.getInstance();
+    availabilityGenerator = AvailabilityGenerator.getInstance();
+  }
+
+  public NodeGenerator(RandomContext context) {
+    randomizer = context.getRandomizer();
+    availabilityGenerator = context.getAvailabilityGenerator();
   }
 
   public PhysicalNode generatePhysicalNode(int id) {
@@ -17,7 +26,7 @@ public class NodeGenerator {
     int capacityIntegerPortion = randomizer.nextInt(50) + 50;
     double capacity = (double) capacityIntegerPortion + capacityDecimalPortion;
 
-    return new PhysicalNode(id, capacity);
+    return new PhysicalNode(id, capacity, availabilityGenerator);
   }
 
   public VirtualNode generateVirtualNode(int id) {
@@ -0,0 +1,74 @@
+package generator.util;
+
+import java.util.Random;
+
+import generator.dependability.AvailabilityGenerator;
+
+/*
+ *  Source of every random number drawn by one simulation. Two contexts with
+ * the same seed produce the same numbers, and independent streams are split
+ * off by key, so simulations running together in the same JVM neither share
+ * generators nor depend on what was created before them.
+ */
+public class RandomContext {
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  private final long seed;
+  private Randomizer randomizer;
+  private AvailabilityGenerator availabilityGenerator;
+
+  public RandomContext(long seed) {
+    this.seed = seed;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  /*
+   * Contexto independente deste, sempre o mesmo para a mesma chave. Cada
+   * caractere da chave passa por mix(), e não por String.hashCode(), cujas
+   * colisões ("Aa" e "BB") dariam a chaves diferentes o mesmo contexto.
+   */
+  public RandomContext derive(String key) {
+    long hash = key.length();
+    for(int i = 0; i < key.length(); i++)
+      hash = mix((hash + GOLDEN_GAMMA) ^ key.charAt(i));
+
+    return derive(hash);
+  }
+
+  public RandomContext derive(long key) {
+    return new RandomContext(mix(seed ^ mix(key + GOLDEN_GAMMA)));
+  }
+
+  public Random newRandom() {
+    return new Random(mix(seed));
+  }
+
+  // Gerador usado na criação de topologias e requisições
+  public synchronized Randomizer getRandomizer() {
+    if(randomizer == null)
+      randomizer = new Randomizer(derive("randomizer").getSeed());
+
+    return randomizer;
+  }
+
+  // Gerador das disponibilidades dos componentes físicos
+  public synchronized AvailabilityGenerator getAvailabilityGenerator() {
+    if(availabilityGenerator == null) {
+      availabilityGenerator = new AvailabilityGenerator(
+        derive("availability").getSeed());
+    }
+
+    return availabilityGenerator;
+  }
+
+  // Finalizador do SplitMix64
+  private static long mix(long value) {
+    value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+    value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+
+    return value ^ (value >>> 31);
+  }
+}
@@ -12,12 +12,16 @@ public class Randomizer {
   private PoissonGenerator poissonGenerator;
 
   private Randomizer() {
-    randomGenerator = new Random(1337);
+    this(1337);
+  }
+
+  public Randomizer(long seed) {
+    randomGenerator = new Random(seed);
     exponentialGenerator = new ExponentialGenerator(0.001, randomGenerator);
     poissonGenerator = new PoissonGenerator(4, randomGenerator);
   }
 
-  public static Randomizer getInstance() {
+  public static synchronized Randomizer getInstance() {
     if(instance == null) {
       instance = new Randomizer();
     }
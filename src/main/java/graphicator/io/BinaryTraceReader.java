@@ -0,0 +1,168 @@
+package graphicator.io;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/*
+ *  Reads the binary traces of simulator.io.BinaryTracer by mapping the file
+ * into memory. Fields are read in place, by record and column, so nothing is
+ * tokenized or copied; files larger than a single mapping are mapped in
+ * segments.
+ */
+public class BinaryTraceReader {
+  public static final int MAGIC = 0x56535452;
+  private static final int INT_COLUMN = 0;
+  private static final int SEGMENT_LENGTH = 1 << 30;
+
+  private String runName;
+  private long startTime;
+  private long executionTime;
+  private String[] columnNames;
+  private int[] columnTypes;
+  private int[] columnOffsets;
+  private int recordLength;
+  private long amountRecords;
+  private int recordsPerSegment;
+  private MappedByteBuffer[] segments;
+
+  public BinaryTraceReader(String fileName) {
+    try {
+      int headerLength = readHeader(fileName);
+      RandomAccessFile file = new RandomAccessFile(fileName, "r");
+      try {
+        mapRecords(file.getChannel(), headerLength);
+      } finally {
+        file.close();
+      }
+    } catch(IOException e) {
+      throw new RuntimeException("Falha ao ler rastro binário: " + fileName);
+    }
+  }
+
+  /*
+   * Se o arquivo começa como um rastro binário.
+   */
+  public static boolean isBinaryTrace(String fileName) {
+    try {
+      DataInputStream in = new DataInputStream(new FileInputStream(fileName));
+      try {
+        return in.readInt() == MAGIC;
+      } finally {
+        in.close();
+      }
+    } catch(IOException e) {
+      return false;
+    }
+  }
+
+  // Retorna o tamanho do cabeçalho
+  private int readHeader(String fileName) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(
+      new FileInputStream(fileName)));
+    try {
+      if(in.readInt() != MAGIC)
+        throw new RuntimeException("Arquivo não é um rastro binário: " + fileName);
+      in.readInt(); // versão
+      int headerLength = in.readInt();
+      recordLength = in.readInt();
+      startTime = in.readLong();
+      executionTime = in.readLong();
+      runName = in.readUTF();
+      int amountColumns = in.readInt();
+      columnNames = new String[amountColumns];
+      columnTypes = new int[amountColumns];
+      columnOffsets = new int[amountColumns];
+      int offset = 0;
+      for(int column = 0; column < amountColumns; column++) {
+        columnNames[column] = in.readUTF();
+        columnTypes[column] = in.readByte();
+        columnOffsets[column] = offset;
+        offset += (columnTypes[column] == INT_COLUMN ? 4 : 8);
+      }
+      if(offset != recordLength)
+        throw new RuntimeException("Colunas não somam o tamanho do registro.");
+
+      return headerLength;
+    } finally {
+      in.close();
+    }
+  }
+
+  // Registros incompletos no fim, de uma execução interrompida, são ignorados
+  private void mapRecords(FileChannel channel, int headerLength)
+    throws IOException {
+    amountRecords = Math.max(0, (channel.size() - headerLength) / recordLength);
+    recordsPerSegment = SEGMENT_LENGTH / recordLength;
+    int amountSegments = (int) ((amountRecords + recordsPerSegment - 1)
+      / recordsPerSegment);
+    segments = new MappedByteBuffer[amountSegments];
+    for(int segment = 0; segment < amountSegments; segment++) {
+      long firstRecord = (long) segment * recordsPerSegment;
+      long records = Math.min(recordsPerSegment, amountRecords - firstRecord);
+      segments[segment] = channel.map(FileChannel.MapMode.READ_ONLY,
+        headerLength + firstRecord * recordLength, records * recordLength);
+    }
+  }
+
+  public long getAmountRecords() {
+    return amountRecords;
+  }
+
+  public String getRunName() {
+    return runName;
+  }
+
+  // Milissegundos desde a época
+  public long getStartTime() {
+    return startTime;
+  }
+
+  // Em milissegundos; -1 se a execução não terminou
+  public long getExecutionTime() {
+    return executionTime;
+  }
+
+  public String[] getColumnNames() {
+    return columnNames.clone();
+  }
+
+  public int getColumnIndex(String columnName) {
+    for(int column = 0; column < columnNames.length; column++) {
+      if(columnNames[column].equals(columnName))
+        return column;
+    }
+    throw new RuntimeException("Coluna inexistente no rastro: " + columnName);
+  }
+
+  public int getInt(long record, int column) {
+    if(columnTypes[column] != INT_COLUMN)
+      throw new RuntimeException("Coluna não é inteira: " + columnNames[column]);
+
+    return segmentOf(record).getInt(offsetOf(record, column));
+  }
+
+  // Colunas inteiras também podem ser lidas como double
+  public double getDouble(long record, int column) {
+    if(columnTypes[column] == INT_COLUMN)
+      return getInt(record, column);
+
+    return segmentOf(record).getDouble(offsetOf(record, column));
+  }
+
+  private MappedByteBuffer segmentOf(long record) {
+    if(record < 0 || record >= amountRecords)
+      throw new IndexOutOfBoundsException("Registro inexistente: " + record);
+
+    return segments[(int) (record / recordsPerSegment)];
+  }
+
+  private int offsetOf(long record, int column) {
+    return (int) (record % recordsPerSegment) * recordLength
+      + columnOffsets[column];
+  }
+}
@@ -13,7 +13,13 @@ public class VirtuaSimulatorTraceReader {
     metrics = new HashMap<String, Object>();
   }
 
+  /*
+   * Aceita rastros em texto, de simulator.io.Tracer, ou binários, de
+   * simulator.io.BinaryTracer.
+   */
   public HashMap<String, Object> readTrace(String filename) {
+    if(BinaryTraceReader.isBinaryTrace(filename))
+      return readBinaryTrace(filename);
     Scanner scanner = null;
     try {
       scanner = new Scanner(new File(filename));
@@ -64,6 +70,54 @@ public class VirtuaSimulatorTraceReader {
     return metrics;
   }
 
+  private HashMap<String, Object> readBinaryTrace(String filename) {
+    BinaryTraceReader reader = new BinaryTraceReader(filename);
+    int typeColumn = reader.getColumnIndex("type");
+    int acceptedColumn = reader.getColumnIndex("accepted");
+    int avgNodesLoadColumn = reader.getColumnIndex("averageNodesLoad");
+    int avgLinksLoadColumn = reader.getColumnIndex("averageLinksLoad");
+    int nodesLoadStdDevColumn = reader.getColumnIndex("nodesLoadStandardDeviation");
+    int linksLoadStdDevColumn = reader.getColumnIndex("linksLoadStandardDeviation");
+    int availabilityColumn = reader.getColumnIndex("availability");
+    int requestsTotal = 0;
+    int acceptedRequestsTotal = 0;
+    double avgNodesLoad = -1;
+    double avgLinksLoad = -1;
+    double nodesLoadStdDev = -1;
+    double linksLoadStdDev = -1;
+    double availabilityTotal = 0;
+    for(long record = 0; record < reader.getAmountRecords(); record++) {
+      if(reader.getInt(record, typeColumn) == 0) { // requisição chegando
+        requestsTotal++;
+        if(reader.getInt(record, acceptedColumn) == 1) { // requisição aceita
+          acceptedRequestsTotal++;
+        }
+      }
+      double requestAvgNodeLoad = reader.getDouble(record, avgNodesLoadColumn);
+      double requestAvgLinkLoad = reader.getDouble(record, avgLinksLoadColumn);
+      availabilityTotal += reader.getDouble(record, availabilityColumn);
+      if(requestAvgNodeLoad > avgNodesLoad) {
+        avgNodesLoad = requestAvgNodeLoad;
+        nodesLoadStdDev = reader.getDouble(record, nodesLoadStdDevColumn);
+      }
+      if(requestAvgLinkLoad > avgLinksLoad) {
+        avgLinksLoad = requestAvgLinkLoad;
+        linksLoadStdDev = reader.getDouble(record, linksLoadStdDevColumn);
+      }
+    }
+    if(reader.getExecutionTime() >= 0)
+      metrics.put("executionTime", (double) reader.getExecutionTime() / 1000);
+    metrics.put("acceptedRequests", acceptedRequestsTotal);
+    metrics.put("acceptanceRate", (double) acceptedRequestsTotal / requestsTotal);
+    metrics.put("averageNodesLoad", avgNodesLoad);
+    metrics.put("averageLinksLoad", avgLinksLoad);
+    metrics.put("nodesLoadStandardDeviation", nodesLoadStdDev);
+    metrics.put("linksLoadStandardDeviation", linksLoadStdDev);
+    metrics.put("averageAvailability", availabilityTotal / acceptedRequestsTotal);
+
+    return metrics;
+  }
+
   public Object get(String metricName) {
     return metrics.get(metricName);
   }
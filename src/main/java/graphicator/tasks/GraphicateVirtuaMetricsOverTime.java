@@ -7,6 +7,7 @@ import java.util.Scanner;
 
 import org.uncommons.maths.statistics.DataSet;
 
+import simulator.io.WindowedTracer;
 import simulator.util.Util;
 
 public class GraphicateVirtuaMetricsOverTime {
@@ -25,12 +26,26 @@ public class GraphicateVirtuaMetricsOverTime {
       graphs[i].setColumnHeader(0, "tempo");
       graphs[i].setColumnHeader(1, metrics[i]);
     }
-    File file = new File(
+    // Rastro por evento, amostrado ou de WindowedTracer
+    File file = new File(args.length > 0 ? args[0] :
       "vine_yard_instance_simulation.txt");
     Scanner scanner = new Scanner(file);
     while(scanner.hasNextLine()) {
       String[] tokens = scanner.nextLine().split(" ");
-      if(tokens.length > 1) { // rejeita última linha, que é do tempo de exec.
+      if(tokens.length <= 1) // rejeita última linha, que é do tempo de exec.
+        continue;
+      String time = tokens[1];
+      if(tokens.length == WindowedTracer.WINDOW_TOKENS) { // janela agregada
+        int events = Integer.valueOf(tokens[2]);
+        int accepted = Integer.valueOf(tokens[4]);
+        totalEvents += events;
+        totalRequests += Integer.valueOf(tokens[3]);
+        acceptedRequests += accepted;
+        // médias da janela, colunas 1, 3 e 6 a partir do token 5
+        nodesAverageLoad += Double.valueOf(tokens[9]) * events;
+        linksAverageLoad += Double.valueOf(tokens[15]) * events;
+        averageAvailability += Double.valueOf(tokens[24]) * accepted;
+      } else {
         totalEvents++;
         if(Integer.valueOf(tokens[3]) == 0) { // requisição chegando
           totalRequests++;
@@ -41,23 +56,23 @@ public class GraphicateVirtuaMetricsOverTime {
         }
         nodesAverageLoad += Double.valueOf(tokens[6]);
         linksAverageLoad += Double.valueOf(tokens[8]);
-        graphs[0].addLine("", new String[]{
-          String.valueOf(tokens[1]),
-          String.valueOf((double) acceptedRequests / totalRequests)
-        });
-        graphs[1].addLine("", new String[]{
-          String.valueOf(tokens[1]),
-          String.valueOf((double) nodesAverageLoad / totalEvents)
-        });
-        graphs[2].addLine("", new String[]{
-          String.valueOf(tokens[1]),
-          String.valueOf((double) linksAverageLoad / totalEvents)
-        });
-        graphs[3].addLine("", new String[]{
-          String.valueOf(tokens[1]),
-          String.valueOf((double) averageAvailability / acceptedRequests)
-        });
       }
+      graphs[0].addLine("", new String[]{
+        time,
+        String.valueOf((double) acceptedRequests / totalRequests)
+      });
+      graphs[1].addLine("", new String[]{
+        time,
+        String.valueOf((double) nodesAverageLoad / totalEvents)
+      });
+      graphs[2].addLine("", new String[]{
+        time,
+        String.valueOf((double) linksAverageLoad / totalEvents)
+      });
+      graphs[3].addLine("", new String[]{
+        time,
+        String.valueOf((double) averageAvailability / acceptedRequests)
+      });
     }
     for(DynamicGraph graph : graphs) {
       System.out.println(graph);
@@ -0,0 +1,163 @@
+package simulator.io;
+
+import java.util.HashMap;
+import java.util.concurrent.locks.LockSupport;
+
+import simulator.mapping.Mapping;
+import simulator.network.SubstrateNetwork;
+import simulator.simulation.Request;
+import simulator.simulation.RequestEvent;
+
+/*
+ *  Moves the formatting and writing of a Tracer or BinaryTracer off the
+ * simulation thread. Tracing an event copies its fields into the next record
+ * of a ring allocated up front; a background thread writes the records in
+ * order through the wrapped tracer, so tracing allocates nothing on the
+ * simulation thread (see TraceRecord). Both threads park while they have
+ * nothing to do and wake each other: the writer when a record is published,
+ * the simulation when a full ring frees a record. The other operations first wait for every
+ * record to be written, so the position, the execution time and close() see
+ * the whole trace.
+ */
+public class AsyncTracer implements ITracer {
+  public static final int DEFAULT_CAPACITY = 1 << 12;
+
+  private RecordTracer tracer;
+  private TraceRecord[] records;
+  private int mask;
+  // Registros publicados e já escritos; cada um só é alterado por uma thread
+  private volatile long published;
+  private volatile long written;
+  private volatile boolean closed;
+  private volatile Throwable failure;
+  private Thread writerThread;
+  // Thread da simulação quando espera registros serem escritos
+  private volatile Thread waitingThread;
+  private volatile boolean writerWaiting;
+
+  public AsyncTracer(ITracer tracer) {
+    this(tracer, DEFAULT_CAPACITY);
+  }
+
+  /*
+   * capacity é arredondada para a próxima potência de dois.
+   */
+  public AsyncTracer(ITracer tracer, int capacity) {
+    if(!(tracer instanceof RecordTracer))
+      throw new RuntimeException("Rastro assíncrono requer Tracer ou BinaryTracer.");
+    this.tracer = (RecordTracer) tracer;
+    int length = 2;
+    while(length < capacity)
+      length <<= 1;
+    records = new TraceRecord[length];
+    for(int i = 0; i < length; i++)
+      records[i] = new TraceRecord();
+    mask = length - 1;
+    writerThread = new Thread(new Runnable() {
+      public void run() {
+        writeRecords();
+      }
+    }, "async-tracer");
+    writerThread.setDaemon(true);
+    writerThread.start();
+  }
+
+  public void trace(SubstrateNetwork network, HashMap<Request, Mapping> mappings,
+                    RequestEvent event) {
+    long next = published;
+    if(next - written > mask)
+      awaitWritten(next - mask);
+    records[(int) next & mask].fill(network, mappings, event);
+    published = next + 1;
+    if(writerWaiting)
+      LockSupport.unpark(writerThread);
+  }
+
+  public void traceExecutionTime(long milliseconds) {
+    drain();
+    tracer.traceExecutionTime(milliseconds);
+  }
+
+  public long getPosition() {
+    drain();
+    return tracer.getPosition();
+  }
+
+  public void close() {
+    try {
+      drain();
+    } finally {
+      closed = true;
+      LockSupport.unpark(writerThread);
+      try {
+        writerThread.join();
+      } catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      tracer.close();
+    }
+  }
+
+  public String getOutputFileName() {
+    return tracer.getOutputFileName();
+  }
+
+  // Espera a thread de escrita alcançar tudo o que foi publicado
+  private void drain() {
+    awaitWritten(published);
+  }
+
+  /*
+   * Dorme até target registros terem sido escritos. waitingThread é publicada
+   * antes de conferir written, e a thread de escrita lê waitingThread depois
+   * de avançá-lo, de modo que o aviso não se perde.
+   */
+  private void awaitWritten(long target) {
+    while(written < target) {
+      checkFailure();
+      waitingThread = Thread.currentThread();
+      if(written < target && failure == null)
+        LockSupport.park(this);
+      waitingThread = null;
+    }
+    checkFailure();
+  }
+
+  private void wakeWaitingThread() {
+    Thread thread = waitingThread;
+    if(thread != null)
+      LockSupport.unpark(thread);
+  }
+
+  private void checkFailure() {
+    if(failure != null)
+      throw new RuntimeException("Falha ao escrever rastro: "
+        + failure.getMessage());
+  }
+
+  private void writeRecords() {
+    try {
+      while(true) {
+        long next = written;
+        if(next == published) {
+          if(closed)
+            return;
+          // Mesmo protocolo de awaitWritten, com trace() e close() acordando
+          writerWaiting = true;
+          if(next == published && !closed)
+            LockSupport.park(this);
+          writerWaiting = false;
+          continue;
+        }
+        tracer.write(records[(int) next & mask]);
+        // libera o registro para a thread da simulação
+        records[(int) next & mask].availability = null;
+        written = next + 1;
+        wakeWaitingThread();
+      }
+    } catch(Throwable e) {
+      failure = e;
+      wakeWaitingThread();
+    }
+  }
+}
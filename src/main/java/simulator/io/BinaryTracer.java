@@ -0,0 +1,172 @@
+package simulator.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/*
+ *  Binary trace with one fixed-width record per event, written through a
+ * FileChannel. Every column sits at a fixed offset of the record, so a reader
+ * reaches any field of any event without parsing the ones before it. The
+ * header describes the columns, so readers need nothing from this class, and
+ * holds the run name, its start time and, when the run ends, its execution
+ * time. Availabilities are stored as doubles, not as exact decimals.
+ *
+ *  Layout, big endian: magic, version, header length and record length as
+ * ints; start time and execution time (-1 while running) in milliseconds as
+ * longs; the run name in modified UTF-8; the amount of columns and, for each,
+ * its name and type (INT_COLUMN or DOUBLE_COLUMN); then the records.
+ */
+public class BinaryTracer extends RecordTracer {
+  public static final int MAGIC = 0x56535452;
+  public static final int VERSION = 1;
+  public static final byte INT_COLUMN = 0;
+  public static final byte DOUBLE_COLUMN = 1;
+  private static final int EXECUTION_TIME_OFFSET = 24;
+  private static final String[] INT_COLUMNS = { "requestId", "time", "lifeTime",
+    "type", "accepted" };
+  private static final String[] DOUBLE_COLUMNS = { "maximumNodesLoad",
+    "averageNodesLoad", "maximumLinksLoad", "averageLinksLoad",
+    "nodesLoadStandardDeviation", "linksLoadStandardDeviation", "availability",
+    "nodeSharingRate" };
+  private static final int RECORD_LENGTH = 4 * INT_COLUMNS.length
+    + 8 * DOUBLE_COLUMNS.length;
+  private static final int BUFFERED_RECORDS = 1024;
+
+  private String outputFileName;
+  private FileChannel channel;
+  private ByteBuffer buffer;
+
+  public BinaryTracer(String outputFileName, String runName) {
+    this.outputFileName = outputFileName;
+    try {
+      channel = new RandomAccessFile(outputFileName, "rw").getChannel();
+      channel.truncate(0);
+      write(ByteBuffer.wrap(createHeader(runName)));
+    } catch(IOException e) {
+      throw new RuntimeException("Falha ao criar rastro binário: "
+        + outputFileName);
+    }
+    buffer = ByteBuffer.allocateDirect(BUFFERED_RECORDS * RECORD_LENGTH);
+  }
+
+  /*
+   * Continua um rastro existente, truncado em position, obtida de
+   * getPosition().
+   */
+  public BinaryTracer(String outputFileName, long position) {
+    this.outputFileName = outputFileName;
+    try {
+      channel = new RandomAccessFile(outputFileName, "rw").getChannel();
+      ByteBuffer magic = ByteBuffer.allocate(4);
+      channel.read(magic, 0);
+      if(magic.getInt(0) != MAGIC)
+        throw new RuntimeException("Arquivo não é um rastro binário: "
+          + outputFileName);
+      channel.truncate(position);
+      channel.position(position);
+    } catch(IOException e) {
+      throw new RuntimeException("Falha ao abrir rastro binário: "
+        + outputFileName);
+    }
+    buffer = ByteBuffer.allocateDirect(BUFFERED_RECORDS * RECORD_LENGTH);
+  }
+
+  private byte[] createHeader(String runName) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(0); // tamanho do cabeçalho, preenchido abaixo
+    out.writeInt(RECORD_LENGTH);
+    out.writeLong(System.currentTimeMillis());
+    out.writeLong(-1);
+    out.writeUTF(runName);
+    out.writeInt(INT_COLUMNS.length + DOUBLE_COLUMNS.length);
+    for(String column : INT_COLUMNS) {
+      out.writeUTF(column);
+      out.writeByte(INT_COLUMN);
+    }
+    for(String column : DOUBLE_COLUMNS) {
+      out.writeUTF(column);
+      out.writeByte(DOUBLE_COLUMN);
+    }
+    out.close();
+    byte[] header = bytes.toByteArray();
+    ByteBuffer.wrap(header).putInt(8, header.length);
+
+    return header;
+  }
+
+  void write(TraceRecord record) {
+    if(buffer.remaining() < RECORD_LENGTH)
+      flush();
+    buffer.putInt(record.requestId);
+    buffer.putInt(record.time);
+    buffer.putInt(record.lifeTime);
+    buffer.putInt(record.type);
+    buffer.putInt(record.accepted ? 1 : 0);
+    buffer.putDouble(record.maximumNodesLoad);
+    buffer.putDouble(record.averageNodesLoad);
+    buffer.putDouble(record.maximumLinksLoad);
+    buffer.putDouble(record.averageLinksLoad);
+    buffer.putDouble(record.nodesLoadStandardDeviation);
+    buffer.putDouble(record.linksLoadStandardDeviation);
+    buffer.putDouble(record.getAvailability());
+    buffer.putDouble(record.nodeSharingRate);
+  }
+
+  // Gravado no cabeçalho, não depois dos registros
+  public void traceExecutionTime(long milliseconds) {
+    flush();
+    ByteBuffer executionTime = ByteBuffer.allocate(8);
+    executionTime.putLong(0, milliseconds);
+    try {
+      channel.write(executionTime, EXECUTION_TIME_OFFSET);
+    } catch(IOException e) {
+      throw new RuntimeException("Falha ao escrever rastro binário: "
+        + outputFileName);
+    }
+  }
+
+  public long getPosition() {
+    flush();
+    try {
+      return channel.position();
+    } catch(IOException e) {
+      throw new RuntimeException("Posição do rastro indisponível.");
+    }
+  }
+
+  public void close() {
+    flush();
+    try {
+      channel.close();
+    } catch(IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  public String getOutputFileName() {
+    return outputFileName;
+  }
+
+  private void flush() {
+    buffer.flip();
+    try {
+      write(buffer);
+    } catch(IOException e) {
+      throw new RuntimeException("Falha ao escrever rastro binário: "
+        + outputFileName);
+    }
+    buffer.clear();
+  }
+
+  private void write(ByteBuffer bytes) throws IOException {
+    while(bytes.hasRemaining())
+      channel.write(bytes);
+  }
+}
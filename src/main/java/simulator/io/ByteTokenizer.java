@@ -0,0 +1,276 @@
+package simulator.io;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/*
+ *  Line and number tokenizer for the text instance files, reading bytes
+ * through a FileChannel into a reused buffer. Integers are parsed straight
+ * from the bytes; doubles too when the decimal fits the exact fast path
+ * (at most 2^53 in the digits and a power of ten up to 10^22), and through
+ * Double.parseDouble otherwise, so values are always the ones Double.valueOf
+ * gives. Tokens are separated by spaces or tabs; the readers consume each
+ * line with skipLine() once they have read the tokens they use.
+ */
+class ByteTokenizer {
+  private static final int BUFFER_LENGTH = 1 << 16;
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+  private static final double[] POWERS_OF_TEN = new double[23];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for(int i = 1; i < POWERS_OF_TEN.length; i++)
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+  }
+
+  private String fileName;
+  private FileChannel channel;
+  private byte[] bytes;
+  private ByteBuffer buffer;
+  private int position;
+  private int limit;
+  private int line;
+  private char[] token;
+
+  ByteTokenizer(String fileName) {
+    this.fileName = fileName;
+    try {
+      channel = new FileInputStream(fileName).getChannel();
+    } catch(FileNotFoundException e) {
+      throw new RuntimeException("Arquivo não encontrado: " + fileName);
+    }
+    bytes = new byte[BUFFER_LENGTH];
+    buffer = ByteBuffer.wrap(bytes);
+    line = 1;
+    token = new char[32];
+  }
+
+  /*
+   * Se ainda há algum token; linhas em branco são puladas.
+   */
+  boolean hasNext() {
+    skipWhitespace();
+
+    return available();
+  }
+
+  int nextInt() {
+    if(!hasNext())
+      throw error("Fim do arquivo antes de um inteiro");
+    boolean negative = false;
+    byte current = bytes[position];
+    if(current == '-' || current == '+') {
+      negative = (current == '-');
+      position++;
+    }
+    long value = 0;
+    int digits = 0;
+    while(available() && isDigit(bytes[position])) {
+      value = value * 10 + (bytes[position++] - '0');
+      if(++digits > 10)
+        throw error("Inteiro muito longo");
+    }
+    if(digits == 0 || (available() && !isSeparator(bytes[position])))
+      throw error("Inteiro inválido");
+    value = (negative ? -value : value);
+    if(value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+      throw error("Inteiro fora do intervalo");
+
+    return (int) value;
+  }
+
+  double nextDouble() {
+    if(!hasNext())
+      throw error("Fim do arquivo antes de um número");
+    int length = 0;
+    while(available() && !isSeparator(bytes[position])) {
+      if(length == token.length) {
+        char[] larger = new char[2 * length];
+        System.arraycopy(token, 0, larger, 0, length);
+        token = larger;
+      }
+      token[length++] = (char) bytes[position++];
+    }
+    double value = parseExactDouble(length);
+    if(!Double.isNaN(value))
+      return value;
+    try {
+      return Double.parseDouble(new String(token, 0, length));
+    } catch(NumberFormatException e) {
+      throw error("Número inválido");
+    }
+  }
+
+  void skipToken() {
+    if(!hasNext())
+      throw error("Fim do arquivo antes de um campo");
+    while(available() && !isSeparator(bytes[position]))
+      position++;
+  }
+
+  /*
+   * Descarta o resto da linha atual, com a quebra.
+   */
+  void skipLine() {
+    while(available()) {
+      if(bytes[position++] == '\n') {
+        line++;
+        return;
+      }
+    }
+  }
+
+  /*
+   * Descarta linhas até consumir uma igual a text, sem o '\r' final.
+   * Retorna falso se o arquivo acabou antes.
+   */
+  boolean skipPastLine(String text) {
+    while(available()) {
+      int matched = 0;
+      boolean equal = true;
+      while(available() && bytes[position] != '\n') {
+        byte current = bytes[position++];
+        if(matched < text.length() && current == text.charAt(matched))
+          matched++;
+        else if(current != '\r' || (available() && bytes[position] != '\n'))
+          equal = false;
+      }
+      skipLine();
+      if(equal && matched == text.length())
+        return true;
+    }
+
+    return false;
+  }
+
+  // Libera o arquivo antes do fim, que o fecharia sozinho
+  void close() {
+    if(channel == null)
+      return;
+    try {
+      channel.close();
+    } catch(IOException e) {
+      e.printStackTrace();
+    }
+    channel = null;
+    position = limit;
+  }
+
+  /*
+   * Caminho rápido de Clinger: dígitos e potência de dez exatos em double
+   * dão um único arredondamento, igual ao de Double.parseDouble. NaN quando
+   * o token não cabe nele.
+   */
+  private double parseExactDouble(int length) {
+    int i = 0;
+    boolean negative = false;
+    if(length > 0 && (token[0] == '-' || token[0] == '+')) {
+      negative = (token[0] == '-');
+      i++;
+    }
+    long mantissa = 0;
+    int exponent = 0;
+    int digits = 0;
+    boolean fraction = false;
+    for(; i < length; i++) {
+      char current = token[i];
+      if(current == '.' && !fraction) {
+        fraction = true;
+        continue;
+      }
+      if(current < '0' || current > '9')
+        break;
+      digits++;
+      if(fraction)
+        exponent--;
+      mantissa = mantissa * 10 + (current - '0');
+      if(mantissa > MAX_EXACT_MANTISSA)
+        return Double.NaN;
+    }
+    if(digits == 0)
+      return Double.NaN;
+    if(i < length && (token[i] == 'e' || token[i] == 'E')) {
+      int exponentSign = 1;
+      i++;
+      if(i < length && (token[i] == '-' || token[i] == '+'))
+        exponentSign = (token[i++] == '-' ? -1 : 1);
+      int explicitExponent = 0;
+      int exponentDigits = 0;
+      for(; i < length && token[i] >= '0' && token[i] <= '9'; i++) {
+        explicitExponent = explicitExponent * 10 + (token[i] - '0');
+        if(++exponentDigits > 4)
+          return Double.NaN;
+      }
+      if(exponentDigits == 0)
+        return Double.NaN;
+      exponent += exponentSign * explicitExponent;
+    }
+    if(i < length)
+      return Double.NaN;
+    double value;
+    if(mantissa == 0)
+      value = 0;
+    else if(exponent >= 0 && exponent < POWERS_OF_TEN.length)
+      value = mantissa * POWERS_OF_TEN[exponent];
+    else if(exponent < 0 && -exponent < POWERS_OF_TEN.length)
+      value = mantissa / POWERS_OF_TEN[-exponent];
+    else
+      return Double.NaN;
+
+    return (negative ? -value : value);
+  }
+
+  // Pula espaços e quebras de linha
+  private void skipWhitespace() {
+    while(available()) {
+      byte current = bytes[position];
+      if(current == '\n')
+        line++;
+      else if(current != ' ' && current != '\t' && current != '\r')
+        return;
+      position++;
+    }
+  }
+
+  // Se há bytes a ler, recarregando o buffer quando esgotado
+  private boolean available() {
+    if(position < limit)
+      return true;
+    if(channel == null)
+      return false;
+    try {
+      buffer.clear();
+      int read;
+      do {
+        read = channel.read(buffer);
+      } while(read == 0);
+      if(read < 0) {
+        channel.close();
+        channel = null;
+        return false;
+      }
+      position = 0;
+      limit = read;
+
+      return true;
+    } catch(IOException e) {
+      throw new RuntimeException("Falha ao ler " + fileName + ": "
+        + e.getMessage());
+    }
+  }
+
+  private RuntimeException error(String message) {
+    return new RuntimeException(message + " em " + fileName + ", linha " + line);
+  }
+
+  private static boolean isDigit(byte current) {
+    return current >= '0' && current <= '9';
+  }
+
+  private static boolean isSeparator(byte current) {
+    return current == ' ' || current == '\t' || current == '\r' || current == '\n';
+  }
+}
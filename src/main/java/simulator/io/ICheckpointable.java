@@ -0,0 +1,15 @@
+package simulator.io;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/*
+ *  Object whose internal state (for instance, a random number generator) is
+ * saved in simulation checkpoints, so a resumed run makes the same choices.
+ */
+public interface ICheckpointable {
+  public void writeCheckpoint(DataOutputStream out) throws IOException;
+  // Lê exatamente o que writeCheckpoint gravou
+  public void readCheckpoint(DataInputStream in) throws IOException;
+}
@@ -0,0 +1,10 @@
+package simulator.io;
+
+import simulator.simulation.Request;
+
+public interface IRequestReader {
+  /*
+   * Próxima requisição do arquivo, ou null quando não há mais nenhuma.
+   */
+  public Request readNextRequest();
+}
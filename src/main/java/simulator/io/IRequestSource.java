@@ -0,0 +1,12 @@
+package simulator.io;
+
+import simulator.simulation.Request;
+
+/*
+ *  Requests in order of creation time, handed out one at a time.
+ */
+public interface IRequestSource {
+  public boolean hasNext();
+  public Request peek();
+  public Request next();
+}
@@ -0,0 +1,22 @@
+package simulator.io;
+
+import java.util.HashMap;
+
+import simulator.mapping.Mapping;
+import simulator.network.SubstrateNetwork;
+import simulator.simulation.Request;
+import simulator.simulation.RequestEvent;
+
+/*
+ *  Record of a simulation: the state of the substrate and the fate of the
+ * request after every event, and the execution time at the end.
+ */
+public interface ITracer {
+  public void trace(SubstrateNetwork network, HashMap<Request, Mapping> mappings,
+                    RequestEvent event);
+  public void traceExecutionTime(long milliseconds);
+  // Bytes já escritos no arquivo; um rastro retomado é truncado nesta posição
+  public long getPosition();
+  public void close();
+  public String getOutputFileName();
+}
@@ -8,6 +8,7 @@ import simulator.simulation.Request;
 public interface IVNMPReader {
   public SubstrateNetwork getSubstrateNetwork();
   public ArrayList<Request> getVirtualNetworkRequests();
+  public IRequestSource getRequestSource();
   public SubstrateNetwork readSubstrateNetwork(String filename);
   public ArrayList<Request> readVirtualNetworkRequests(String filename);
 }
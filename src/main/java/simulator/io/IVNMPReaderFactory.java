@@ -0,0 +1,9 @@
+package simulator.io;
+
+import java.io.File;
+
+import generator.util.RandomContext;
+
+public interface IVNMPReaderFactory {
+  public IVNMPReader createReader(File instance, RandomContext context);
+}
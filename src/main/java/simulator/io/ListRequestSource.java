@@ -0,0 +1,48 @@
+package simulator.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import simulator.simulation.Request;
+
+/*
+ *  Request source over requests already in memory. Requests created at the
+ * same time keep the order they have in the list.
+ */
+public class ListRequestSource implements IRequestSource {
+  private ArrayList<Request> requests;
+  private int next;
+
+  public ListRequestSource(List<Request> requests) {
+    this.requests = new ArrayList<Request>(requests);
+    Collections.sort(this.requests, new Comparator<Request>() {
+      public int compare(Request request, Request otherRequest) {
+        int time = request.getCreationTime();
+        int otherTime = otherRequest.getCreationTime();
+
+        return (time < otherTime ? -1 : (time == otherTime ? 0 : 1));
+      }
+    });
+    next = 0;
+  }
+
+  public boolean hasNext() {
+    return next < requests.size();
+  }
+
+  public Request peek() {
+    return (hasNext() ? requests.get(next) : null);
+  }
+
+  public Request next() {
+    if(!hasNext())
+      throw new RuntimeException("Não há mais requisições.");
+    Request request = requests.get(next);
+    // Não mantém referência às requisições já entregues
+    requests.set(next++, null);
+
+    return request;
+  }
+}
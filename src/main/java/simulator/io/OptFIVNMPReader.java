@@ -1,11 +1,11 @@
 package simulator.io;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
 import java.util.HashMap;
 import java.util.ArrayList;
 
+import generator.dependability.AvailabilityGenerator;
+import generator.util.RandomContext;
+
 import simulator.simulation.Request;
 import simulator.network.SubstrateNetwork;
 import simulator.network.components.physical.*;
@@ -14,48 +14,81 @@ import simulator.network.components.virtual.*;
 /*
  *  OptFI (https://www.ads.tuwien.ac.at/projects/optFI/Main_Page) VNMPs Reader
  */
-public class OptFIVNMPReader implements IVNMPReader {
+public class OptFIVNMPReader implements IVNMPReader, IRequestReader {
   private SubstrateNetwork substrateNetwork;
   private ArrayList<Request> requests;
-  private Scanner scanner;
+  private ByteTokenizer tokenizer;
+  private AvailabilityGenerator availabilityGenerator;
+  private int nextRequestId;
+  private boolean streamRequests;
 
   public OptFIVNMPReader(String filename) {
-    try {
-      scanner = new Scanner(new File(filename));
-    } catch (FileNotFoundException e) {
-      e.printStackTrace();
-    }
+    this(filename, AvailabilityGenerator.getInstance(), false);
+  }
+
+  /*
+   * As disponibilidades dos componentes físicos são sorteadas a partir de
+   * context, e não do gerador global.
+   */
+  public OptFIVNMPReader(String filename, RandomContext context) {
+    this(filename, context.getAvailabilityGenerator(), false);
+  }
+
+  /*
+   * Com streamRequests, apenas a rede substrato é lida na construção; as
+   * requisições são lidas à medida que getRequestSource() as entrega.
+   */
+  public OptFIVNMPReader(String filename, RandomContext context,
+                         boolean streamRequests) {
+    this(filename, context.getAvailabilityGenerator(), streamRequests);
+  }
+
+  private OptFIVNMPReader(String filename, AvailabilityGenerator availabilityGenerator,
+                          boolean streamRequests) {
+    this.availabilityGenerator = availabilityGenerator;
+    this.streamRequests = streamRequests;
+    nextRequestId = -1;
+    tokenizer = new ByteTokenizer(filename);
     readSubstrateNetwork(null);
-    readVirtualNetworkRequests(null);
+    if(!streamRequests)
+      readVirtualNetworkRequests(null);
   }
 
   public SubstrateNetwork readSubstrateNetwork(String filename) {
     HashMap<Integer, PhysicalNode> physicalNodes = new HashMap<Integer, PhysicalNode>();
     HashMap<String, PhysicalLink> physicalLinks = new HashMap<String, PhysicalLink>();
-    scanner.nextLine(); // #Substrate Graph
-    scanner.nextLine(); // # noVertices
-    int amountNodes = Integer.valueOf(scanner.nextLine());
-    scanner.nextLine(); // # noArcs
-    int amountLinks = Integer.valueOf(scanner.nextLine());
-    scanner.nextLine(); // # Vertices: id cost cpu group
+    tokenizer.skipLine(); // #Substrate Graph
+    tokenizer.skipLine(); // # noVertices
+    int amountNodes = tokenizer.nextInt();
+    tokenizer.skipLine();
+    tokenizer.skipLine(); // # noArcs
+    int amountLinks = tokenizer.nextInt();
+    tokenizer.skipLine();
+    tokenizer.skipLine(); // # Vertices: id cost cpu group
     for(int i = 0; i < amountNodes; i++) {
-      String[] line = scanner.nextLine().split(" ");
-      int nodeId = Integer.valueOf(line[0]);
-      physicalNodes.put(nodeId, new PhysicalNode(nodeId, Integer.valueOf(line[2])));
+      int nodeId = tokenizer.nextInt();
+      tokenizer.nextInt(); // custo
+      physicalNodes.put(nodeId, new PhysicalNode(nodeId,
+        tokenizer.nextInt(), availabilityGenerator));
+      tokenizer.skipLine();
     }
-    scanner.nextLine(); // # Arcs: idS idT bandwidth cost delay
+    tokenizer.skipLine(); // # Arcs: idS idT bandwidth cost delay
     for(int i = 0; i < amountLinks; i++) {
-      String[] line = scanner.nextLine().split(" ");
-      int sourceNodeId = Math.max(Integer.valueOf(line[0]), Integer.valueOf(line[1]));
-      int destinyNodeId = Math.min(Integer.valueOf(line[0]), Integer.valueOf(line[1]));
-      String linkId = String.format("%s:%s", sourceNodeId, destinyNodeId);
+      int firstNodeId = tokenizer.nextInt();
+      int secondNodeId = tokenizer.nextInt();
+      int sourceNodeId = Math.max(firstNodeId, secondNodeId);
+      int destinyNodeId = Math.min(firstNodeId, secondNodeId);
+      double bandwidth = tokenizer.nextDouble();
+      int cost = tokenizer.nextInt();
+      int delay = tokenizer.nextInt();
+      tokenizer.skipLine();
+      String linkId = sourceNodeId + ":" + destinyNodeId;
       if(!physicalLinks.containsKey(linkId)) {
         physicalLinks.put(linkId,
                           new PhysicalLink(linkId, physicalNodes.get(sourceNodeId),
                                            physicalNodes.get(destinyNodeId),
-                                           Double.valueOf(line[2]),
-                                           Integer.valueOf(line[4]),
-                                           Integer.valueOf(line[3])));
+                                           bandwidth, delay, cost,
+                                           availabilityGenerator));
       }
     }
     this.substrateNetwork = new SubstrateNetwork(physicalNodes, physicalLinks);
@@ -65,48 +98,59 @@ public class OptFIVNMPReader implements IVNMPReader {
 
   public ArrayList<Request> readVirtualNetworkRequests(String filename) {
     requests = new ArrayList<Request>();
-    int idRequest = 0;
+    Request request;
+    while((request = readNextRequest()) != null) {
+      requests.add(request.getId(), request);
+    }
+
+    return this.requests;
+  }
+
+  public Request readNextRequest() {
+    if(nextRequestId < 0) {
+      tokenizer.skipLine(); // # noSlices
+      tokenizer.skipLine(); // 40
+      tokenizer.skipLine(); // #Virtual Graph
+      nextRequestId = 0;
+    }
+    if(!tokenizer.hasNext())
+      return null;
     HashMap<Integer, VirtualNode> virtualNodes = new HashMap<Integer, VirtualNode>();
     HashMap<String, VirtualLink> virtualLinks = new HashMap<String, VirtualLink>();
-    String l = scanner.nextLine(); // # noSlices
-    scanner.nextLine(); // 40
-    scanner.nextLine(); // #Virtual Graph
-    while(scanner.hasNextLine()) {
-      virtualNodes = new HashMap<Integer, VirtualNode>();
-      virtualLinks = new HashMap<String, VirtualLink>();
-      l = scanner.nextLine(); // # noVertices
-      int amountNodes = Integer.valueOf(scanner.nextLine());
-      scanner.nextLine(); // # noArcs
-      int amountLinks = Integer.valueOf(scanner.nextLine());
-      scanner.nextLine(); // # Vertices: id cpu
-      for(int i = 0; i < amountNodes; i++) {
-        String[] line = scanner.nextLine().split(" ");
-        int nodeId = Integer.valueOf(line[0]);
-        virtualNodes.put(nodeId, new VirtualNode(nodeId, Integer.valueOf(line[1])));
-      }
-      scanner.nextLine(); // # Arcs: idS idT bandwidth delay
-      for(int i = 0; i < amountLinks; i++) {
-        String[] line = scanner.nextLine().split(" ");
-        int sourceNodeId = Math.max(Integer.valueOf(line[0]), Integer.valueOf(line[1]));
-        int destinyNodeId = Math.min(Integer.valueOf(line[0]), Integer.valueOf(line[1]));
-        String linkId = String.format("%s:%s", sourceNodeId, destinyNodeId);
-        if(!virtualLinks.containsKey(linkId)) {
-          virtualLinks.put(linkId,
-                            new VirtualLink(linkId, virtualNodes.get(sourceNodeId),
-                                            virtualNodes.get(destinyNodeId),
-                                            Double.valueOf(line[2]),
-                                            Integer.valueOf(line[3])));
-        }
-      }
-      requests.add(idRequest,
-        new Request(idRequest, idRequest, 5000, virtualNodes, virtualLinks));
-      idRequest++;
-      while(scanner.hasNextLine() && !l.equals("#Virtual Graph")) {
-        l = scanner.nextLine();
+    tokenizer.skipLine(); // # noVertices
+    int amountNodes = tokenizer.nextInt();
+    tokenizer.skipLine();
+    tokenizer.skipLine(); // # noArcs
+    int amountLinks = tokenizer.nextInt();
+    tokenizer.skipLine();
+    tokenizer.skipLine(); // # Vertices: id cpu
+    for(int i = 0; i < amountNodes; i++) {
+      int nodeId = tokenizer.nextInt();
+      virtualNodes.put(nodeId, new VirtualNode(nodeId, tokenizer.nextInt()));
+      tokenizer.skipLine();
+    }
+    tokenizer.skipLine(); // # Arcs: idS idT bandwidth delay
+    for(int i = 0; i < amountLinks; i++) {
+      int firstNodeId = tokenizer.nextInt();
+      int secondNodeId = tokenizer.nextInt();
+      int sourceNodeId = Math.max(firstNodeId, secondNodeId);
+      int destinyNodeId = Math.min(firstNodeId, secondNodeId);
+      double bandwidth = tokenizer.nextDouble();
+      int delay = tokenizer.nextInt();
+      tokenizer.skipLine();
+      String linkId = sourceNodeId + ":" + destinyNodeId;
+      if(!virtualLinks.containsKey(linkId)) {
+        virtualLinks.put(linkId,
+                          new VirtualLink(linkId, virtualNodes.get(sourceNodeId),
+                                          virtualNodes.get(destinyNodeId),
+                                          bandwidth, delay));
       }
     }
+    int idRequest = nextRequestId++;
+    // Seções de mapeamento até o próximo grafo virtual
+    tokenizer.skipPastLine("#Virtual Graph");
 
-    return this.requests;
+    return new Request(idRequest, idRequest, 5000, virtualNodes, virtualLinks);
   }
 
   public SubstrateNetwork getSubstrateNetwork() {
@@ -114,6 +158,16 @@ public class OptFIVNMPReader implements IVNMPReader {
   }
 
   public ArrayList<Request> getVirtualNetworkRequests() {
+    if(streamRequests)
+      throw new RuntimeException("Requisições lidas sob demanda.");
+
     return requests;
   }
+
+  public IRequestSource getRequestSource() {
+    if(streamRequests)
+      return new StreamingRequestSource(this);
+
+    return new ListRequestSource(requests);
+  }
 }
@@ -0,0 +1,24 @@
+package simulator.io;
+
+import java.util.HashMap;
+
+import simulator.mapping.Mapping;
+import simulator.network.SubstrateNetwork;
+import simulator.simulation.Request;
+import simulator.simulation.RequestEvent;
+
+/*
+ *  Tracer that writes each event from a TraceRecord, which lets AsyncTracer
+ * copy the fields on the simulation thread and write them on another.
+ */
+abstract class RecordTracer implements ITracer {
+  private TraceRecord record = new TraceRecord();
+
+  public void trace(SubstrateNetwork network, HashMap<Request, Mapping> mappings,
+                    RequestEvent event) {
+    record.fill(network, mappings, event);
+    write(record);
+  }
+
+  abstract void write(TraceRecord record);
+}
@@ -0,0 +1,58 @@
+package simulator.io;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+import simulator.mapping.Mapping;
+import simulator.network.SubstrateNetwork;
+import simulator.simulation.Request;
+import simulator.simulation.RequestEvent;
+
+/*
+ *  Passes one of every few events to the wrapped tracer: the first, then
+ * every interval-th after it. Lines keep the format of the wrapped tracer.
+ */
+public class SamplingTracer implements ITracer, ICheckpointable {
+  private ITracer tracer;
+  private int interval;
+  private long events;
+
+  public SamplingTracer(ITracer tracer, int interval) {
+    if(interval <= 0)
+      throw new RuntimeException("Intervalo de amostragem deve ser positivo.");
+    this.tracer = tracer;
+    this.interval = interval;
+  }
+
+  public void trace(SubstrateNetwork network, HashMap<Request, Mapping> mappings,
+                    RequestEvent event) {
+    if(events++ % interval == 0)
+      tracer.trace(network, mappings, event);
+  }
+
+  public void traceExecutionTime(long milliseconds) {
+    tracer.traceExecutionTime(milliseconds);
+  }
+
+  public long getPosition() {
+    return tracer.getPosition();
+  }
+
+  public void close() {
+    tracer.close();
+  }
+
+  public String getOutputFileName() {
+    return tracer.getOutputFileName();
+  }
+
+  public void writeCheckpoint(DataOutputStream out) throws IOException {
+    out.writeLong(events);
+  }
+
+  public void readCheckpoint(DataInputStream in) throws IOException {
+    events = in.readLong();
+  }
+}
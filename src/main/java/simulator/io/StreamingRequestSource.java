@@ -0,0 +1,93 @@
+package simulator.io;
+
+import java.util.PriorityQueue;
+
+import simulator.simulation.Request;
+
+/*
+ *  Request source that reads requests from a file only as they are needed.
+ * Up to reorderWindow requests are buffered, so a request may appear in the
+ * file after later-created ones as long as it is within that distance of
+ * where it belongs; requests created at the same time keep the file order.
+ */
+public class StreamingRequestSource implements IRequestSource {
+  // Folga para arquivos gerados em blocos de tempo, como os do VirtuaSimulator
+  public static final int DEFAULT_REORDER_WINDOW = 64;
+
+  private IRequestReader reader;
+  private int reorderWindow;
+  private PriorityQueue<PendingRequest> pendingRequests;
+  private long readRequests;
+  private boolean exhausted;
+  private int lastCreationTime;
+
+  public StreamingRequestSource(IRequestReader reader) {
+    this(reader, DEFAULT_REORDER_WINDOW);
+  }
+
+  public StreamingRequestSource(IRequestReader reader, int reorderWindow) {
+    if(reorderWindow < 1)
+      throw new RuntimeException("Janela de reordenação vazia.");
+    this.reader = reader;
+    this.reorderWindow = reorderWindow;
+    pendingRequests = new PriorityQueue<PendingRequest>();
+    readRequests = 0;
+    exhausted = false;
+    lastCreationTime = Integer.MIN_VALUE;
+  }
+
+  public boolean hasNext() {
+    fill();
+
+    return !pendingRequests.isEmpty();
+  }
+
+  public Request peek() {
+    fill();
+
+    return (pendingRequests.isEmpty() ? null : pendingRequests.peek().request);
+  }
+
+  public Request next() {
+    fill();
+    if(pendingRequests.isEmpty())
+      throw new RuntimeException("Não há mais requisições.");
+    Request request = pendingRequests.poll().request;
+    if(request.getCreationTime() < lastCreationTime)
+      throw new RuntimeException(String.format(
+        "Requisição %d fora de ordem além da janela de reordenação.",
+        request.getId()));
+    lastCreationTime = request.getCreationTime();
+
+    return request;
+  }
+
+  private void fill() {
+    while(!exhausted && pendingRequests.size() < reorderWindow) {
+      Request request = reader.readNextRequest();
+      if(request == null)
+        exhausted = true;
+      else
+        pendingRequests.add(new PendingRequest(request, readRequests++));
+    }
+  }
+
+  private static class PendingRequest implements Comparable<PendingRequest> {
+    private Request request;
+    private long order;
+
+    PendingRequest(Request request, long order) {
+      this.request = request;
+      this.order = order;
+    }
+
+    public int compareTo(PendingRequest other) {
+      int time = request.getCreationTime();
+      int otherTime = other.request.getCreationTime();
+      if(time != otherTime)
+        return (time < otherTime ? -1 : 1);
+
+      return (order < other.order ? -1 : (order == other.order ? 0 : 1));
+    }
+  }
+}
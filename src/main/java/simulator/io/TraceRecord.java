@@ -0,0 +1,77 @@
+package simulator.io;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+
+import simulator.mapping.Mapping;
+import simulator.network.SubstrateNetwork;
+import simulator.simulation.Request;
+import simulator.simulation.RequestEvent;
+
+/*
+ *  Fields of one trace line, copied out of the simulation when the event is
+ * traced. Records are reused, and the metrics they copy are cached by the
+ * network statistics and by the accepted mapping, so filling one allocates
+ * nothing.
+ */
+class TraceRecord {
+  int requestId;
+  int time;
+  int lifeTime;
+  int type;
+  boolean accepted;
+  double maximumNodesLoad;
+  double averageNodesLoad;
+  double maximumLinksLoad;
+  double averageLinksLoad;
+  double nodesLoadStandardDeviation;
+  double linksLoadStandardDeviation;
+  // null quando o evento não é uma chegada aceita
+  BigDecimal availability;
+  double nodeSharingRate;
+
+  void fill(SubstrateNetwork network, HashMap<Request, Mapping> mappings,
+            RequestEvent event) {
+    Request request = event.getRequest();
+    requestId = request.getId();
+    time = event.getTime();
+    lifeTime = request.getLifeTime();
+    type = event.getType();
+    accepted = mappings.containsKey(request);
+    maximumNodesLoad = network.getMaximumNodesLoad();
+    averageNodesLoad = network.getAverageNodesLoad();
+    maximumLinksLoad = network.getMaximumLinksBandwidthLoad();
+    averageLinksLoad = network.getAverageLinksBandwidthLoad();
+    nodesLoadStandardDeviation = network.getNodesLoadStandardDeviation();
+    linksLoadStandardDeviation = network.getLinksBandwidthLoadStandardDeviation();
+    if(event.isArrivalEvent() && accepted) {
+      Mapping mapping = mappings.get(request);
+      availability = mapping.getAvailability();
+      nodeSharingRate = mapping.getNodeSharingRate(request.getAmountNodes());
+    } else {
+      availability = null;
+      nodeSharingRate = 0;
+    }
+  }
+
+  double getAvailability() {
+    return (availability == null ? 0 : availability.doubleValue());
+  }
+
+  // Linha de Tracer, sem a quebra
+  void appendTo(StringBuilder line) {
+    line.append(requestId).append(' ')
+      .append(time).append(' ')
+      .append(lifeTime).append(' ')
+      .append(type).append(' ')
+      .append(accepted ? '1' : '0').append(' ')
+      .append(maximumNodesLoad).append(' ')
+      .append(averageNodesLoad).append(' ')
+      .append(maximumLinksLoad).append(' ')
+      .append(averageLinksLoad).append(' ')
+      .append(nodesLoadStandardDeviation).append(' ')
+      .append(linksLoadStandardDeviation).append(' ')
+      .append(availability == null ? "0.0" : availability.toString()).append(' ')
+      .append(nodeSharingRate);
+  }
+}
@@ -1,50 +1,79 @@
 package simulator.io;
 
+import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
-import java.util.HashMap;
 
-import simulator.mapping.Mapping;
-import simulator.network.SubstrateNetwork;
-import simulator.simulation.Request;
-import simulator.simulation.RequestEvent;
-
-public class Tracer {
+/*
+ *  Text trace: one line of space-separated fields per event and the execution
+ * time, in milliseconds, in the last line.
+ */
+public class Tracer extends RecordTracer {
   private String outputFileName;
+  private FileOutputStream output;
   private PrintWriter writer;
+  private StringBuilder line = new StringBuilder();
 
   public Tracer(String outputFileName) {
     this.outputFileName = outputFileName;
     try {
-      writer = new PrintWriter(outputFileName);
+      output = new FileOutputStream(outputFileName);
+      writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(output)));
     } catch(FileNotFoundException e) {
       e.printStackTrace();
     }
   }
 
-  public void trace(SubstrateNetwork network, HashMap<Request, Mapping> mappings,
-    RequestEvent event) {
-    Request request = event.getRequest();
-    writer.println(String.format("%s %s %s %s %s %s %s %s %s %s",
-      event,
-      (mappings.containsKey(request) ? "1" : "0"),
-      network.getMaximumNodesLoad(),
-      network.getAverageNodesLoad(),
-      network.getMaximumLinksBandwidthLoad(),
-      network.getAverageLinksBandwidthLoad(),
-      network.getNodesLoadStandardDeviation(),
-      network.getLinksBandwidthLoadStandardDeviation(),
-      (event.isArrivalEvent() && mappings.containsKey(request) ?
-        mappings.get(request).getAvailability() : "0.0"),
-      (event.isArrivalEvent() && mappings.containsKey(request) ?
-        mappings.get(request).getNodeSharingRate(request.getAmountNodes()) : "0.0")
-      ));
+  /*
+   * Continua um rastro existente: o arquivo é truncado em position, obtida de
+   * getPosition(), e as próximas linhas são escritas a partir dali.
+   */
+  public Tracer(String outputFileName, long position) {
+    this.outputFileName = outputFileName;
+    try {
+      output = new FileOutputStream(outputFileName, true);
+    } catch(FileNotFoundException e) {
+      throw new RuntimeException("Falha ao abrir rastro: " + outputFileName);
+    }
+    try {
+      output.getChannel().truncate(position);
+    } catch(IOException e) {
+      try {
+        output.close();
+      } catch(IOException closeFailure) {
+        closeFailure.printStackTrace();
+      }
+      throw new RuntimeException("Falha ao truncar rastro: " + outputFileName);
+    }
+    writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(output)));
+  }
+
+  void write(TraceRecord record) {
+    line.setLength(0);
+    record.appendTo(line);
+    writer.println(line);
   }
 
   public void println(Object text) {
     writer.println(text);
   }
 
+  public void traceExecutionTime(long milliseconds) {
+    writer.println(milliseconds);
+  }
+
+  public long getPosition() {
+    writer.flush();
+    try {
+      return output.getChannel().position();
+    } catch(IOException e) {
+      throw new RuntimeException("Posição do rastro indisponível.");
+    }
+  }
+
   public void close() {
     writer.close();
   }
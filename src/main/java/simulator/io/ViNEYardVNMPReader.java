@@ -1,10 +1,21 @@
 package simulator.io;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
-import java.util.HashMap;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import generator.dependability.AvailabilityGenerator;
+import generator.util.RandomContext;
 
 import simulator.simulation.Request;
 import simulator.network.SubstrateNetwork;
@@ -17,95 +28,187 @@ import simulator.network.components.virtual.*;
 public class ViNEYardVNMPReader implements IVNMPReader {
   private SubstrateNetwork substrateNetwork;
   private ArrayList<Request> requests;
+  private AvailabilityGenerator availabilityGenerator;
+  private LinkedHashMap<String, String> loadFailures;
 
   public ViNEYardVNMPReader(String substrateNetworkFilename,
                                                     String requestsFolderName) {
+    this(substrateNetworkFilename, requestsFolderName,
+      AvailabilityGenerator.getInstance());
+  }
+
+  /*
+   * As disponibilidades dos componentes físicos são sorteadas a partir de
+   * context, e não do gerador global.
+   */
+  public ViNEYardVNMPReader(String substrateNetworkFilename,
+                            String requestsFolderName, RandomContext context) {
+    this(substrateNetworkFilename, requestsFolderName,
+      context.getAvailabilityGenerator());
+  }
+
+  private ViNEYardVNMPReader(String substrateNetworkFilename,
+                             String requestsFolderName,
+                             AvailabilityGenerator availabilityGenerator) {
+    this.availabilityGenerator = availabilityGenerator;
     readSubstrateNetwork(substrateNetworkFilename);
     readVirtualNetworkRequests(requestsFolderName);
   }
 
   public SubstrateNetwork readSubstrateNetwork(String filename) {
-    Scanner scanner = null;
-    try {
-      scanner = new Scanner(new File(filename));
-    } catch (FileNotFoundException e) {
-      e.printStackTrace();
-    }
+    ByteTokenizer tokenizer = new ByteTokenizer(filename);
     HashMap<Integer, PhysicalNode> physicalNodes = new HashMap<Integer, PhysicalNode>();
     HashMap<String, PhysicalLink> physicalLinks = new HashMap<String, PhysicalLink>();
-    String[] tokens = scanner.nextLine().split(" ");
-    int amountNodes = Integer.valueOf(tokens[0]);
-    int amountLinks = Integer.valueOf(tokens[1]);
+    int amountNodes = tokenizer.nextInt();
+    int amountLinks = tokenizer.nextInt();
+    tokenizer.skipLine();
     for(int i = 0; i < amountNodes; i++) {
-      tokens = scanner.nextLine().split(" ");
-      physicalNodes.put(i, new PhysicalNode(i, Double.valueOf(tokens[2])));
+      tokenizer.skipToken(); // x
+      tokenizer.skipToken(); // y
+      physicalNodes.put(i, new PhysicalNode(i, tokenizer.nextDouble(),
+        availabilityGenerator));
+      tokenizer.skipLine();
     }
     for(int i = 0; i < amountLinks; i++) {
-      tokens = scanner.nextLine().split(" ");
-      int sourceNodeId = Math.max(Integer.valueOf(tokens[0]),
-        Integer.valueOf(tokens[1]));
-      int destinyNodeId = Math.min(Integer.valueOf(tokens[0]),
-        Integer.valueOf(tokens[1]));
-      String linkId = String.format("%s:%s", sourceNodeId, destinyNodeId);
+      int firstNodeId = tokenizer.nextInt();
+      int secondNodeId = tokenizer.nextInt();
+      int sourceNodeId = Math.max(firstNodeId, secondNodeId);
+      int destinyNodeId = Math.min(firstNodeId, secondNodeId);
+      double bandwidth = tokenizer.nextDouble();
+      double delay = tokenizer.nextDouble();
+      tokenizer.skipLine();
+      String linkId = sourceNodeId + ":" + destinyNodeId;
       if(!physicalLinks.containsKey(linkId)) {
         physicalLinks.put(linkId,
                           new PhysicalLink(linkId, physicalNodes.get(sourceNodeId),
                                            physicalNodes.get(destinyNodeId),
-                                           Double.valueOf(tokens[2]),
-                                           Double.valueOf(tokens[3]),
-                                           0));
+                                           bandwidth, delay,
+                                           0, availabilityGenerator));
       }
     }
+    tokenizer.close();
     this.substrateNetwork = new SubstrateNetwork(physicalNodes, physicalLinks);
 
     return this.substrateNetwork;
   }
 
+  /*
+   * Os arquivos reqN.txt da pasta são lidos em paralelo, um por tarefa, por
+   * até tantas threads quanto processadores. As requisições saem ordenadas
+   * pelo tempo de criação e depois pelo id; arquivos que não puderam ser
+   * lidos ficam de fora e aparecem em getLoadFailures().
+   */
   public ArrayList<Request> readVirtualNetworkRequests(String folderName) {
+    File[] requestFiles = new File(folderName).listFiles();
+    if(requestFiles == null)
+      throw new RuntimeException("Pasta de requisições inacessível: " + folderName);
+    Arrays.sort(requestFiles);
     requests = new ArrayList<Request>();
-    File requestsFolder = new File(folderName);
-    for(File requestFile : requestsFolder.listFiles()) {
-      Scanner scanner = null;
-      try {
-        scanner = new Scanner(requestFile);
-      } catch (FileNotFoundException e) {
-        e.printStackTrace();
+    loadFailures = new LinkedHashMap<String, String>();
+    if(requestFiles.length == 0)
+      return this.requests;
+
+    int amountThreads = Math.min(requestFiles.length,
+      Runtime.getRuntime().availableProcessors());
+    ExecutorService executor = Executors.newFixedThreadPool(amountThreads,
+      new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "request-reader");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    try {
+      ArrayList<Future<Request>> pendingRequests = new ArrayList<Future<Request>>();
+      for(final File requestFile : requestFiles) {
+        pendingRequests.add(executor.submit(new Callable<Request>() {
+          public Request call() {
+            return readRequest(requestFile);
+          }
+        }));
+      }
+      for(int i = 0; i < requestFiles.length; i++) {
+        try {
+          requests.add(pendingRequests.get(i).get());
+        } catch(ExecutionException e) {
+          // Só falhas de leitura e formato do arquivo; Errors da JVM sobem
+          Throwable cause = e.getCause();
+          if(cause instanceof Error)
+            throw (Error) cause;
+          loadFailures.put(requestFiles[i].getPath(), (cause.getMessage() != null ?
+            cause.getMessage() : cause.toString()));
+        }
       }
-      String[] tokens = scanner.nextLine().split(" ");
-      int idRequest = Integer.valueOf(
-        requestFile.getName().substring(3).split(".txt")[0]);
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Leitura das requisições interrompida.");
+    } finally {
+      executor.shutdownNow();
+    }
+    Collections.sort(requests, new Comparator<Request>() {
+      public int compare(Request request, Request otherRequest) {
+        if(request.getCreationTime() != otherRequest.getCreationTime())
+          return (request.getCreationTime() < otherRequest.getCreationTime() ? -1 : 1);
+
+        return (request.getId() < otherRequest.getId() ? -1 :
+          (request.getId() == otherRequest.getId() ? 0 : 1));
+      }
+    });
+
+    return this.requests;
+  }
+
+  // Não usa estado do leitor, para ser chamado de várias threads
+  private static Request readRequest(File requestFile) {
+    String fileName = requestFile.getName();
+    if(!fileName.startsWith("req") || !fileName.endsWith(".txt"))
+      throw new RuntimeException("Nome de arquivo de requisição inválido: "
+        + fileName);
+    int idRequest;
+    try {
+      idRequest = Integer.parseInt(fileName.substring(3, fileName.length() - 4));
+    } catch(NumberFormatException e) {
+      throw new RuntimeException("Nome de arquivo de requisição inválido: "
+        + fileName);
+    }
+    ByteTokenizer tokenizer = new ByteTokenizer(requestFile.getPath());
+    try {
       HashMap<Integer, VirtualNode> virtualNodes = new HashMap<Integer, VirtualNode>();
       HashMap<String, VirtualLink> virtualLinks = new HashMap<String, VirtualLink>();
-      int amountNodes = Integer.valueOf(tokens[0]);
-      int amountLinks = Integer.valueOf(tokens[1]);
-      int creationTime = Integer.valueOf(tokens[3]);
-      int lifeTime = Integer.valueOf(tokens[4]);
+      int amountNodes = tokenizer.nextInt();
+      int amountLinks = tokenizer.nextInt();
+      tokenizer.skipToken();
+      int creationTime = tokenizer.nextInt();
+      int lifeTime = tokenizer.nextInt();
+      tokenizer.skipLine();
       for(int i = 0; i < amountNodes; i++) {
-        tokens = scanner.nextLine().split(" ");
-        virtualNodes.put(i, new VirtualNode(i, Double.valueOf(tokens[2])));
+        tokenizer.skipToken(); // x
+        tokenizer.skipToken(); // y
+        virtualNodes.put(i, new VirtualNode(i, tokenizer.nextDouble()));
+        tokenizer.skipLine();
       }
       for(int i = 0; i < amountLinks; i++) {
-        tokens = scanner.nextLine().split(" ");
-        int sourceNodeId = Math.max(Integer.valueOf(tokens[0]),
-          Integer.valueOf(tokens[1]));
-        int destinyNodeId = Math.min(Integer.valueOf(tokens[0]),
-          Integer.valueOf(tokens[1]));
-        String linkId = String.format("%s:%s", sourceNodeId, destinyNodeId);
+        int firstNodeId = tokenizer.nextInt();
+        int secondNodeId = tokenizer.nextInt();
+        int sourceNodeId = Math.max(firstNodeId, secondNodeId);
+        int destinyNodeId = Math.min(firstNodeId, secondNodeId);
+        double bandwidth = tokenizer.nextDouble();
+        double delay = tokenizer.nextDouble();
+        tokenizer.skipLine();
+        String linkId = sourceNodeId + ":" + destinyNodeId;
         if(!virtualLinks.containsKey(linkId)) {
           virtualLinks.put(linkId,
                             new VirtualLink(linkId, virtualNodes.get(sourceNodeId),
                                             virtualNodes.get(destinyNodeId),
-                                            Double.valueOf(tokens[2]),
-                                            Double.valueOf(tokens[3])));
+                                            bandwidth, delay));
         }
       }
-      requests.add(
-        new Request(idRequest, creationTime, lifeTime, virtualNodes, virtualLinks));
 
-      scanner.close();
+      return new Request(idRequest, creationTime, lifeTime, virtualNodes,
+        virtualLinks);
+    } finally {
+      tokenizer.close();
     }
-
-    return this.requests;
   }
 
   public SubstrateNetwork getSubstrateNetwork() {
@@ -115,4 +218,16 @@ public class ViNEYardVNMPReader implements IVNMPReader {
   public ArrayList<Request> getVirtualNetworkRequests() {
     return requests;
   }
+
+  /*
+   * Arquivos de requisição que não puderam ser lidos, com o motivo, na ordem
+   * dos nomes.
+   */
+  public LinkedHashMap<String, String> getLoadFailures() {
+    return loadFailures;
+  }
+
+  public IRequestSource getRequestSource() {
+    return new ListRequestSource(requests);
+  }
 }
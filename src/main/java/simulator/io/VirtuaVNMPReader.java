@@ -1,11 +1,11 @@
 package simulator.io;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
 import java.util.HashMap;
 import java.util.ArrayList;
 
+import generator.dependability.AvailabilityGenerator;
+import generator.util.RandomContext;
+
 import simulator.simulation.Request;
 import simulator.network.SubstrateNetwork;
 import simulator.network.components.physical.*;
@@ -14,46 +14,74 @@ import simulator.network.components.virtual.*;
 /*
  *  VirtuaSimulator VNMPs Reader
  */
-public class VirtuaVNMPReader implements IVNMPReader {
+public class VirtuaVNMPReader implements IVNMPReader, IRequestReader {
   private SubstrateNetwork substrateNetwork;
   private ArrayList<Request> requests;
-  private Scanner scanner;
+  private ByteTokenizer tokenizer;
+  private AvailabilityGenerator availabilityGenerator;
+  private int remainingRequests;
+  private boolean streamRequests;
 
   public VirtuaVNMPReader(String filename) {
-    try {
-      scanner = new Scanner(new File(filename));
-    } catch (FileNotFoundException e) {
-      e.printStackTrace();
-    }
+    this(filename, AvailabilityGenerator.getInstance(), false);
+  }
+
+  /*
+   * As disponibilidades dos componentes físicos são sorteadas a partir de
+   * context, e não do gerador global.
+   */
+  public VirtuaVNMPReader(String filename, RandomContext context) {
+    this(filename, context.getAvailabilityGenerator(), false);
+  }
+
+  /*
+   * Com streamRequests, apenas a rede substrato é lida na construção; as
+   * requisições são lidas à medida que getRequestSource() as entrega.
+   */
+  public VirtuaVNMPReader(String filename, RandomContext context,
+                          boolean streamRequests) {
+    this(filename, context.getAvailabilityGenerator(), streamRequests);
+  }
+
+  private VirtuaVNMPReader(String filename, AvailabilityGenerator availabilityGenerator,
+                           boolean streamRequests) {
+    this.availabilityGenerator = availabilityGenerator;
+    this.streamRequests = streamRequests;
+    remainingRequests = -1;
+    tokenizer = new ByteTokenizer(filename);
     readSubstrateNetwork(null);
-    readVirtualNetworkRequests(null);
+    if(!streamRequests)
+      readVirtualNetworkRequests(null);
   }
 
   public SubstrateNetwork readSubstrateNetwork(String filename) {
     HashMap<Integer, PhysicalNode> physicalNodes = new HashMap<Integer, PhysicalNode>();
     HashMap<String, PhysicalLink> physicalLinks = new HashMap<String, PhysicalLink>();
-    String[] tokens = scanner.nextLine().split(" ");
-    int amountNodes = Integer.valueOf(tokens[0]);
-    int amountLinks = Integer.valueOf(tokens[1]);
+    int amountNodes = tokenizer.nextInt();
+    int amountLinks = tokenizer.nextInt();
+    tokenizer.skipLine();
     for(int i = 0; i < amountNodes; i++) {
-      tokens = scanner.nextLine().split(" ");
-      int nodeId = Integer.valueOf(tokens[0]);
-      physicalNodes.put(nodeId, new PhysicalNode(nodeId, Double.valueOf(tokens[1])));
+      int nodeId = tokenizer.nextInt();
+      physicalNodes.put(nodeId, new PhysicalNode(nodeId,
+        tokenizer.nextDouble(), availabilityGenerator));
+      tokenizer.skipLine();
     }
     for(int i = 0; i < amountLinks; i++) {
-      tokens = scanner.nextLine().split(" ");
-      int sourceNodeId = Math.max(Integer.valueOf(tokens[0]),
-        Integer.valueOf(tokens[1]));
-      int destinyNodeId = Math.min(Integer.valueOf(tokens[0]),
-        Integer.valueOf(tokens[1]));
-      String linkId = String.format("%s:%s", sourceNodeId, destinyNodeId);
+      int firstNodeId = tokenizer.nextInt();
+      int secondNodeId = tokenizer.nextInt();
+      int sourceNodeId = Math.max(firstNodeId, secondNodeId);
+      int destinyNodeId = Math.min(firstNodeId, secondNodeId);
+      double bandwidth = tokenizer.nextDouble();
+      double delay = tokenizer.nextDouble();
+      int cost = tokenizer.nextInt();
+      tokenizer.skipLine();
+      String linkId = sourceNodeId + ":" + destinyNodeId;
       if(!physicalLinks.containsKey(linkId)) {
         physicalLinks.put(linkId,
                           new PhysicalLink(linkId, physicalNodes.get(sourceNodeId),
                                            physicalNodes.get(destinyNodeId),
-                                           Double.valueOf(tokens[2]),
-                                           Double.valueOf(tokens[3]),
-                                           Integer.valueOf(tokens[4])));
+                                           bandwidth, delay, cost,
+                                           availabilityGenerator));
       }
     }
     this.substrateNetwork = new SubstrateNetwork(physicalNodes, physicalLinks);
@@ -63,48 +91,70 @@ public class VirtuaVNMPReader implements IVNMPReader {
 
   public ArrayList<Request> readVirtualNetworkRequests(String filename) {
     requests = new ArrayList<Request>();
-    int numberOfRequests = Integer.valueOf(scanner.nextLine());
-    for(int j = 0; j < numberOfRequests; j++) {
-      String[] tokens = scanner.nextLine().split(" ");
-      int idRequest = Integer.valueOf(tokens[0]);
-      HashMap<Integer, VirtualNode> virtualNodes = new HashMap<Integer, VirtualNode>();
-      HashMap<String, VirtualLink> virtualLinks = new HashMap<String, VirtualLink>();
-      int amountNodes = Integer.valueOf(tokens[1]);
-      int amountLinks = Integer.valueOf(tokens[2]);
-      int creationTime = Integer.valueOf(tokens[3]);
-      int lifeTime = Integer.valueOf(tokens[4]);
-      for(int i = 0; i < amountNodes; i++) {
-        tokens = scanner.nextLine().split(" ");
-        int nodeId = Integer.valueOf(tokens[0]);
-        virtualNodes.put(nodeId, new VirtualNode(nodeId, Double.valueOf(tokens[1])));
-      }
-      for(int i = 0; i < amountLinks; i++) {
-        tokens = scanner.nextLine().split(" ");
-        int sourceNodeId = Math.max(Integer.valueOf(tokens[0]),
-          Integer.valueOf(tokens[1]));
-        int destinyNodeId = Math.min(Integer.valueOf(tokens[0]),
-          Integer.valueOf(tokens[1]));
-        String linkId = String.format("%s:%s", sourceNodeId, destinyNodeId);
-        if(!virtualLinks.containsKey(linkId)) {
-          virtualLinks.put(linkId,
-                            new VirtualLink(linkId, virtualNodes.get(sourceNodeId),
-                                            virtualNodes.get(destinyNodeId),
-                                            Double.valueOf(tokens[2]),
-                                            Double.valueOf(tokens[3])));
-        }
-      }
-      requests.add(idRequest,
-        new Request(idRequest, creationTime, lifeTime, virtualNodes, virtualLinks));
+    Request request;
+    while((request = readNextRequest()) != null) {
+      requests.add(request.getId(), request);
     }
 
     return this.requests;
   }
 
+  public Request readNextRequest() {
+    if(remainingRequests < 0) {
+      remainingRequests = tokenizer.nextInt();
+      tokenizer.skipLine();
+    }
+    if(remainingRequests == 0)
+      return null;
+    remainingRequests--;
+    int idRequest = tokenizer.nextInt();
+    HashMap<Integer, VirtualNode> virtualNodes = new HashMap<Integer, VirtualNode>();
+    HashMap<String, VirtualLink> virtualLinks = new HashMap<String, VirtualLink>();
+    int amountNodes = tokenizer.nextInt();
+    int amountLinks = tokenizer.nextInt();
+    int creationTime = tokenizer.nextInt();
+    int lifeTime = tokenizer.nextInt();
+    tokenizer.skipLine();
+    for(int i = 0; i < amountNodes; i++) {
+      int nodeId = tokenizer.nextInt();
+      virtualNodes.put(nodeId, new VirtualNode(nodeId, tokenizer.nextDouble()));
+      tokenizer.skipLine();
+    }
+    for(int i = 0; i < amountLinks; i++) {
+      int firstNodeId = tokenizer.nextInt();
+      int secondNodeId = tokenizer.nextInt();
+      int sourceNodeId = Math.max(firstNodeId, secondNodeId);
+      int destinyNodeId = Math.min(firstNodeId, secondNodeId);
+      double bandwidth = tokenizer.nextDouble();
+      double delay = tokenizer.nextDouble();
+      tokenizer.skipLine();
+      String linkId = sourceNodeId + ":" + destinyNodeId;
+      if(!virtualLinks.containsKey(linkId)) {
+        virtualLinks.put(linkId,
+                          new VirtualLink(linkId, virtualNodes.get(sourceNodeId),
+                                          virtualNodes.get(destinyNodeId),
+                                          bandwidth, delay));
+      }
+    }
+
+    return new Request(idRequest, creationTime, lifeTime, virtualNodes, virtualLinks);
+  }
+
   public SubstrateNetwork getSubstrateNetwork() {
     return substrateNetwork;
   }
 
   public ArrayList<Request> getVirtualNetworkRequests() {
+    if(streamRequests)
+      throw new RuntimeException("Requisições lidas sob demanda.");
+
     return requests;
   }
+
+  public IRequestSource getRequestSource() {
+    if(streamRequests)
+      return new StreamingRequestSource(this);
+
+    return new ListRequestSource(requests);
+  }
 }
@@ -0,0 +1,160 @@
+package simulator.io;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+import simulator.mapping.Mapping;
+import simulator.network.SubstrateNetwork;
+import simulator.simulation.Request;
+import simulator.simulation.RequestEvent;
+
+/*
+ *  Text trace with one line per window of simulated time instead of one per
+ * event. A line holds the start of the window, the time of its last event,
+ * how many events, arrivals and accepted arrivals it had and the minimum,
+ * mean and maximum of each load column over its events and of availability
+ * and node sharing rate over its accepted arrivals -- WINDOW_TOKENS fields in
+ * all. Windows without events are left out; the execution time is the last
+ * line, as in Tracer.
+ */
+public class WindowedTracer implements ITracer, ICheckpointable {
+  public static final int WINDOW_TOKENS = 5 + 3 * 8;
+  // Colunas de carga, sobre todos os eventos, e de mapeamento, sobre os aceitos
+  private static final int LOAD_COLUMNS = 6;
+  private static final int COLUMNS = 8;
+
+  private Tracer tracer;
+  private int window;
+  private TraceRecord record;
+  private StringBuilder line;
+  private boolean open;
+  private int windowStart;
+  private int lastTime;
+  private long events;
+  private long arrivals;
+  private long acceptedArrivals;
+  private double[] minimums;
+  private double[] sums;
+  private double[] maximums;
+
+  public WindowedTracer(Tracer tracer, int window) {
+    if(window <= 0)
+      throw new RuntimeException("Janela de tempo deve ser positiva.");
+    this.tracer = tracer;
+    this.window = window;
+    record = new TraceRecord();
+    line = new StringBuilder();
+    minimums = new double[COLUMNS];
+    sums = new double[COLUMNS];
+    maximums = new double[COLUMNS];
+  }
+
+  public void trace(SubstrateNetwork network, HashMap<Request, Mapping> mappings,
+                    RequestEvent event) {
+    record.fill(network, mappings, event);
+    int start = record.time - (int) (((long) record.time % window + window) % window);
+    if(open && start != windowStart)
+      flushWindow();
+    if(!open) {
+      open = true;
+      windowStart = start;
+      events = 0;
+      arrivals = 0;
+      acceptedArrivals = 0;
+    }
+    lastTime = record.time;
+    double[] loads = { record.maximumNodesLoad, record.averageNodesLoad,
+      record.maximumLinksLoad, record.averageLinksLoad,
+      record.nodesLoadStandardDeviation, record.linksLoadStandardDeviation };
+    for(int column = 0; column < LOAD_COLUMNS; column++)
+      accumulate(column, loads[column], events == 0);
+    events++;
+    if(event.isArrivalEvent()) {
+      arrivals++;
+      if(record.accepted) {
+        accumulate(LOAD_COLUMNS, record.getAvailability(), acceptedArrivals == 0);
+        accumulate(LOAD_COLUMNS + 1, record.nodeSharingRate, acceptedArrivals == 0);
+        acceptedArrivals++;
+      }
+    }
+  }
+
+  public void traceExecutionTime(long milliseconds) {
+    if(open)
+      flushWindow();
+    tracer.traceExecutionTime(milliseconds);
+  }
+
+  // A janela aberta fica no checkpoint, não no arquivo
+  public long getPosition() {
+    return tracer.getPosition();
+  }
+
+  public void close() {
+    tracer.close();
+  }
+
+  public String getOutputFileName() {
+    return tracer.getOutputFileName();
+  }
+
+  public void writeCheckpoint(DataOutputStream out) throws IOException {
+    out.writeBoolean(open);
+    out.writeInt(windowStart);
+    out.writeInt(lastTime);
+    out.writeLong(events);
+    out.writeLong(arrivals);
+    out.writeLong(acceptedArrivals);
+    for(int column = 0; column < COLUMNS; column++) {
+      out.writeDouble(minimums[column]);
+      out.writeDouble(sums[column]);
+      out.writeDouble(maximums[column]);
+    }
+  }
+
+  public void readCheckpoint(DataInputStream in) throws IOException {
+    open = in.readBoolean();
+    windowStart = in.readInt();
+    lastTime = in.readInt();
+    events = in.readLong();
+    arrivals = in.readLong();
+    acceptedArrivals = in.readLong();
+    for(int column = 0; column < COLUMNS; column++) {
+      minimums[column] = in.readDouble();
+      sums[column] = in.readDouble();
+      maximums[column] = in.readDouble();
+    }
+  }
+
+  private void accumulate(int column, double value, boolean first) {
+    if(first) {
+      minimums[column] = value;
+      sums[column] = 0;
+      maximums[column] = value;
+    }
+    minimums[column] = Math.min(minimums[column], value);
+    sums[column] += value;
+    maximums[column] = Math.max(maximums[column], value);
+  }
+
+  private void flushWindow() {
+    line.setLength(0);
+    line.append(windowStart).append(' ').append(lastTime).append(' ')
+      .append(events).append(' ').append(arrivals).append(' ')
+      .append(acceptedArrivals);
+    for(int column = 0; column < COLUMNS; column++) {
+      long amount = (column < LOAD_COLUMNS ? events : acceptedArrivals);
+      if(amount == 0) {
+        line.append(" 0.0 0.0 0.0");
+        continue;
+      }
+      line.append(' ').append(minimums[column])
+        .append(' ').append(sums[column] / amount)
+        .append(' ').append(maximums[column]);
+    }
+    tracer.println(line);
+    open = false;
+  }
+}
@@ -0,0 +1,127 @@
+package simulator.mapping;
+
+import java.util.ArrayList;
+
+import simulator.network.SubstrateTopology;
+import simulator.network.components.physical.PhysicalLink;
+import simulator.network.components.physical.PhysicalNode;
+import simulator.network.components.virtual.VirtualLink;
+import simulator.network.components.virtual.VirtualNode;
+import simulator.simulation.Request;
+
+/*
+ *  Logarithm of a mapping availability, kept up to date as nodes and routes
+ * are added or removed. Each physical component is counted once however many
+ * virtual nodes or links it serves, as in Mapping.getAvailability(), so a
+ * change only costs as much as the components it touches.
+ */
+public class AvailabilityLedger {
+  private SubstrateTopology topology;
+  private int[] hostings;
+  private int[] intermediaries;
+  private int[] linksUses;
+  private double logAvailability;
+
+  public AvailabilityLedger(SubstrateTopology topology) {
+    this.topology = topology;
+    hostings = new int[topology.getAmountNodes()];
+    intermediaries = new int[topology.getAmountNodes()];
+    linksUses = new int[topology.getAmountLinks()];
+    logAvailability = 0;
+  }
+
+  public AvailabilityLedger(SubstrateTopology topology, Request request,
+                            Mapping mapping) {
+    this(topology);
+    for(VirtualNode virtualNode : request.getVirtualNodes().values()) {
+      PhysicalNode hostingNode = mapping.getHostingNodeFor(virtualNode);
+      if(hostingNode != null)
+        addNode(hostingNode);
+    }
+    for(VirtualLink virtualLink : request.getVirtualLinks().values()) {
+      ArrayList<PhysicalLink> hostingLinks = mapping.getHostingLinksFor(virtualLink);
+      if(hostingLinks != null) {
+        addRoute(mapping.getHostingNodeFor((VirtualNode) virtualLink.getSourceNode()),
+          mapping.getHostingNodeFor((VirtualNode) virtualLink.getDestinyNode()),
+          hostingLinks);
+      }
+    }
+  }
+
+  public double getLogAvailability() {
+    return logAvailability;
+  }
+
+  public double getAvailability() {
+    return Math.exp(logAvailability);
+  }
+
+  public void addNode(PhysicalNode physicalNode) {
+    int node = indexOf(physicalNode);
+    if(hostings[node]++ == 0)
+      logAvailability += topology.getNodeLogAvailability(node);
+  }
+
+  public void removeNode(PhysicalNode physicalNode) {
+    int node = indexOf(physicalNode);
+    if(hostings[node] == 0)
+      throw new RuntimeException("Nó físico não hospeda nó virtual.");
+    if(--hostings[node] == 0)
+      logAvailability -= topology.getNodeLogAvailability(node);
+  }
+
+  /*
+   * Rota de um enlace virtual cujos extremos estão em sourceNode e
+   * destinyNode; os demais nós tocados pelos enlaces são intermediários.
+   */
+  public void addRoute(PhysicalNode sourceNode, PhysicalNode destinyNode,
+                       ArrayList<PhysicalLink> physicalLinks) {
+    changeRoute(sourceNode, destinyNode, physicalLinks, 1);
+  }
+
+  public void removeRoute(PhysicalNode sourceNode, PhysicalNode destinyNode,
+                          ArrayList<PhysicalLink> physicalLinks) {
+    changeRoute(sourceNode, destinyNode, physicalLinks, -1);
+  }
+
+  private void changeRoute(PhysicalNode sourceNode, PhysicalNode destinyNode,
+                           ArrayList<PhysicalLink> physicalLinks, int amount) {
+    int source = indexOf(sourceNode);
+    int destiny = indexOf(destinyNode);
+    for(PhysicalLink physicalLink : physicalLinks) {
+      int link = topology.indexOf(physicalLink);
+      if(link < 0)
+        throw new RuntimeException("Enlace físico não pertence à rede substrato.");
+      linksUses[link] = change(linksUses[link], amount,
+        topology.getLinkLogAvailability(link));
+      int[] linkNodes = { topology.getLinkSource(link),
+        topology.getLinkDestiny(link) };
+      for(int node : linkNodes) {
+        if(node != source && node != destiny) {
+          intermediaries[node] = change(intermediaries[node], amount,
+            topology.getIntermediaryNodeLogAvailability(node));
+        }
+      }
+    }
+  }
+
+  private int change(int uses, int amount, double logComponentAvailability) {
+    int changedUses = uses + amount;
+    if(changedUses < 0)
+      throw new RuntimeException("Componente físico não está em uso.");
+    if(uses == 0)
+      logAvailability += logComponentAvailability;
+    else if(changedUses == 0)
+      logAvailability -= logComponentAvailability;
+
+    return changedUses;
+  }
+
+  private int indexOf(PhysicalNode physicalNode) {
+    int node = topology.indexOf(physicalNode);
+    if(node < 0)
+      throw new RuntimeException("Nó físico não pertence à rede substrato.");
+
+    return node;
+  }
+}
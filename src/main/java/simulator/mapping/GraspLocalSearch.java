@@ -0,0 +1,324 @@
+package simulator.mapping;
+
+import java.util.ArrayList;
+
+import simulator.network.ResidualCapacities;
+import simulator.network.ShortestPathCache;
+import simulator.network.ShortestPathTree;
+import simulator.network.SubstrateNetwork;
+import simulator.network.SubstrateTopology;
+import simulator.network.components.Link;
+import simulator.network.components.Node;
+import simulator.network.components.Path;
+import simulator.network.components.physical.PhysicalLink;
+import simulator.network.components.physical.PhysicalNode;
+import simulator.network.components.virtual.VirtualLink;
+import simulator.network.components.virtual.VirtualNode;
+import simulator.simulation.Request;
+
+/*
+ *  Local search phase of GRASP. Improves a complete mapping with two kinds of
+ * moves: relocating a virtual node to another physical node (rerouting its
+ * virtual links over shortest paths) and rerouting a virtual link through an
+ * intermediate physical node. The first move found that raises the
+ * availability is applied. Moves are scored with an AvailabilityLedger, so
+ * only the components they touch are visited, and the search stops after
+ * maxMoves evaluated moves or maxTime milliseconds.
+ */
+public class GraspLocalSearch {
+  private static final double EPSILON = 1e-12;
+  private SubstrateNetwork substrateNetwork;
+  private boolean allowNodeSharing;
+  private int maxMoves;
+  private long maxTime;
+  private SubstrateTopology topology;
+  private ShortestPathCache shortestPathCache;
+  private int evaluatedMoves;
+  private long deadline;
+  private int[] visits;
+  private int visitsStamp;
+
+  /*
+   * maxTime em milissegundos; 0 limita a busca apenas pelo número de
+   * movimentos, o que a torna determinística.
+   */
+  public GraspLocalSearch(SubstrateNetwork substrateNetwork,
+                          boolean allowNodeSharing, int maxMoves, long maxTime) {
+    if(maxMoves < 1 || maxTime < 0)
+      throw new RuntimeException("Orçamento da busca local inválido.");
+
+    this.substrateNetwork = substrateNetwork;
+    this.allowNodeSharing = allowNodeSharing;
+    this.maxMoves = maxMoves;
+    this.maxTime = maxTime;
+  }
+
+  public int getEvaluatedMoves() {
+    return evaluatedMoves;
+  }
+
+  /*
+   * Melhora no lugar o mapeamento completo da requisição. Retorna o número de
+   * movimentos aplicados.
+   */
+  public int improve(Request request, Mapping mapping) {
+    topology = substrateNetwork.getTopology();
+    shortestPathCache = substrateNetwork.getShortestPathCache();
+    visits = new int[topology.getAmountNodes()];
+    visitsStamp = 0;
+    evaluatedMoves = 0;
+    deadline = System.nanoTime() + maxTime * 1000000L;
+    AvailabilityLedger ledger = new AvailabilityLedger(topology, request, mapping);
+    int appliedMoves = 0;
+    boolean improved = true;
+    while(improved && !isBudgetExhausted()) {
+      improved = false;
+      for(VirtualNode virtualNode : request.getVirtualNodes().values()) {
+        if(relocate(virtualNode, mapping, ledger)) {
+          improved = true;
+          appliedMoves++;
+        }
+      }
+      for(VirtualLink virtualLink : request.getVirtualLinks().values()) {
+        if(reroute(virtualLink, mapping, ledger)) {
+          improved = true;
+          appliedMoves++;
+        }
+      }
+    }
+
+    return appliedMoves;
+  }
+
+  private boolean isBudgetExhausted() {
+    return evaluatedMoves >= maxMoves
+      || (maxTime > 0 && System.nanoTime() >= deadline);
+  }
+
+  private boolean relocate(VirtualNode virtualNode, Mapping mapping,
+                           AvailabilityLedger ledger) {
+    ResidualCapacities residuals = mapping.getResiduals();
+    PhysicalNode currentNode = mapping.getHostingNodeFor(virtualNode);
+    ArrayList<VirtualLink> attachedLinks = new ArrayList<VirtualLink>();
+    ArrayList<ArrayList<PhysicalLink>> currentRoutes =
+      new ArrayList<ArrayList<PhysicalLink>>();
+    for(Link link : virtualNode.getAttachedLinks()) {
+      attachedLinks.add((VirtualLink) link);
+      currentRoutes.add(mapping.getHostingLinksFor((VirtualLink) link));
+    }
+
+    for(int node = 0; node < topology.getAmountNodes(); node++) {
+      if(isBudgetExhausted())
+        return false;
+      PhysicalNode candidateNode = topology.getNode(node);
+      if(candidateNode == currentNode
+         || (!allowNodeSharing && mapping.isNodeInUse(candidateNode)))
+        continue;
+      evaluatedMoves++;
+      if(residuals.getRemainingCapacity(topology, node) < virtualNode.getCapacity())
+        continue;
+
+      // Rotas pelos caminhos mais curtos; null quando os extremos coincidem
+      ArrayList<ArrayList<PhysicalLink>> candidateRoutes =
+        new ArrayList<ArrayList<PhysicalLink>>();
+      ShortestPathTree shortestPaths = shortestPathCache.getTreeFrom(candidateNode);
+      for(VirtualLink virtualLink : attachedLinks) {
+        PhysicalNode otherNode = mapping.getHostingNodeFor(
+          (VirtualNode) virtualLink.getNodeAttachedTo(virtualNode));
+        if(otherNode == candidateNode) {
+          candidateRoutes.add(null);
+        } else if(shortestPaths.reaches(otherNode)
+                  && shortestPaths.getDelayTo(otherNode) <= virtualLink.getDelay()) {
+          candidateRoutes.add(shortestPaths.getPathTo(otherNode).getLinks());
+        } else {
+          candidateRoutes = null;
+          break;
+        }
+      }
+      if(candidateRoutes == null)
+        continue;
+
+      double before = ledger.getLogAvailability();
+      moveInLedger(ledger, mapping, virtualNode, attachedLinks, currentNode,
+        currentRoutes, candidateNode, candidateRoutes);
+      if(ledger.getLogAvailability() - before > EPSILON
+         && applyRelocation(mapping, virtualNode, attachedLinks, currentRoutes,
+              candidateNode, candidateRoutes)) {
+        return true;
+      }
+      moveInLedger(ledger, mapping, virtualNode, attachedLinks, candidateNode,
+        candidateRoutes, currentNode, currentRoutes);
+    }
+
+    return false;
+  }
+
+  private void moveInLedger(AvailabilityLedger ledger, Mapping mapping,
+                  VirtualNode virtualNode, ArrayList<VirtualLink> attachedLinks,
+                  PhysicalNode fromNode, ArrayList<ArrayList<PhysicalLink>> fromRoutes,
+                  PhysicalNode toNode, ArrayList<ArrayList<PhysicalLink>> toRoutes) {
+    ledger.removeNode(fromNode);
+    ledger.addNode(toNode);
+    for(int i = 0; i < attachedLinks.size(); i++) {
+      VirtualLink virtualLink = attachedLinks.get(i);
+      if(fromRoutes.get(i) != null) {
+        ledger.removeRoute(hostOf(virtualLink.getSourceNode(), mapping,
+            virtualNode, fromNode),
+          hostOf(virtualLink.getDestinyNode(), mapping, virtualNode, fromNode),
+          fromRoutes.get(i));
+      }
+      if(toRoutes.get(i) != null) {
+        ledger.addRoute(hostOf(virtualLink.getSourceNode(), mapping,
+            virtualNode, toNode),
+          hostOf(virtualLink.getDestinyNode(), mapping, virtualNode, toNode),
+          toRoutes.get(i));
+      }
+    }
+  }
+
+  private PhysicalNode hostOf(Node virtualNode, Mapping mapping,
+                              VirtualNode movedNode, PhysicalNode movedNodeHost) {
+    if(virtualNode == movedNode)
+      return movedNodeHost;
+
+    return mapping.getHostingNodeFor((VirtualNode) virtualNode);
+  }
+
+  /*
+   * Efetiva a realocação se houver capacidade; caso contrário restaura o
+   * mapeamento anterior e retorna false.
+   */
+  private boolean applyRelocation(Mapping mapping, VirtualNode virtualNode,
+             ArrayList<VirtualLink> attachedLinks,
+             ArrayList<ArrayList<PhysicalLink>> currentRoutes,
+             PhysicalNode candidateNode,
+             ArrayList<ArrayList<PhysicalLink>> candidateRoutes) {
+    ResidualCapacities residuals = mapping.getResiduals();
+    int savepoint = mapping.savepoint();
+    for(int i = 0; i < attachedLinks.size(); i++) {
+      if(currentRoutes.get(i) != null)
+        mapping.removeLinkMapping(attachedLinks.get(i));
+    }
+    mapping.removeNodeMapping(virtualNode);
+
+    if(!residuals.canHost(candidateNode, virtualNode)) {
+      mapping.rollbackTo(savepoint);
+      return false;
+    }
+    mapping.addNodeMapping(virtualNode, candidateNode);
+    for(int i = 0; i < attachedLinks.size(); i++) {
+      ArrayList<PhysicalLink> route = candidateRoutes.get(i);
+      if(route == null)
+        continue;
+      if(!canHost(residuals, route, attachedLinks.get(i))) {
+        mapping.rollbackTo(savepoint);
+        return false;
+      }
+      mapping.addLinkMapping(attachedLinks.get(i), route);
+    }
+    mapping.release(savepoint);
+
+    return true;
+  }
+
+  private boolean reroute(VirtualLink virtualLink, Mapping mapping,
+                          AvailabilityLedger ledger) {
+    ResidualCapacities residuals = mapping.getResiduals();
+    ArrayList<PhysicalLink> currentRoute = mapping.getHostingLinksFor(virtualLink);
+    if(currentRoute == null)
+      return false;
+    PhysicalNode sourceNode = mapping.getHostingNodeFor(
+      (VirtualNode) virtualLink.getSourceNode());
+    PhysicalNode destinyNode = mapping.getHostingNodeFor(
+      (VirtualNode) virtualLink.getDestinyNode());
+    ShortestPathTree sourceShortestPaths = shortestPathCache.getTreeFrom(sourceNode);
+
+    for(int node = 0; node < topology.getAmountNodes(); node++) {
+      if(isBudgetExhausted())
+        return false;
+      PhysicalNode intermediateNode = topology.getNode(node);
+      if(intermediateNode == sourceNode || intermediateNode == destinyNode
+         || !sourceShortestPaths.reaches(intermediateNode))
+        continue;
+      evaluatedMoves++;
+      ShortestPathTree intermediateShortestPaths =
+        shortestPathCache.getTreeFrom(intermediateNode);
+      if(!intermediateShortestPaths.reaches(destinyNode)
+         || sourceShortestPaths.getDelayTo(intermediateNode)
+            + intermediateShortestPaths.getDelayTo(destinyNode)
+            > virtualLink.getDelay())
+        continue;
+      ArrayList<PhysicalLink> route = concatenate(
+        sourceShortestPaths.getPathTo(intermediateNode),
+        intermediateShortestPaths.getPathTo(destinyNode));
+      if(route == null || isSameRoute(route, currentRoute))
+        continue;
+
+      double before = ledger.getLogAvailability();
+      ledger.removeRoute(sourceNode, destinyNode, currentRoute);
+      ledger.addRoute(sourceNode, destinyNode, route);
+      if(ledger.getLogAvailability() - before > EPSILON) {
+        int savepoint = mapping.savepoint();
+        mapping.removeLinkMapping(virtualLink);
+        if(canHost(residuals, route, virtualLink)) {
+          mapping.addLinkMapping(virtualLink, route);
+          mapping.release(savepoint);
+
+          return true;
+        }
+        mapping.rollbackTo(savepoint);
+      }
+      ledger.removeRoute(sourceNode, destinyNode, route);
+      ledger.addRoute(sourceNode, destinyNode, currentRoute);
+    }
+
+    return false;
+  }
+
+  /*
+   * Junta os dois caminhos, ou retorna null se o resultado repete algum nó.
+   */
+  private ArrayList<PhysicalLink> concatenate(Path firstPath, Path secondPath) {
+    visitsStamp++;
+    int node = topology.indexOf(firstPath.getSourceNode());
+    visits[node] = visitsStamp;
+    ArrayList<PhysicalLink> route = new ArrayList<PhysicalLink>(
+      firstPath.getLinks().size() + secondPath.getLinks().size());
+    Path[] paths = { firstPath, secondPath };
+    for(Path path : paths) {
+      for(PhysicalLink physicalLink : path.getLinks()) {
+        int link = topology.indexOf(physicalLink);
+        node = (topology.getLinkSource(link) == node ?
+          topology.getLinkDestiny(link) : topology.getLinkSource(link));
+        if(visits[node] == visitsStamp)
+          return null;
+        visits[node] = visitsStamp;
+        route.add(physicalLink);
+      }
+    }
+
+    return route;
+  }
+
+  private boolean isSameRoute(ArrayList<PhysicalLink> route,
+                              ArrayList<PhysicalLink> otherRoute) {
+    if(route.size() != otherRoute.size())
+      return false;
+    for(int i = 0; i < route.size(); i++) {
+      if(route.get(i) != otherRoute.get(i))
+        return false;
+    }
+
+    return true;
+  }
+
+  private boolean canHost(ResidualCapacities residuals,
+                          ArrayList<PhysicalLink> route, VirtualLink virtualLink) {
+    for(PhysicalLink physicalLink : route) {
+      if(!residuals.canHost(physicalLink, virtualLink))
+        return false;
+    }
+
+    return true;
+  }
+}
@@ -1,59 +1,291 @@
 package simulator.mapping;
 
-import java.math.BigDecimal;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Random;
-
-import org.jgrapht.alg.DijkstraShortestPath;
-import org.jgrapht.graph.SimpleWeightedGraph;
-import org.jgrapht.graph.DefaultWeightedEdge;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import generator.util.RandomContext;
+
+import simulator.io.ICheckpointable;
+import simulator.network.ResidualCapacities;
+import simulator.network.ResidualSnapshot;
+import simulator.network.ShortestPathTree;
 import simulator.network.SubstrateNetwork;
+import simulator.network.SubstrateTopology;
 import simulator.network.components.*;
 import simulator.network.components.physical.*;
 import simulator.network.components.virtual.*;
 import simulator.simulation.Request;
+import simulator.util.AvailabilityMode;
 
-public class GraspMapper implements IMapper {
+
+public class GraspMapper implements ISessionMapper, ICheckpointable, Closeable {
   private final double A = 0.5;
   private final int MIN_RCL_SIZE = 7;
   private final int MAX_SEARCH_TRIES = 20;
   public static MathContext MATH_CONTEXT = new MathContext(10, RoundingMode.HALF_UP);
   private Random random;
   protected boolean allowNodeSharing;
+  private int multiStarts;
+  private int multiStartThreads;
+  private ExecutorService executor;
+  private int localSearchMoves;
+  private long localSearchTime;
+  private AvailabilityMode availabilityMode;
 
   public GraspMapper() {
-    random = new Random(1337);
+    this(new Random(1337));
+  }
+
+  /*
+   * As escolhas aleatórias da construção vêm de context, o que torna o
+   * mapeamento reprodutível mesmo com outras simulações no mesmo processo.
+   */
+  public GraspMapper(RandomContext context) {
+    this(context.derive("GraspMapper").newRandom());
+  }
+
+  private GraspMapper(Random random) {
+    this.random = random;
     allowNodeSharing = false;
+    multiStarts = 1;
+    availabilityMode = AvailabilityMode.EXACT;
   }
 
   public void allowNodeSharing() {
     allowNodeSharing = true;
   }
 
+  /*
+   * Como as disponibilidades de caminhos e mapeamentos candidatos são
+   * comparadas; EXACT por padrão. Cada mapeador tem o seu, de modo que
+   * simulações simultâneas podem usar modos diferentes.
+   */
+  public void setAvailabilityMode(AvailabilityMode mode) {
+    availabilityMode = mode;
+  }
+
+  public AvailabilityMode getAvailabilityMode() {
+    return availabilityMode;
+  }
+
+  public void setMultiStart(int starts) {
+    setMultiStart(starts, Runtime.getRuntime().availableProcessors());
+  }
+
+  /*
+   * Cada chamada a map passa a executar starts construções independentes em
+   * até threads threads, cada uma sobre uma cópia das cargas do substrato e
+   * com seu próprio gerador, e efetiva a de maior disponibilidade.
+   */
+  public synchronized void setMultiStart(int starts, int threads) {
+    if(starts < 1 || threads < 1)
+      throw new RuntimeException("Número de construções e threads deve ser positivo.");
+
+    multiStarts = starts;
+    multiStartThreads = threads;
+    close();
+  }
+
+  /*
+   * Encerra as threads das construções paralelas. Quem cria um mapeador com
+   * várias construções deve fechá-lo ao fim da simulação; um map posterior
+   * cria um novo conjunto de threads.
+   */
+  public synchronized void close() {
+    if(executor != null) {
+      executor.shutdown();
+      executor = null;
+    }
+  }
+
+  public int getMultiStarts() {
+    return multiStarts;
+  }
+
+  /*
+   * Ativa a busca local após cada construção, limitada a maxMoves movimentos
+   * avaliados e a maxTime milissegundos (0 para não limitar o tempo). Com
+   * maxMoves igual a 0 a busca local é desativada.
+   */
+  public void setLocalSearch(int maxMoves, long maxTime) {
+    if(maxMoves < 0 || maxTime < 0)
+      throw new RuntimeException("Orçamento da busca local inválido.");
+
+    localSearchMoves = maxMoves;
+    localSearchTime = maxTime;
+  }
+
   public Mapping map(Request request, SubstrateNetwork substrateNetwork) {
-    Mapping mapping = new Mapping();
+    if(multiStarts <= 1)
+      return improve(request, substrateNetwork,
+        construct(request, substrateNetwork, new Mapping(), random));
+
+    return mapMultiStart(request, substrateNetwork);
+  }
+
+  /*
+   * Sessão que guarda os nós candidatos calculados na primeira tentativa e os
+   * reaproveita, revalidados, nas seguintes. Com várias construções por
+   * chamada, cada tentativa é uma chamada a map.
+   */
+  public IMapperSession openSession(Request request,
+                                    SubstrateNetwork substrateNetwork) {
+    return new GraspSession(request, substrateNetwork);
+  }
+
+  /*
+   * O estado salvo é o do gerador aleatório, o único que passa de um
+   * mapeamento para o outro.
+   */
+  public void writeCheckpoint(DataOutputStream out) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream objects = new ObjectOutputStream(bytes);
+    objects.writeObject(random);
+    objects.close();
+    out.writeInt(bytes.size());
+    bytes.writeTo(out);
+  }
+
+  public void readCheckpoint(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    ObjectInputStream objects = new ObjectInputStream(
+      new ByteArrayInputStream(bytes));
+    try {
+      random = (Random) objects.readObject();
+    } catch(ClassNotFoundException e) {
+      throw new IOException(e.getMessage());
+    } finally {
+      objects.close();
+    }
+  }
+
+  private Mapping mapMultiStart(final Request request,
+                                final SubstrateNetwork substrateNetwork) {
+    // Constrói topologia e cache antes de dividir o trabalho entre as threads
+    substrateNetwork.getShortestPathCache();
+    ArrayList<Callable<Mapping>> constructions = new ArrayList<Callable<Mapping>>();
+    for(int start = 0; start < multiStarts; start++) {
+      final long seed = random.nextLong();
+      constructions.add(new Callable<Mapping>() {
+        public Mapping call() {
+          return improve(request, substrateNetwork, construct(request,
+            substrateNetwork, new Mapping(new ResidualSnapshot(substrateNetwork)),
+            new Random(seed)));
+        }
+      });
+    }
+
+    List<Future<Mapping>> results;
+    try {
+      results = getExecutor().invokeAll(constructions);
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Construções interrompidas.", e);
+    }
+
+    // Em caso de empate prevalece a construção de menor índice
+    Mapping bestMapping = null;
+    for(Future<Mapping> result : results) {
+      Mapping mapping;
+      try {
+        mapping = result.get();
+      } catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Construções interrompidas.", e);
+      } catch(ExecutionException e) {
+        throw new RuntimeException(e.getCause());
+      }
+      if(mapping != null && (bestMapping == null
+         || availabilityMode.compare(mapping, bestMapping) > 0)) {
+        bestMapping = mapping;
+      }
+    }
+
+    if(bestMapping == null)
+      return null;
+
+    return bestMapping.replayOn(ResidualCapacities.LIVE);
+  }
+
+  private synchronized ExecutorService getExecutor() {
+    if(executor == null) {
+      executor = Executors.newFixedThreadPool(multiStartThreads,
+        new ThreadFactory() {
+          public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "grasp-multi-start");
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+    }
+
+    return executor;
+  }
+
+  private Mapping improve(Request request, SubstrateNetwork substrateNetwork,
+                          Mapping mapping) {
+    if(mapping != null && localSearchMoves > 0) {
+      GraspLocalSearch localSearch = new GraspLocalSearch(substrateNetwork,
+        allowNodeSharing, localSearchMoves, localSearchTime);
+      localSearch.improve(request, mapping);
+    }
+
+    return mapping;
+  }
+
+  /*
+   * Uma construção gulosa aleatorizada. As capacidades são lidas e reservadas
+   * através de mapping.getResiduals().
+   */
+  protected Mapping construct(Request request, SubstrateNetwork substrateNetwork,
+                              Mapping mapping, Random random) {
+    return construct(request, substrateNetwork, mapping, random, null);
+  }
+
+  private Mapping construct(Request request, SubstrateNetwork substrateNetwork,
+                            Mapping mapping, Random random, GraspSession session) {
+    // Em caso de falha desfaz apenas as reservas desta construção
+    int savepoint = mapping.savepoint();
+    ResidualCapacities residuals = mapping.getResiduals();
     ArrayList<VirtualNode> discoveredVirtualNodes = new ArrayList<VirtualNode>();
     HashMap<Integer, VirtualNode> virtualNodes = request.getVirtualNodes();
     VirtualNode firstVirtualNode = virtualNodes.get(random.nextInt(virtualNodes.size()));
-    PhysicalNode firstPhysicalNode = findFirstPhysicalNodeFor(firstVirtualNode,
-      substrateNetwork);
+    PhysicalNode firstPhysicalNode = (session == null ?
+      findFirstPhysicalNodeFor(firstVirtualNode, substrateNetwork, residuals, random) :
+      session.findFirstPhysicalNodeFor(firstVirtualNode, residuals, random));
 
     if(firstPhysicalNode == null) {
-      mapping.clearMappings();
+      mapping.rollbackTo(savepoint);
       return null;
     }
 
     mapping.addNodeMapping(firstVirtualNode, firstPhysicalNode);
     discoveredVirtualNodes.add(firstVirtualNode);
 
-    if(virtualNodes.size() == 1)
+    if(virtualNodes.size() == 1) {
+      mapping.release(savepoint);
       return mapping;
+    }
 
     while(discoveredVirtualNodes.size() > 0) {
       VirtualNode discoveredVirtualNode = discoveredVirtualNodes.get(
@@ -67,8 +299,9 @@ public class GraspMapper implements IMapper {
           discoveredVirtualNode);
         if(!mapping.isNodeMapped(attachedNode)) {
           if(!mapBranch(discoveredVirtualNode, attachedNode,
-             (VirtualLink) attachedVirtualLink, substrateNetwork, mapping)) {
-            mapping.clearMappings();
+             (VirtualLink) attachedVirtualLink, substrateNetwork, mapping,
+             random, session)) {
+            mapping.rollbackTo(savepoint);
             return null;
           }
 
@@ -88,40 +321,66 @@ public class GraspMapper implements IMapper {
           (VirtualNode) virtualLink.getDestinyNode());
         // Origem e destino podem ser iguais por conta do compartilhamento
         if(!sourcePhysicalNode.equals(destinyPhysicalNode)) {
-          HashMap<PhysicalNode, Path> paths = getPathsFromNode(sourcePhysicalNode,
-            substrateNetwork);
-          Path path = paths.get(destinyPhysicalNode);
-          if(path != null && path.canHost(virtualLink)) {
+          Path path = substrateNetwork.getShortestPathCache().getPath(
+            sourcePhysicalNode, destinyPhysicalNode);
+          if(path != null && residuals.canHost(path, virtualLink)) {
             mapping.addLinkMapping(virtualLink, path.getLinks());
           } else {
-            mapping.clearMappings();
+            mapping.rollbackTo(savepoint);
             return null;
           }
         }
       }
     }
+    mapping.release(savepoint);
 
     return mapping;
   }
 
   protected PhysicalNode findFirstPhysicalNodeFor(VirtualNode virtualNode,
                                             SubstrateNetwork substrateNetwork) {
-    double accumulatedLoad = 0;
-    double accumulatedProbability = 0;
-    ArrayList<Double> probabilities = new ArrayList<Double>();
-    ArrayList<PhysicalNode> capablePhysicalNodes = substrateNetwork.
-      getPhysicalNodesWithRemainingCapacityGreaterThan(virtualNode.getCapacity());
+    return findFirstPhysicalNodeFor(virtualNode, substrateNetwork,
+      ResidualCapacities.LIVE, random);
+  }
 
+  protected PhysicalNode findFirstPhysicalNodeFor(VirtualNode virtualNode,
+                    SubstrateNetwork substrateNetwork, ResidualCapacities residuals,
+                                                                Random random) {
+    ArrayList<PhysicalNode> capablePhysicalNodes = collectFirstNodeCandidates(
+      virtualNode, substrateNetwork, residuals);
     if(capablePhysicalNodes.size() == 0)
       return null;
 
-    Collections.sort(capablePhysicalNodes);
+    return pickFirstNode(capablePhysicalNodes,
+      getCumulativeProbabilities(capablePhysicalNodes, residuals), random);
+  }
+
+  // Nós aptos, já em ordem de disponibilidade
+  private ArrayList<PhysicalNode> collectFirstNodeCandidates(VirtualNode virtualNode,
+                    SubstrateNetwork substrateNetwork, ResidualCapacities residuals) {
+    SubstrateTopology topology = substrateNetwork.getTopology();
+    int[] capableNodes = new int[topology.getAmountNodes()];
+    int amountCapableNodes = residuals.collectNodesWithRemainingCapacityGreaterThan(
+      topology, virtualNode.getCapacity(), capableNodes);
+    ArrayList<PhysicalNode> capablePhysicalNodes =
+      new ArrayList<PhysicalNode>(amountCapableNodes);
+    for(int i = 0; i < amountCapableNodes; i++)
+      capablePhysicalNodes.add(topology.getNode(capableNodes[i]));
 
     // if(!ALEATORY_FIRST_NODE) TODO
     //   capablePhysicalNodes = capListNodes(capablePhysicalNodes);
 
+    return capablePhysicalNodes;
+  }
+
+  // Probabilidades acumuladas de escolha, proporcionais à capacidade livre
+  private ArrayList<Double> getCumulativeProbabilities(
+          ArrayList<PhysicalNode> capablePhysicalNodes, ResidualCapacities residuals) {
+    double accumulatedLoad = 0;
+    double accumulatedProbability = 0;
+    ArrayList<Double> probabilities = new ArrayList<Double>();
     for(PhysicalNode node : capablePhysicalNodes) {
-      double averageLoad = (node.getRemainingCapacity()) / node.getCapacity();
+      double averageLoad = (residuals.getRemainingCapacity(node)) / node.getCapacity();
       probabilities.add(averageLoad);
       accumulatedLoad += averageLoad;
     }
@@ -132,6 +391,11 @@ public class GraspMapper implements IMapper {
       probabilities.set(index, accumulatedProbability);
     }
 
+    return probabilities;
+  }
+
+  private PhysicalNode pickFirstNode(ArrayList<PhysicalNode> capablePhysicalNodes,
+                                     ArrayList<Double> probabilities, Random random) {
     int index = 0;
     while(index < probabilities.size() && random.nextDouble() > probabilities.get(index))
       index++;
@@ -142,23 +406,53 @@ public class GraspMapper implements IMapper {
   protected boolean mapBranch(VirtualNode sourceVirtualNode,
                           VirtualNode destinyVirtualNode, VirtualLink virtualLink,
                           SubstrateNetwork substrateNetwork, Mapping mapping) {
+    return mapBranch(sourceVirtualNode, destinyVirtualNode, virtualLink,
+      substrateNetwork, mapping, random);
+  }
+
+  protected boolean mapBranch(VirtualNode sourceVirtualNode,
+                          VirtualNode destinyVirtualNode, VirtualLink virtualLink,
+                          SubstrateNetwork substrateNetwork, Mapping mapping,
+                          Random random) {
+    return mapBranch(sourceVirtualNode, destinyVirtualNode, virtualLink,
+      substrateNetwork, mapping, random, null);
+  }
+
+  private boolean mapBranch(VirtualNode sourceVirtualNode,
+                          VirtualNode destinyVirtualNode, VirtualLink virtualLink,
+                          SubstrateNetwork substrateNetwork, Mapping mapping,
+                          Random random, GraspSession session) {
     // Seleciona nós candidatos aptos
+    ResidualCapacities residuals = mapping.getResiduals();
     PhysicalNode sourcePhysicalNode = mapping.getHostingNodeFor(sourceVirtualNode);
-    HashMap<PhysicalNode, Path> shortestPaths =
-      getShortestPathsFromNodeWithConstraints(sourcePhysicalNode, substrateNetwork,
-        virtualLink);
+    SubstrateTopology topology = substrateNetwork.getTopology();
+    ShortestPathTree shortestPaths = substrateNetwork.getShortestPathCache().
+      getTreeFrom(sourcePhysicalNode);
     ArrayList<PhysicalNode> candidateNodes = new ArrayList<PhysicalNode>();
-    for(PhysicalNode physicalNode : substrateNetwork.getHashNodes().values()) {
-      if(physicalNode.canHost(destinyVirtualNode)
-         && shortestPaths.get(physicalNode) != null
-         && shortestPaths.get(physicalNode).canHost(virtualLink)) {
+    double capacity = destinyVirtualNode.getCapacity();
+    int[] capableNodes;
+    int amountCapableNodes;
+    if(session == null) {
+      capableNodes = new int[topology.getAmountNodes()];
+      amountCapableNodes = residuals.collectNodesWithRemainingCapacityAtLeast(
+        topology, capacity, capableNodes);
+    } else {
+      capableNodes = session.getBranchCandidates(sourcePhysicalNode,
+        destinyVirtualNode, virtualLink, shortestPaths);
+      amountCapableNodes = capableNodes.length;
+    }
+    for(int i = 0; i < amountCapableNodes; i++) {
+      PhysicalNode physicalNode = topology.getNode(capableNodes[i]);
+      // Candidatos da sessão são revalidados com as cargas atuais
+      if((session == null
+          || residuals.getRemainingCapacity(topology, capableNodes[i]) >= capacity)
+         && shortestPaths.canHost(physicalNode, virtualLink, residuals)) {
         if(allowNodeSharing)
           candidateNodes.add(physicalNode);
         else if(!mapping.isNodeInUse(physicalNode))
           candidateNodes.add(physicalNode);
       }
     }
-    Collections.sort(candidateNodes);
     candidateNodes = capListNodes(candidateNodes);
 
     // Seleciona melhor caminho de acordo com a disponibilidade
@@ -167,9 +461,9 @@ public class GraspMapper implements IMapper {
     while(!candidateNodes.isEmpty() && triesCounter < MAX_SEARCH_TRIES) {
       PhysicalNode candidateDestinyPhysicalNode = candidateNodes.get(
         random.nextInt(candidateNodes.size()));
-      Path path = shortestPaths.get(candidateDestinyPhysicalNode);
+      Path path = shortestPaths.getPathTo(candidateDestinyPhysicalNode);
       if(bestPath == null
-         || path.getAvailability().compareTo(bestPath.getAvailability()) > 0) {
+         || availabilityMode.compare(path, bestPath) > 0) {
         bestPath = path;
       }
       candidateNodes.remove(candidateDestinyPhysicalNode);
@@ -177,15 +471,16 @@ public class GraspMapper implements IMapper {
     }
 
     if(bestPath == null) {
-      if(allowNodeSharing && sourcePhysicalNode.canHost(destinyVirtualNode)) {
+      if(allowNodeSharing
+         && residuals.canHost(sourcePhysicalNode, destinyVirtualNode)) {
         mapping.addNodeMapping(destinyVirtualNode, sourcePhysicalNode);
 
         return true;
       }
     } else { // bestPath != null
-      if(allowNodeSharing && sourcePhysicalNode.canHost(destinyVirtualNode)
-         && sourcePhysicalNode.getNodeAvailability().compareTo(
-          bestPath.getAvailability()) > 0) {
+      if(allowNodeSharing
+         && residuals.canHost(sourcePhysicalNode, destinyVirtualNode)
+         && availabilityMode.compare(sourcePhysicalNode, bestPath) > 0) {
           mapping.addNodeMapping(destinyVirtualNode, sourcePhysicalNode);
 
           return true;
@@ -204,12 +499,13 @@ public class GraspMapper implements IMapper {
   protected HashMap<PhysicalNode, Path> getShortestPathsFromNodeWithConstraints(
              PhysicalNode physicalSourceNode, SubstrateNetwork substrateNetwork,
                                                       VirtualLink virtualLink) {
-    HashMap<PhysicalNode, Path> paths = getPathsFromNode(physicalSourceNode,
-      substrateNetwork);
-    for(Path path : paths.values()) {
-      if(!path.getDestinyNode().canHost((VirtualNode) virtualLink.getDestinyNode())
-         || !path.canHost(virtualLink))
-        paths.remove(path);
+    ShortestPathTree shortestPaths = substrateNetwork.getShortestPathCache().
+      getTreeFrom(physicalSourceNode);
+    HashMap<PhysicalNode, Path> paths = new HashMap<PhysicalNode, Path>();
+    for(PhysicalNode physicalNode : substrateNetwork.getHashNodes().values()) {
+      if(physicalNode.canHost((VirtualNode) virtualLink.getDestinyNode())
+         && shortestPaths.canHost(physicalNode, virtualLink))
+        paths.put(physicalNode, shortestPaths.getPathTo(physicalNode));
     }
 
     return paths;
@@ -218,39 +514,7 @@ public class GraspMapper implements IMapper {
   // HashMap<DestinyNode, Path>
   protected HashMap<PhysicalNode, Path> getPathsFromNode(PhysicalNode physicalSourceNode,
                                             SubstrateNetwork substrateNetwork) {
-    SimpleWeightedGraph<Node, DefaultWeightedEdge> graph =
-      new SimpleWeightedGraph<Node, DefaultWeightedEdge>(DefaultWeightedEdge.class);
-    for(PhysicalNode physicalNode : substrateNetwork.getHashNodes().values())
-        graph.addVertex(physicalNode);
-    for(PhysicalLink physicalLink : substrateNetwork.getHashLinks().values()) {
-      DefaultWeightedEdge edge = graph.addEdge(physicalLink.getSourceNode(),
-        physicalLink.getDestinyNode());
-      graph.setEdgeWeight(edge, physicalLink.getDelay());
-    }
-
-    HashMap<PhysicalNode, Path> paths = new HashMap<PhysicalNode, Path>();
-    for(PhysicalNode physicalNode : substrateNetwork.getHashNodes().values()) {
-      if(!physicalNode.equals(physicalSourceNode)) {
-        Path path = new Path(physicalSourceNode, physicalNode);
-        List<DefaultWeightedEdge> edgesPath = DijkstraShortestPath.findPathBetween(
-          graph, physicalSourceNode, physicalNode);
-        if(edgesPath != null) { // FIXME este if é necessário?
-          for(DefaultWeightedEdge edge : edgesPath) {
-            PhysicalLink physicalLink = substrateNetwork.getHashLinks().get(
-              String.format("%s:%s", graph.getEdgeSource(edge).getId(),
-                graph.getEdgeTarget(edge).getId()));
-            if(physicalLink != null) {
-              path.addLink(physicalLink);
-            }
-          }
-        }
-
-        if(!path.isEmpty())
-          paths.put(physicalNode, path);
-      }
-    }
-
-    return paths;
+    return substrateNetwork.getShortestPathCache().getPathsFrom(physicalSourceNode);
   }
 
   protected ArrayList<PhysicalNode> capListNodes(ArrayList<PhysicalNode> listNodes) {
@@ -263,4 +527,134 @@ public class GraspMapper implements IMapper {
 
     return listNodes;
   }
+
+  /*
+   *  Candidates of the attempts of one request, computed once over the loads
+   * the substrate had when the first attempt started. Loads only grow during
+   * an attempt and a failed one is rolled back, so the nodes left out then
+   * stay out in every later attempt and the ones kept only need rechecking.
+   */
+  private class GraspSession implements IMapperSession {
+    private Request request;
+    private SubstrateNetwork substrateNetwork;
+    private ResidualSnapshot baseline;
+    private IdentityHashMap<VirtualNode, FirstNodeCandidates> firstNodes;
+    private HashMap<BranchKey, int[]> branchCandidates;
+
+    GraspSession(Request request, SubstrateNetwork substrateNetwork) {
+      this.request = request;
+      this.substrateNetwork = substrateNetwork;
+      firstNodes = new IdentityHashMap<VirtualNode, FirstNodeCandidates>();
+      branchCandidates = new HashMap<BranchKey, int[]>();
+    }
+
+    public Mapping map() {
+      if(multiStarts > 1)
+        return GraspMapper.this.map(request, substrateNetwork);
+      if(baseline == null)
+        baseline = new ResidualSnapshot(substrateNetwork);
+
+      return improve(request, substrateNetwork,
+        construct(request, substrateNetwork, new Mapping(), random, this));
+    }
+
+    public void close() {
+      baseline = null;
+      firstNodes.clear();
+      branchCandidates.clear();
+    }
+
+    PhysicalNode findFirstPhysicalNodeFor(VirtualNode virtualNode,
+                                          ResidualCapacities residuals,
+                                          Random random) {
+      FirstNodeCandidates candidates = firstNodes.get(virtualNode);
+      if(candidates == null) {
+        ArrayList<PhysicalNode> nodes = collectFirstNodeCandidates(virtualNode,
+          substrateNetwork, baseline);
+        candidates = new FirstNodeCandidates(nodes,
+          getCumulativeProbabilities(nodes, baseline));
+        firstNodes.put(virtualNode, candidates);
+      }
+      if(candidates.nodes.isEmpty())
+        return null;
+      PhysicalNode physicalNode = pickFirstNode(candidates.nodes,
+        candidates.probabilities, random);
+      if(residuals.getRemainingCapacity(physicalNode) > virtualNode.getCapacity())
+        return physicalNode;
+
+      // O substrato mudou fora da sessão: escolhe com as cargas atuais
+      firstNodes.remove(virtualNode);
+      return GraspMapper.this.findFirstPhysicalNodeFor(virtualNode,
+        substrateNetwork, residuals, random);
+    }
+
+    // Nós aptos a receber destinyVirtualNode pelo enlace, no início da sessão
+    int[] getBranchCandidates(PhysicalNode sourcePhysicalNode,
+                              VirtualNode destinyVirtualNode, VirtualLink virtualLink,
+                              ShortestPathTree shortestPaths) {
+      BranchKey key = new BranchKey(sourcePhysicalNode, destinyVirtualNode,
+        virtualLink);
+      int[] candidates = branchCandidates.get(key);
+      if(candidates == null) {
+        SubstrateTopology topology = substrateNetwork.getTopology();
+        int[] capableNodes = new int[topology.getAmountNodes()];
+        int amountCapableNodes = baseline.collectNodesWithRemainingCapacityAtLeast(
+          topology, destinyVirtualNode.getCapacity(), capableNodes);
+        int amountCandidates = 0;
+        for(int i = 0; i < amountCapableNodes; i++) {
+          if(shortestPaths.canHost(topology.getNode(capableNodes[i]), virtualLink,
+             baseline))
+            capableNodes[amountCandidates++] = capableNodes[i];
+        }
+        candidates = new int[amountCandidates];
+        System.arraycopy(capableNodes, 0, candidates, 0, amountCandidates);
+        branchCandidates.put(key, candidates);
+      }
+
+      return candidates;
+    }
+  }
+
+  private static class FirstNodeCandidates {
+    private ArrayList<PhysicalNode> nodes;
+    private ArrayList<Double> probabilities;
+
+    FirstNodeCandidates(ArrayList<PhysicalNode> nodes,
+                        ArrayList<Double> probabilities) {
+      this.nodes = nodes;
+      this.probabilities = probabilities;
+    }
+  }
+
+  // Ramo da construção: nó físico de origem, nó virtual de destino e enlace
+  private static class BranchKey {
+    private PhysicalNode sourcePhysicalNode;
+    private VirtualNode destinyVirtualNode;
+    private VirtualLink virtualLink;
+
+    BranchKey(PhysicalNode sourcePhysicalNode, VirtualNode destinyVirtualNode,
+              VirtualLink virtualLink) {
+      this.sourcePhysicalNode = sourcePhysicalNode;
+      this.destinyVirtualNode = destinyVirtualNode;
+      this.virtualLink = virtualLink;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if(!(object instanceof BranchKey))
+        return false;
+      BranchKey key = (BranchKey) object;
+
+      return sourcePhysicalNode == key.sourcePhysicalNode
+        && destinyVirtualNode == key.destinyVirtualNode
+        && virtualLink == key.virtualLink;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * System.identityHashCode(sourcePhysicalNode)
+        + System.identityHashCode(destinyVirtualNode))
+        + System.identityHashCode(virtualLink);
+    }
+  }
 }
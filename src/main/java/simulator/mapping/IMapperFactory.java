@@ -0,0 +1,7 @@
+package simulator.mapping;
+
+import generator.util.RandomContext;
+
+public interface IMapperFactory {
+  public IMapper createMapper(RandomContext context);
+}
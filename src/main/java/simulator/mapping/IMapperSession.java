@@ -0,0 +1,12 @@
+package simulator.mapping;
+
+/*
+ *  Repeated mapping attempts of one request over the same substrate. State
+ * computed in an attempt may be reused by the next ones, so the substrate
+ * should only change through the attempts themselves while it is open.
+ */
+public interface IMapperSession {
+  // Uma tentativa; null se a requisição não puder ser mapeada nela
+  public Mapping map();
+  public void close();
+}
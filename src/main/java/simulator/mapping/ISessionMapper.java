@@ -0,0 +1,9 @@
+package simulator.mapping;
+
+import simulator.network.SubstrateNetwork;
+import simulator.simulation.Request;
+
+public interface ISessionMapper extends IMapper {
+  public IMapperSession openSession(Request request,
+                                    SubstrateNetwork substrateNetwork);
+}
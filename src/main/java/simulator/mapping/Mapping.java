@@ -4,9 +4,12 @@ import java.math.BigDecimal;
 import java.math.MathContext;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.HashMap;
 
+import simulator.network.ResidualCapacities;
+import simulator.network.components.Dependable;
 import simulator.network.components.physical.PhysicalLink;
 import simulator.network.components.physical.PhysicalNode;
 import simulator.network.components.virtual.VirtualLink;
@@ -15,38 +18,175 @@ import simulator.network.components.virtual.VirtualNode;
 /**
  *  Virtual Network Mapping Over Substrate Network
  */
-public class Mapping {
+public class Mapping implements Dependable {
   private HashMap<VirtualNode, PhysicalNode> nodesMapping;
   private HashMap<VirtualLink, ArrayList<PhysicalLink>> linksMapping;
   private boolean handleResourcesLoad;
+  private ResidualCapacities residuals;
+  private ArrayList<Reservation> journal;
+  private int openSavepoints;
+  private UsageCounter<PhysicalNode> nodesUses;
+  private UsageCounter<PhysicalLink> linksUses;
+  // Disponibilidade já calculada; null depois de qualquer alteração
+  private BigDecimal availability;
 
   public Mapping() {
-    nodesMapping = new HashMap<VirtualNode, PhysicalNode>();
-    linksMapping = new HashMap<VirtualLink, ArrayList<PhysicalLink>>();
+    this(ResidualCapacities.LIVE);
+  }
+
+  /*
+   * Mapeamento cujas reservas de recursos são feitas nas capacidades dadas --
+   * por exemplo, numa ResidualSnapshot em vez dos componentes físicos.
+   */
+  public Mapping(ResidualCapacities residuals) {
+    // Em ordem de alocação: a disponibilidade não depende dos hashes dos nós
+    nodesMapping = new LinkedHashMap<VirtualNode, PhysicalNode>();
+    linksMapping = new LinkedHashMap<VirtualLink, ArrayList<PhysicalLink>>();
     handleResourcesLoad = true;
+    this.residuals = residuals;
+    journal = new ArrayList<Reservation>();
+    nodesUses = new UsageCounter<PhysicalNode>();
+    linksUses = new UsageCounter<PhysicalLink>();
+  }
+
+  public ResidualCapacities getResiduals() {
+    return residuals;
   }
 
   public void addNodeMapping(VirtualNode virtualNode, PhysicalNode physicalNode) {
+    reserveNode(virtualNode, physicalNode);
+    if(openSavepoints > 0)
+      journal.add(new Reservation(virtualNode, physicalNode, true));
+  }
+
+  public void addLinkMapping(VirtualLink virtualLink,
+                                         ArrayList<PhysicalLink> physicalLinks) {
+    reserveLink(virtualLink, physicalLinks);
+    if(openSavepoints > 0)
+      journal.add(new Reservation(virtualLink, physicalLinks, true));
+  }
+
+  public void removeNodeMapping(VirtualNode virtualNode) {
+    PhysicalNode physicalNode = releaseNode(virtualNode);
+    if(openSavepoints > 0)
+      journal.add(new Reservation(virtualNode, physicalNode, false));
+  }
+
+  public void removeLinkMapping(VirtualLink virtualLink) {
+    ArrayList<PhysicalLink> physicalLinks = releaseLink(virtualLink);
+    if(openSavepoints > 0)
+      journal.add(new Reservation(virtualLink, physicalLinks, false));
+  }
+
+  /*
+   * Marca o estado atual do mapeamento. rollbackTo desfaz, em ordem inversa e
+   * em tempo proporcional ao que foi feito depois da marca, as alocações e
+   * liberações posteriores a ela; release as mantém. Cada marca é encerrada
+   * por uma das duas, da mais interna para a mais externa. O diário só
+   * registra alterações enquanto há marcas abertas e é esvaziado quando a
+   * mais externa é encerrada, de modo que um mapeamento aceito não guarda o
+   * histórico da sua construção. clearMappings invalida as marcas.
+   */
+  public int savepoint() {
+    openSavepoints++;
+
+    return journal.size();
+  }
+
+  public void rollbackTo(int savepoint) {
+    checkSavepoint(savepoint);
+    for(int i = journal.size() - 1; i >= savepoint; i--) {
+      Reservation reservation = journal.remove(i);
+      if(reservation.virtualNode != null) {
+        if(reservation.added)
+          releaseNode(reservation.virtualNode);
+        else
+          reserveNode(reservation.virtualNode, reservation.physicalNode);
+      } else {
+        if(reservation.added)
+          releaseLink(reservation.virtualLink);
+        else
+          reserveLink(reservation.virtualLink, reservation.physicalLinks);
+      }
+    }
+    closeSavepoint();
+  }
+
+  public void release(int savepoint) {
+    checkSavepoint(savepoint);
+    closeSavepoint();
+  }
+
+  private void checkSavepoint(int savepoint) {
+    if(openSavepoints == 0 || savepoint < 0 || savepoint > journal.size())
+      throw new RuntimeException("Ponto de salvamento inválido.");
+  }
+
+  private void closeSavepoint() {
+    if(--openSavepoints == 0)
+      journal.clear();
+  }
+
+  private void reserveNode(VirtualNode virtualNode, PhysicalNode physicalNode) {
     if(nodesMapping.containsKey(virtualNode))
       throw new RuntimeException("Nó virtual já está alocado.");
 
     if(handleResourcesLoad) {
-      physicalNode.addLoad(virtualNode.getCapacity());
+      residuals.addLoad(physicalNode, virtualNode.getCapacity());
     }
     nodesMapping.put(virtualNode, physicalNode);
+    availability = null;
+    nodesUses.increment(physicalNode, physicalNode.getIndex());
   }
 
-  public void addLinkMapping(VirtualLink virtualLink,
-                                         ArrayList<PhysicalLink> physicalLinks) {
+  private void reserveLink(VirtualLink virtualLink,
+                           ArrayList<PhysicalLink> physicalLinks) {
     if(linksMapping.containsKey(virtualLink))
       throw new RuntimeException("Enlace virtual já está alocado.");
 
     if(handleResourcesLoad) {
       for(PhysicalLink physicalLink : physicalLinks) {
-        physicalLink.addBandwidthLoad(virtualLink.getBandwidthCapacity());
+        residuals.addBandwidthLoad(physicalLink, virtualLink.getBandwidthCapacity());
       }
     }
     linksMapping.put(virtualLink, physicalLinks);
+    availability = null;
+    for(PhysicalLink physicalLink : physicalLinks) {
+      linksUses.increment(physicalLink, physicalLink.getIndex());
+    }
+  }
+
+  private PhysicalNode releaseNode(VirtualNode virtualNode) {
+    PhysicalNode physicalNode = nodesMapping.remove(virtualNode);
+    if(physicalNode == null)
+      throw new RuntimeException("Nó virtual não está alocado.");
+    availability = null;
+
+    if(handleResourcesLoad) {
+      residuals.removeLoad(physicalNode, virtualNode.getCapacity());
+    }
+    nodesUses.decrement(physicalNode, physicalNode.getIndex());
+
+    return physicalNode;
+  }
+
+  private ArrayList<PhysicalLink> releaseLink(VirtualLink virtualLink) {
+    ArrayList<PhysicalLink> physicalLinks = linksMapping.remove(virtualLink);
+    if(physicalLinks == null)
+      throw new RuntimeException("Enlace virtual não está alocado.");
+    availability = null;
+
+    if(handleResourcesLoad) {
+      for(PhysicalLink physicalLink : physicalLinks) {
+        residuals.removeBandwidthLoad(physicalLink,
+          virtualLink.getBandwidthCapacity());
+      }
+    }
+    for(PhysicalLink physicalLink : physicalLinks) {
+      linksUses.decrement(physicalLink, physicalLink.getIndex());
+    }
+
+    return physicalLinks;
   }
 
   public boolean isNodeMapped(VirtualNode virtualNode) {
@@ -65,46 +205,143 @@ public class Mapping {
     return linksMapping.get(virtualLink);
   }
 
+  // Nós virtuais alocados, em ordem de alocação
+  public ArrayList<VirtualNode> getMappedVirtualNodes() {
+    return new ArrayList<VirtualNode>(nodesMapping.keySet());
+  }
+
+  // Enlaces virtuais alocados, em ordem de alocação
+  public ArrayList<VirtualLink> getMappedVirtualLinks() {
+    return new ArrayList<VirtualLink>(linksMapping.keySet());
+  }
+
   public boolean isNodeInUse(PhysicalNode node) {
-    return nodesMapping.values().contains(node);
+    return nodesUses.get(node, node.getIndex()) > 0;
   }
 
   public boolean isLinkInUse(PhysicalLink link) {
-    for(ArrayList<PhysicalLink> linksPath : linksMapping.values()) {
-      for(PhysicalLink l : linksPath) {
-        if(l.equals(link)) {
+    return linksUses.get(link, link.getIndex()) > 0;
+  }
 
-          return true;
-        }
-      }
-    }
+  // Quantos nós virtuais o nó físico hospeda neste mapeamento
+  public int getHostedNodesCount(PhysicalNode node) {
+    return nodesUses.get(node, node.getIndex());
+  }
 
-    return false;
+  // Quantos enlaces virtuais passam pelo enlace físico neste mapeamento
+  public int getHostedLinksCount(PhysicalLink link) {
+    return linksUses.get(link, link.getIndex());
+  }
+
+  // Nós físicos que hospedam ao menos um nó virtual deste mapeamento
+  public int getPhysicalNodesInUse() {
+    return nodesUses.getAmountInUse();
+  }
+
+  // Enlaces físicos por onde passa ao menos um enlace virtual
+  public int getPhysicalLinksInUse() {
+    return linksUses.getAmountInUse();
   }
 
   public void clearMappings() {
     if(handleResourcesLoad) {
       for(VirtualNode virtualNode : nodesMapping.keySet()) {
         PhysicalNode hostingNode = nodesMapping.get(virtualNode);
-        hostingNode.removeLoad(virtualNode.getCapacity());
+        residuals.removeLoad(hostingNode, virtualNode.getCapacity());
       }
       for(VirtualLink virtualLink : linksMapping.keySet()) {
         ArrayList<PhysicalLink> hostingLinks = linksMapping.get(virtualLink);
         for(PhysicalLink hostingLink : hostingLinks) {
-          hostingLink.removeBandwidthLoad(virtualLink.getBandwidthCapacity());
+          residuals.removeBandwidthLoad(hostingLink,
+            virtualLink.getBandwidthCapacity());
         }
       }
     }
 
     nodesMapping.clear();
     linksMapping.clear();
+    journal.clear();
+    openSavepoints = 0;
+    availability = null;
+    nodesUses.clear();
+    linksUses.clear();
+  }
+
+  /*
+   * Retorna novo mapeamento com os mesmos nós e enlaces, reservando os recursos
+   * nas capacidades dadas.
+   */
+  public Mapping replayOn(ResidualCapacities residuals) {
+    Mapping mapping = new Mapping(residuals);
+    if(!handleResourcesLoad)
+      mapping.deactiveResourcesHandling();
+    for(VirtualNode virtualNode : nodesMapping.keySet())
+      mapping.addNodeMapping(virtualNode, nodesMapping.get(virtualNode));
+    for(VirtualLink virtualLink : linksMapping.keySet())
+      mapping.addLinkMapping(virtualLink, linksMapping.get(virtualLink));
+
+    return mapping;
   }
 
+  /*
+   * Calculada na primeira chamada depois de uma alteração e guardada até a
+   * próxima, de modo que ler a de um mapeamento aceito não aloca.
+   */
   public BigDecimal getAvailability() {
+    if(availability == null)
+      availability = computeAvailability();
+
+    return availability;
+  }
+
+  private BigDecimal computeAvailability() {
     LinkedHashSet<PhysicalLink> uniqPhysicalLinks =
       new LinkedHashSet<PhysicalLink>();
     LinkedHashSet<PhysicalNode> uniqIntermediaryNodes =
       new LinkedHashSet<PhysicalNode>();
+    collectHostingComponents(uniqPhysicalLinks, uniqIntermediaryNodes);
+
+    BigDecimal availability = new BigDecimal(1);
+    for(PhysicalNode hostingNode : uniqPhysicalNodes()) {
+      availability = availability.multiply(hostingNode.getNodeAvailability(),
+        MathContext.DECIMAL64);
+    }
+    for(PhysicalLink hostingLink : uniqPhysicalLinks) {
+      availability = availability.multiply(hostingLink.getAvailability(),
+        MathContext.DECIMAL64);
+    }
+    for(PhysicalNode intermediaryNode : uniqIntermediaryNodes) {
+      availability = availability.multiply(intermediaryNode.
+        getIntermediaryNodeAvailability(), MathContext.DECIMAL64);
+    }
+
+    return availability;
+  }
+
+  public double getLogAvailability() {
+    LinkedHashSet<PhysicalLink> uniqPhysicalLinks =
+      new LinkedHashSet<PhysicalLink>();
+    LinkedHashSet<PhysicalNode> uniqIntermediaryNodes =
+      new LinkedHashSet<PhysicalNode>();
+    collectHostingComponents(uniqPhysicalLinks, uniqIntermediaryNodes);
+
+    double logAvailability = 0;
+    for(PhysicalNode hostingNode : uniqPhysicalNodes()) {
+      logAvailability += hostingNode.getLogAvailability();
+    }
+    for(PhysicalLink hostingLink : uniqPhysicalLinks) {
+      logAvailability += hostingLink.getLogAvailability();
+    }
+    for(PhysicalNode intermediaryNode : uniqIntermediaryNodes) {
+      logAvailability += intermediaryNode.getIntermediaryNodeLogAvailability();
+    }
+
+    return logAvailability;
+  }
+
+  private void collectHostingComponents(
+                              LinkedHashSet<PhysicalLink> uniqPhysicalLinks,
+                              LinkedHashSet<PhysicalNode> uniqIntermediaryNodes) {
     for(VirtualLink virtualLink : linksMapping.keySet()) {
       PhysicalNode sourcePhysicalNode = getHostingNodeFor(
         (VirtualNode) virtualLink.getSourceNode());
@@ -127,22 +364,6 @@ public class Mapping {
         }
       }
     }
-
-    BigDecimal availability = new BigDecimal(1);
-    for(PhysicalNode hostingNode : uniqPhysicalNodes()) {
-      availability = availability.multiply(hostingNode.getNodeAvailability(),
-        MathContext.DECIMAL64);
-    }
-    for(PhysicalLink hostingLink : uniqPhysicalLinks) {
-      availability = availability.multiply(hostingLink.getAvailability(),
-        MathContext.DECIMAL64);
-    }
-    for(PhysicalNode intermediaryNode : uniqIntermediaryNodes) {
-      availability = availability.multiply(intermediaryNode.
-        getIntermediaryNodeAvailability(), MathContext.DECIMAL64);
-    }
-
-    return availability;
   }
 
   public void deactiveResourcesHandling() {
@@ -150,22 +371,37 @@ public class Mapping {
   }
 
   public double getNodeSharingRate(int nodesNumber) {
-    ArrayList<PhysicalNode> nodesInUse = new ArrayList<PhysicalNode>();
-    ArrayList<PhysicalNode> nodesBeingShared = new ArrayList<PhysicalNode>();
-    ArrayList<PhysicalNode> touchedNodes = new ArrayList<PhysicalNode>();
-    for(PhysicalNode physicalNode : nodesMapping.values()) {
-      if(nodesInUse.contains(physicalNode) && !touchedNodes.contains(physicalNode)) {
-        nodesBeingShared.add(physicalNode);
-        touchedNodes.add(physicalNode);
-      }
-      nodesInUse.add(physicalNode);
-    }
-
-    return (double) nodesBeingShared.size() / nodesNumber;
+    return (double) nodesUses.getAmountShared() / nodesNumber;
   }
 
   private ArrayList<PhysicalNode> uniqPhysicalNodes() {
     return new ArrayList<PhysicalNode>(
       new LinkedHashSet<PhysicalNode>(nodesMapping.values()));
   }
+
+  /*
+   * Entrada do diário de reservas: um nó ou enlace virtual alocado (added) ou
+   * liberado, com os recursos físicos envolvidos.
+   */
+  private static class Reservation {
+    private VirtualNode virtualNode;
+    private PhysicalNode physicalNode;
+    private VirtualLink virtualLink;
+    private ArrayList<PhysicalLink> physicalLinks;
+    private boolean added;
+
+    private Reservation(VirtualNode virtualNode, PhysicalNode physicalNode,
+                        boolean added) {
+      this.virtualNode = virtualNode;
+      this.physicalNode = physicalNode;
+      this.added = added;
+    }
+
+    private Reservation(VirtualLink virtualLink,
+                        ArrayList<PhysicalLink> physicalLinks, boolean added) {
+      this.virtualLink = virtualLink;
+      this.physicalLinks = physicalLinks;
+      this.added = added;
+    }
+  }
 }
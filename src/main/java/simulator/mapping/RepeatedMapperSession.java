@@ -0,0 +1,39 @@
+package simulator.mapping;
+
+import simulator.network.SubstrateNetwork;
+import simulator.simulation.Request;
+
+/*
+ *  Session for mappers without one of their own: every attempt is a new call
+ * to map.
+ */
+public class RepeatedMapperSession implements IMapperSession {
+  private IMapper mapper;
+  private Request request;
+  private SubstrateNetwork substrateNetwork;
+
+  public RepeatedMapperSession(IMapper mapper, Request request,
+                               SubstrateNetwork substrateNetwork) {
+    this.mapper = mapper;
+    this.request = request;
+    this.substrateNetwork = substrateNetwork;
+  }
+
+  /*
+   * Sessão do próprio mapeador, se ele oferece uma.
+   */
+  public static IMapperSession open(IMapper mapper, Request request,
+                                    SubstrateNetwork substrateNetwork) {
+    if(mapper instanceof ISessionMapper)
+      return ((ISessionMapper) mapper).openSession(request, substrateNetwork);
+
+    return new RepeatedMapperSession(mapper, request, substrateNetwork);
+  }
+
+  public Mapping map() {
+    return mapper.map(request, substrateNetwork);
+  }
+
+  public void close() {
+  }
+}
@@ -0,0 +1,103 @@
+package simulator.mapping;
+
+import java.util.IdentityHashMap;
+
+/*
+ *  How many virtual components each physical component hosts. Components with
+ * a topology index are counted in arrays indexed by it; components without one
+ * (or whose slot is held by another object) fall back to an identity map.
+ */
+class UsageCounter<T> {
+  private int[] uses;
+  private Object[] owners;
+  private IdentityHashMap<T, int[]> otherUses;
+  private int amountInUse;
+  private int amountShared;
+
+  UsageCounter() {
+    uses = new int[0];
+    owners = new Object[0];
+    otherUses = new IdentityHashMap<T, int[]>();
+  }
+
+  int get(T component, int index) {
+    if(index >= 0 && index < owners.length && owners[index] == component)
+      return uses[index];
+    int[] counter = otherUses.get(component);
+
+    return counter == null ? 0 : counter[0];
+  }
+
+  void increment(T component, int index) {
+    int count;
+    if(index >= 0) {
+      ensureCapacity(index);
+      if(owners[index] == null && !otherUses.containsKey(component))
+        owners[index] = component;
+    }
+    if(index >= 0 && owners[index] == component) {
+      count = ++uses[index];
+    } else {
+      int[] counter = otherUses.get(component);
+      if(counter == null) {
+        counter = new int[1];
+        otherUses.put(component, counter);
+      }
+      count = ++counter[0];
+    }
+    if(count == 1)
+      amountInUse++;
+    else if(count == 2)
+      amountShared++;
+  }
+
+  void decrement(T component, int index) {
+    int count;
+    if(index >= 0 && index < owners.length && owners[index] == component) {
+      count = --uses[index];
+      if(count == 0)
+        owners[index] = null;
+    } else {
+      int[] counter = otherUses.get(component);
+      if(counter == null)
+        throw new RuntimeException("Componente físico não está em uso.");
+      count = --counter[0];
+      if(count == 0)
+        otherUses.remove(component);
+    }
+    if(count == 0)
+      amountInUse--;
+    else if(count == 1)
+      amountShared--;
+  }
+
+  // Componentes que hospedam ao menos um componente virtual
+  int getAmountInUse() {
+    return amountInUse;
+  }
+
+  // Componentes que hospedam mais de um componente virtual
+  int getAmountShared() {
+    return amountShared;
+  }
+
+  void clear() {
+    uses = new int[0];
+    owners = new Object[0];
+    otherUses.clear();
+    amountInUse = 0;
+    amountShared = 0;
+  }
+
+  private void ensureCapacity(int index) {
+    if(index < uses.length)
+      return;
+    int length = Math.max(index + 1, 2 * uses.length);
+    int[] grownUses = new int[length];
+    Object[] grownOwners = new Object[length];
+    System.arraycopy(uses, 0, grownUses, 0, uses.length);
+    System.arraycopy(owners, 0, grownOwners, 0, owners.length);
+    uses = grownUses;
+    owners = grownOwners;
+  }
+}
@@ -0,0 +1,60 @@
+package simulator.network;
+
+import java.util.Arrays;
+
+import simulator.util.IndexedMinHeap;
+
+/*
+ *  Single-source Dijkstra over an int-indexed adjacency structure: neighbours
+ * of node u are targets[offsets[u]] .. targets[offsets[u + 1] - 1], reached
+ * through links[...] whose weights are given by linkWeights. The heap is
+ * allocated once and reused by every call to compute().
+ */
+public class DijkstraEngine {
+  private int[] offsets;
+  private int[] targets;
+  private int[] links;
+  private double[] linkWeights;
+  private IndexedMinHeap heap;
+
+  public DijkstraEngine(int[] offsets, int[] targets, int[] links,
+                        double[] linkWeights) {
+    this.offsets = offsets;
+    this.targets = targets;
+    this.links = links;
+    this.linkWeights = linkWeights;
+    this.heap = new IndexedMinHeap(offsets.length - 1);
+  }
+
+  public int getAmountNodes() {
+    return offsets.length - 1;
+  }
+
+  /*
+   * Preenche a árvore de caminhos mais curtos a partir de source. Nós
+   * inalcançáveis ficam com distância infinita e predecessores -1.
+   */
+  public void compute(int source, double[] distances, int[] predecessorNodes,
+                      int[] predecessorLinks) {
+    Arrays.fill(distances, Double.POSITIVE_INFINITY);
+    Arrays.fill(predecessorNodes, -1);
+    Arrays.fill(predecessorLinks, -1);
+    heap.clear();
+    distances[source] = 0;
+    heap.insertOrDecrease(source, 0);
+    while(!heap.isEmpty()) {
+      int node = heap.poll();
+      double distance = distances[node];
+      for(int i = offsets[node]; i < offsets[node + 1]; i++) {
+        int neighbour = targets[i];
+        double candidate = distance + linkWeights[links[i]];
+        if(candidate < distances[neighbour]) {
+          distances[neighbour] = candidate;
+          predecessorNodes[neighbour] = node;
+          predecessorLinks[neighbour] = links[i];
+          heap.insertOrDecrease(neighbour, candidate);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package simulator.network;
+
+import java.util.IdentityHashMap;
+
+import simulator.util.MaxSegmentTree;
+
+/*
+ *  Average, maximum and standard deviation of the values of a fixed set of
+ * components, which change one component at a time. The maximum comes from a
+ * segment tree. Average and standard deviation are computed as an
+ * uncommons-maths DataSet filled in the order of the components computes
+ * them -- a sequential double sum divided by the size, and the mean of the
+ * squared differences to it -- in one pass over the values on the first query
+ * after a change, and cached until the next one. Queries allocate nothing.
+ */
+class LoadStatistics<T> {
+  private IdentityHashMap<T, Integer> positions;
+  private double[] values;
+  private MaxSegmentTree maximums;
+  // Valores de DataSet, válidos enquanto stale é falso
+  private boolean stale;
+  private double total;
+  private double average;
+  private double standardDeviation;
+
+  LoadStatistics(T[] components, double[] values) {
+    positions = new IdentityHashMap<T, Integer>(components.length);
+    for(int i = 0; i < components.length; i++)
+      positions.put(components[i], i);
+    this.values = values.clone();
+    maximums = new MaxSegmentTree(values);
+    stale = true;
+  }
+
+  /*
+   * Componentes de fora do conjunto são ignorados.
+   */
+  synchronized void set(T component, double value) {
+    Integer position = positions.get(component);
+    if(position == null)
+      return;
+    values[position] = value;
+    maximums.set(position, value);
+    stale = true;
+  }
+
+  synchronized double getAverage() {
+    refresh();
+
+    return average;
+  }
+
+  /*
+   * Zero quando a soma é nula, como Util.getMaximum().
+   */
+  synchronized double getMaximum() {
+    refresh();
+    if(values.length == 0 || total == 0D)
+      return 0;
+
+    return maximums.max();
+  }
+
+  /*
+   * Desvio padrão populacional, como o de DataSet.
+   */
+  synchronized double getStandardDeviation() {
+    refresh();
+
+    return standardDeviation;
+  }
+
+  // Conjunto vazio dá zero, como Util com um DataSet vazio
+  private void refresh() {
+    if(!stale)
+      return;
+    stale = false;
+    if(values.length == 0) {
+      total = 0;
+      average = 0;
+      standardDeviation = 0;
+      return;
+    }
+    total = 0;
+    for(double value : values)
+      total += value;
+    average = total / values.length;
+    double squaredDifferences = 0;
+    for(double value : values) {
+      double difference = average - value;
+      squaredDifferences += difference * difference;
+    }
+    standardDeviation = Math.sqrt(squaredDifferences / values.length);
+  }
+}
@@ -0,0 +1,100 @@
+package simulator.network;
+
+import java.util.ArrayList;
+
+import simulator.network.components.Path;
+import simulator.network.components.physical.PhysicalLink;
+import simulator.network.components.physical.PhysicalNode;
+import simulator.network.components.virtual.VirtualLink;
+import simulator.network.components.virtual.VirtualNode;
+
+/*
+ *  Remaining capacities seen by a mapping while it reserves resources. This
+ * base class reads and changes the loads of the physical components
+ * themselves; ResidualSnapshot keeps a private copy instead.
+ */
+public class ResidualCapacities {
+  public static final ResidualCapacities LIVE = new ResidualCapacities();
+
+  protected ResidualCapacities() {
+  }
+
+  public double getRemainingCapacity(PhysicalNode node) {
+    return node.getRemainingCapacity();
+  }
+
+  public double getRemainingBandwidth(PhysicalLink link) {
+    return link.getRemainingBandwidth();
+  }
+
+  /*
+   * Versões indexadas pela topologia, para varreduras sobre a visão CSR.
+   */
+  public double getRemainingCapacity(SubstrateTopology topology, int node) {
+    return topology.getRemainingCapacity(node);
+  }
+
+  public double getRemainingBandwidth(SubstrateTopology topology, int link) {
+    return topology.getResidualBandwidth(link);
+  }
+
+  public double getMaxRemainingCapacity(SubstrateTopology topology) {
+    return topology.getMaxRemainingCapacity();
+  }
+
+  /*
+   * Índices dos nós aptos, do mais para o menos disponível; ver
+   * SubstrateTopology.collectNodesWithRemainingCapacityAtLeast.
+   */
+  public int collectNodesWithRemainingCapacityAtLeast(SubstrateTopology topology,
+                                                  double capacity, int[] nodes) {
+    return topology.collectNodesWithRemainingCapacityAtLeast(capacity, nodes);
+  }
+
+  public int collectNodesWithRemainingCapacityGreaterThan(
+               SubstrateTopology topology, double capacity, int[] nodes) {
+    return topology.collectNodesWithRemainingCapacityGreaterThan(capacity, nodes);
+  }
+
+  public void addLoad(PhysicalNode node, double load) {
+    node.addLoad(load);
+  }
+
+  public void removeLoad(PhysicalNode node, double load) {
+    node.removeLoad(load);
+  }
+
+  public void addBandwidthLoad(PhysicalLink link, double bandwidth) {
+    link.addBandwidthLoad(bandwidth);
+  }
+
+  public void removeBandwidthLoad(PhysicalLink link, double bandwidth) {
+    link.removeBandwidthLoad(bandwidth);
+  }
+
+  public boolean canHost(PhysicalNode node, VirtualNode virtualNode) {
+    return getRemainingCapacity(node) >= virtualNode.getCapacity();
+  }
+
+  public boolean canHost(PhysicalLink link, VirtualLink virtualLink) {
+    return getRemainingBandwidth(link) >= virtualLink.getBandwidthCapacity();
+  }
+
+  /*
+   * Mesma verificação de Path.canHost, considerando estas capacidades.
+   */
+  public boolean canHost(Path path, VirtualLink virtualLink) {
+    for(PhysicalLink physicalLink : path.getLinks()) {
+      if(!canHost(physicalLink, virtualLink))
+        return false;
+    }
+
+    return path.getTotalDelay() <= virtualLink.getDelay();
+  }
+
+  public ArrayList<PhysicalNode> getPhysicalNodesWithRemainingCapacityGreaterThan(
+                              SubstrateNetwork substrateNetwork, double capacity) {
+    return substrateNetwork.getPhysicalNodesWithRemainingCapacityGreaterThan(
+      capacity);
+  }
+}
@@ -0,0 +1,153 @@
+package simulator.network;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+
+import simulator.util.MaxSegmentTree;
+
+import simulator.network.components.physical.PhysicalLink;
+import simulator.network.components.physical.PhysicalNode;
+
+/*
+ *  Private copy of the substrate loads taken at construction time. Changes go
+ * to the copy only, so several mappings may be built concurrently over the
+ * same substrate. Loads are accumulated with the same arithmetic used by
+ * PhysicalNode and PhysicalLink, so replaying the reservations on the real
+ * components yields the very same remaining capacities.
+ */
+public class ResidualSnapshot extends ResidualCapacities {
+  private SubstrateTopology topology;
+  private double[] nodesLoads;
+  private BigDecimal[] linksLoads;
+  private int[] availabilityRanks;
+  private MaxSegmentTree remainingCapacitiesByRank;
+
+  public ResidualSnapshot(SubstrateNetwork substrateNetwork) {
+    topology = substrateNetwork.getTopology();
+    nodesLoads = new double[topology.getAmountNodes()];
+    linksLoads = new BigDecimal[topology.getAmountLinks()];
+    for(int i = 0; i < nodesLoads.length; i++)
+      nodesLoads[i] = topology.getNode(i).getLoad();
+    for(int i = 0; i < linksLoads.length; i++)
+      linksLoads[i] = topology.getLink(i).getExactBandwidthLoad();
+    availabilityRanks = new int[nodesLoads.length];
+    for(int i = 0; i < nodesLoads.length; i++)
+      availabilityRanks[i] = topology.getAvailabilityRank(i);
+    remainingCapacitiesByRank = topology.copyRemainingCapacitiesByRank();
+  }
+
+  @Override
+  public double getRemainingCapacity(PhysicalNode node) {
+    return node.getCapacity() - nodesLoads[indexOf(node)];
+  }
+
+  @Override
+  public double getRemainingBandwidth(PhysicalLink link) {
+    return BigDecimal.valueOf(link.getBandwidthCapacity()).subtract(
+      linksLoads[indexOf(link)]).doubleValue();
+  }
+
+  @Override
+  public double getRemainingCapacity(SubstrateTopology topology, int node) {
+    checkTopology(topology);
+    return topology.getNodeCapacity(node) - nodesLoads[node];
+  }
+
+  @Override
+  public double getRemainingBandwidth(SubstrateTopology topology, int link) {
+    checkTopology(topology);
+    return BigDecimal.valueOf(topology.getLinkBandwidthCapacity(link)).subtract(
+      linksLoads[link]).doubleValue();
+  }
+
+  @Override
+  public ArrayList<PhysicalNode> getPhysicalNodesWithRemainingCapacityGreaterThan(
+                              SubstrateNetwork substrateNetwork, double capacity) {
+    int[] nodes = new int[nodesLoads.length];
+    int amount = collectNodesWithRemainingCapacityGreaterThan(topology, capacity,
+      nodes);
+    ArrayList<PhysicalNode> capablePhysicalNodes = new ArrayList<PhysicalNode>(amount);
+    for(int i = 0; i < amount; i++)
+      capablePhysicalNodes.add(topology.getNode(nodes[i]));
+
+    return capablePhysicalNodes;
+  }
+
+  @Override
+  public double getMaxRemainingCapacity(SubstrateTopology topology) {
+    checkTopology(topology);
+    return remainingCapacitiesByRank.max();
+  }
+
+  @Override
+  public int collectNodesWithRemainingCapacityAtLeast(SubstrateTopology topology,
+                                                  double capacity, int[] nodes) {
+    checkTopology(topology);
+    topology.getNodesByAvailability();
+    return topology.toNodes(remainingCapacitiesByRank.collectAtLeast(capacity,
+      nodes), nodes);
+  }
+
+  @Override
+  public int collectNodesWithRemainingCapacityGreaterThan(
+               SubstrateTopology topology, double capacity, int[] nodes) {
+    checkTopology(topology);
+    topology.getNodesByAvailability();
+    return topology.toNodes(remainingCapacitiesByRank.collectGreaterThan(capacity,
+      nodes), nodes);
+  }
+
+  @Override
+  public void addLoad(PhysicalNode node, double load) {
+    int index = indexOf(node);
+    nodesLoads[index] = (new BigDecimal(String.valueOf(nodesLoads[index])).
+      add(new BigDecimal(String.valueOf(load)))).doubleValue();
+    updateRemainingCapacity(index);
+  }
+
+  @Override
+  public void removeLoad(PhysicalNode node, double load) {
+    int index = indexOf(node);
+    nodesLoads[index] = (new BigDecimal(String.valueOf(nodesLoads[index])).
+      subtract(new BigDecimal(String.valueOf(load)))).doubleValue();
+    updateRemainingCapacity(index);
+  }
+
+  @Override
+  public void addBandwidthLoad(PhysicalLink link, double bandwidth) {
+    int index = indexOf(link);
+    linksLoads[index] = linksLoads[index].add(BigDecimal.valueOf(bandwidth));
+  }
+
+  @Override
+  public void removeBandwidthLoad(PhysicalLink link, double bandwidth) {
+    int index = indexOf(link);
+    linksLoads[index] = linksLoads[index].subtract(BigDecimal.valueOf(bandwidth));
+  }
+
+  private void updateRemainingCapacity(int node) {
+    remainingCapacitiesByRank.set(availabilityRanks[node],
+      getRemainingCapacity(topology, node));
+  }
+
+  private void checkTopology(SubstrateTopology topology) {
+    if(topology != this.topology)
+      throw new RuntimeException("Topologia diferente da usada na cópia.");
+  }
+
+  private int indexOf(PhysicalNode node) {
+    int index = topology.indexOf(node);
+    if(index < 0)
+      throw new RuntimeException("Nó físico não pertence à rede substrato.");
+
+    return index;
+  }
+
+  private int indexOf(PhysicalLink link) {
+    int index = topology.indexOf(link);
+    if(index < 0)
+      throw new RuntimeException("Enlace físico não pertence à rede substrato.");
+
+    return index;
+  }
+}
@@ -0,0 +1,62 @@
+package simulator.network;
+
+import java.util.HashMap;
+
+import simulator.network.components.Path;
+import simulator.network.components.physical.PhysicalNode;
+
+/*
+ *  Delay-shortest paths over a substrate network topology. The shortest path
+ * tree of each source is computed on first use; link delays are constant, so
+ * trees stay valid until the owning SubstrateNetwork changes its topology and
+ * drops this cache.
+ */
+public class ShortestPathCache {
+  private SubstrateTopology topology;
+  private DijkstraEngine engine;
+  private ShortestPathTree[] trees;
+
+  public ShortestPathCache(SubstrateTopology topology) {
+    this.topology = topology;
+    this.engine = new DijkstraEngine(topology.getOffsets(), topology.getTargets(),
+      topology.getAdjacentLinks(), topology.getLinksDelays());
+    this.trees = new ShortestPathTree[topology.getAmountNodes()];
+  }
+
+  public synchronized ShortestPathTree getTreeFrom(PhysicalNode sourceNode) {
+    int source = topology.indexOf(sourceNode);
+    if(source < 0)
+      throw new RuntimeException("Nó físico não pertence à rede substrato.");
+    if(trees[source] == null) {
+      int amountNodes = topology.getAmountNodes();
+      double[] distances = new double[amountNodes];
+      int[] predecessorNodes = new int[amountNodes];
+      int[] predecessorLinks = new int[amountNodes];
+      engine.compute(source, distances, predecessorNodes, predecessorLinks);
+      trees[source] = new ShortestPathTree(topology, source, distances,
+        predecessorNodes, predecessorLinks);
+    }
+
+    return trees[source];
+  }
+
+  /*
+   * Retorna novo HashMap<DestinyNode, Path> com os caminhos a partir da origem;
+   * os objetos Path são compartilhados e não devem ser modificados.
+   */
+  public HashMap<PhysicalNode, Path> getPathsFrom(PhysicalNode sourceNode) {
+    ShortestPathTree tree = getTreeFrom(sourceNode);
+    HashMap<PhysicalNode, Path> paths = new HashMap<PhysicalNode, Path>();
+    for(int node = 0; node < topology.getAmountNodes(); node++) {
+      Path path = tree.getPathTo(topology.getNode(node));
+      if(path != null)
+        paths.put(topology.getNode(node), path);
+    }
+
+    return paths;
+  }
+
+  public Path getPath(PhysicalNode sourceNode, PhysicalNode destinyNode) {
+    return getTreeFrom(sourceNode).getPathTo(destinyNode);
+  }
+}
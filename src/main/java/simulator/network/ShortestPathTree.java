@@ -0,0 +1,101 @@
+package simulator.network;
+
+import java.util.ArrayList;
+
+import simulator.network.components.Path;
+import simulator.network.components.physical.PhysicalLink;
+import simulator.network.components.physical.PhysicalNode;
+import simulator.network.components.virtual.VirtualLink;
+
+/*
+ *  Delay-shortest paths from one substrate node to every other one, kept as a
+ * predecessor tree. Path objects are only built for the destinations asked
+ * for, and then reused.
+ */
+public class ShortestPathTree {
+  private SubstrateTopology topology;
+  private int source;
+  private double[] distances;
+  private int[] predecessorNodes;
+  private int[] predecessorLinks;
+  private Path[] paths;
+
+  ShortestPathTree(SubstrateTopology topology, int source, double[] distances,
+                   int[] predecessorNodes, int[] predecessorLinks) {
+    this.topology = topology;
+    this.source = source;
+    this.distances = distances;
+    this.predecessorNodes = predecessorNodes;
+    this.predecessorLinks = predecessorLinks;
+    this.paths = new Path[distances.length];
+  }
+
+  public PhysicalNode getSourceNode() {
+    return topology.getNode(source);
+  }
+
+  /*
+   * Indica se há caminho não vazio até o destino; a própria origem não conta.
+   */
+  public boolean reaches(PhysicalNode destinyNode) {
+    int destiny = topology.indexOf(destinyNode);
+    return destiny >= 0 && destiny != source
+      && predecessorLinks[destiny] >= 0;
+  }
+
+  public double getDelayTo(PhysicalNode destinyNode) {
+    int destiny = topology.indexOf(destinyNode);
+    if(destiny < 0)
+      return Double.POSITIVE_INFINITY;
+
+    return distances[destiny];
+  }
+
+  /*
+   * Equivalente a getPathTo(destinyNode).canHost(virtualLink), sem construir o
+   * Path. Retorna false quando o destino não é alcançável.
+   */
+  public boolean canHost(PhysicalNode destinyNode, VirtualLink virtualLink) {
+    return canHost(destinyNode, virtualLink, ResidualCapacities.LIVE);
+  }
+
+  public boolean canHost(PhysicalNode destinyNode, VirtualLink virtualLink,
+                         ResidualCapacities residuals) {
+    if(!reaches(destinyNode))
+      return false;
+    int node = topology.indexOf(destinyNode);
+    if(distances[node] > virtualLink.getDelay())
+      return false;
+    while(node != source) {
+      if(residuals.getRemainingBandwidth(topology, predecessorLinks[node])
+         < virtualLink.getBandwidthCapacity())
+        return false;
+      node = predecessorNodes[node];
+    }
+
+    return true;
+  }
+
+  public synchronized Path getPathTo(PhysicalNode destinyNode) {
+    if(!reaches(destinyNode))
+      return null;
+    int destiny = topology.indexOf(destinyNode);
+    if(paths[destiny] == null)
+      paths[destiny] = buildPath(destiny);
+
+    return paths[destiny];
+  }
+
+  private Path buildPath(int destiny) {
+    ArrayList<PhysicalLink> reversedLinks = new ArrayList<PhysicalLink>();
+    for(int node = destiny; node != source; node = predecessorNodes[node]) {
+      reversedLinks.add(topology.getLink(predecessorLinks[node]));
+    }
+    Path path = new Path(topology.getNode(source), topology.getNode(destiny));
+    for(int i = reversedLinks.size() - 1; i >= 0; i--) {
+      path.addLink(reversedLinks.get(i));
+    }
+
+    return path;
+  }
+}
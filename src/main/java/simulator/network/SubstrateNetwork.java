@@ -5,15 +5,19 @@ import java.util.HashMap;
 
 import org.uncommons.maths.statistics.DataSet;
 
+import simulator.network.components.physical.LoadListener;
 import simulator.network.components.physical.PhysicalLink;
 import simulator.network.components.physical.PhysicalNode;
-import simulator.util.Util;
 
-public class SubstrateNetwork {
+public class SubstrateNetwork implements LoadListener {
   private HashMap<Integer, PhysicalNode> physicalNodes;
   private HashMap<String, PhysicalLink> physicalLinks;
   private int amountNodes;
   private int amountLinks;
+  private SubstrateTopology topology;
+  private ShortestPathCache shortestPathCache;
+  private LoadStatistics<PhysicalNode> nodesLoad;
+  private LoadStatistics<PhysicalLink> linksBandwidthLoad;
 
   public SubstrateNetwork() {
     this.physicalNodes = new HashMap<Integer, PhysicalNode>();
@@ -33,6 +37,7 @@ public class SubstrateNetwork {
   public void setHashNodes(HashMap<Integer, PhysicalNode> physicalNodes) {
     this.physicalNodes = physicalNodes;
     this.amountNodes = physicalNodes.size();
+    invalidateTopology();
   }
 
   public HashMap<String, PhysicalLink> getHashLinks() {
@@ -42,6 +47,7 @@ public class SubstrateNetwork {
   public void setHashLinks(HashMap<String, PhysicalLink> physicalLinks) {
     this.physicalLinks = physicalLinks;
     this.amountLinks = physicalLinks.size();
+    invalidateTopology();
   }
 
   public int getAmountNodes() {
@@ -61,49 +67,165 @@ public class SubstrateNetwork {
   }
 
   /*
-   * Retorna ArrayList com nós físicos que têm capacidade maior que a
-   * especificada como parâmetro.
+   * Visão CSR da topologia, construída sob demanda. A partir dela, as cargas
+   * dos nós e enlaces passam a ser acompanhadas por esta rede.
+   */
+  public synchronized SubstrateTopology getTopology() {
+    if(topology == null) {
+      topology = new SubstrateTopology(this);
+      for(PhysicalNode node : physicalNodes.values())
+        node.setLoadListener(this);
+      for(PhysicalLink link : physicalLinks.values())
+        link.setLoadListener(this);
+    }
+
+    return topology;
+  }
+
+  public synchronized ShortestPathCache getShortestPathCache() {
+    if(shortestPathCache == null)
+      shortestPathCache = new ShortestPathCache(getTopology());
+
+    return shortestPathCache;
+  }
+
+  /*
+   * Posição do nó na ordem de disponibilidade da rede, do mais para o menos
+   * disponível.
+   */
+  public int getAvailabilityRank(PhysicalNode physicalNode) {
+    SubstrateTopology topology = getTopology();
+    int node = topology.indexOf(physicalNode);
+    if(node < 0)
+      throw new RuntimeException("Nó físico não pertence à rede substrato.");
+
+    return topology.getAvailabilityRank(node);
+  }
+
+  /*
+   * Descarta as estruturas derivadas da topologia. Deve ser chamado sempre que
+   * nós ou enlaces forem adicionados ou removidos diretamente nos HashMaps.
+   */
+  public synchronized void invalidateTopology() {
+    topology = null;
+    shortestPathCache = null;
+    nodesLoad = null;
+    linksBandwidthLoad = null;
+  }
+
+  public void nodeLoadChanged(PhysicalNode node) {
+    SubstrateTopology topology = this.topology;
+    LoadStatistics<PhysicalNode> nodesLoad = this.nodesLoad;
+    if(topology != null)
+      topology.updateRemainingCapacity(node);
+    if(nodesLoad != null)
+      nodesLoad.set(node, getLoadRate(node));
+  }
+
+  public void linkLoadChanged(PhysicalLink link) {
+    SubstrateTopology topology = this.topology;
+    LoadStatistics<PhysicalLink> linksBandwidthLoad = this.linksBandwidthLoad;
+    if(topology != null)
+      topology.updateResidualBandwidth(link);
+    if(linksBandwidthLoad != null)
+      linksBandwidthLoad.set(link, getBandwidthLoadRate(link));
+  }
+
+  /*
+   * Nós com capacidade restante maior que capacity, do mais para o menos
+   * disponível.
    */
   public ArrayList<PhysicalNode> getPhysicalNodesWithRemainingCapacityGreaterThan(
                                                               double capacity) {
-    ArrayList<PhysicalNode> capablePhysicalNodes = new ArrayList<PhysicalNode>();
-    for(PhysicalNode node : physicalNodes.values()) {
-      if(node.getRemainingCapacity() > capacity) {
-        capablePhysicalNodes.add(node);
-      }
+    SubstrateTopology topology = getTopology();
+    int[] nodes = new int[topology.getAmountNodes()];
+    int amount = topology.collectNodesWithRemainingCapacityGreaterThan(capacity,
+      nodes);
+    ArrayList<PhysicalNode> capablePhysicalNodes = new ArrayList<PhysicalNode>(amount);
+    for(int i = 0; i < amount; i++) {
+      capablePhysicalNodes.add(topology.getNode(nodes[i]));
     }
 
     return capablePhysicalNodes;
   }
 
+  public double getMaximumRemainingCapacity() {
+    return getTopology().getMaxRemainingCapacity();
+  }
+
+  /*
+   * Mesmos valores que Util dá sobre collectNodesLoad() e
+   * collectLinksBandwidthLoad(), recalculados só na primeira consulta depois
+   * de uma mudança de carga e sem alocar.
+   */
   public double getAverageNodesLoad() {
-    return Util.getAverage(collectNodesLoad());
+    return getNodesLoad().getAverage();
   }
 
   public double getMaximumNodesLoad() {
-    return Util.getMaximum(collectNodesLoad());
+    return getNodesLoad().getMaximum();
   }
 
   public double getNodesLoadStandardDeviation() {
-    return Util.getStandardDeviation(collectNodesLoad());
+    return getNodesLoad().getStandardDeviation();
   }
 
   public double getAverageLinksBandwidthLoad() {
-    return Util.getAverage(collectLinksBandwidthLoad());
+    return getLinksBandwidthLoad().getAverage();
   }
 
   public double getMaximumLinksBandwidthLoad() {
-    return Util.getMaximum(collectLinksBandwidthLoad());
+    return getLinksBandwidthLoad().getMaximum();
   }
 
   public double getLinksBandwidthLoadStandardDeviation() {
-    return Util.getStandardDeviation(collectLinksBandwidthLoad());
+    return getLinksBandwidthLoad().getStandardDeviation();
+  }
+
+  /*
+   * Estatísticas construídas sob demanda; a partir delas, as cargas dos nós
+   * ou enlaces passam a ser acompanhadas por esta rede.
+   */
+  private synchronized LoadStatistics<PhysicalNode> getNodesLoad() {
+    if(nodesLoad == null) {
+      PhysicalNode[] nodes = physicalNodes.values().toArray(new PhysicalNode[0]);
+      double[] loads = new double[nodes.length];
+      for(int i = 0; i < nodes.length; i++) {
+        loads[i] = getLoadRate(nodes[i]);
+        nodes[i].setLoadListener(this);
+      }
+      nodesLoad = new LoadStatistics<PhysicalNode>(nodes, loads);
+    }
+
+    return nodesLoad;
+  }
+
+  private synchronized LoadStatistics<PhysicalLink> getLinksBandwidthLoad() {
+    if(linksBandwidthLoad == null) {
+      PhysicalLink[] links = physicalLinks.values().toArray(new PhysicalLink[0]);
+      double[] loads = new double[links.length];
+      for(int i = 0; i < links.length; i++) {
+        loads[i] = getBandwidthLoadRate(links[i]);
+        links[i].setLoadListener(this);
+      }
+      linksBandwidthLoad = new LoadStatistics<PhysicalLink>(links, loads);
+    }
+
+    return linksBandwidthLoad;
+  }
+
+  private static double getLoadRate(PhysicalNode node) {
+    return node.getLoad() / node.getCapacity();
+  }
+
+  private static double getBandwidthLoadRate(PhysicalLink link) {
+    return link.getBandwidthLoad() / link.getBandwidthCapacity();
   }
 
   protected DataSet collectNodesLoad() {
     DataSet data = new DataSet();
     for(PhysicalNode node : physicalNodes.values()) {
-      data.addValue(node.getLoad() / node.getCapacity());
+      data.addValue(getLoadRate(node));
     }
 
     return data;
@@ -112,7 +234,7 @@ public class SubstrateNetwork {
   protected DataSet collectLinksBandwidthLoad() {
     DataSet data = new DataSet();
     for(PhysicalLink link : physicalLinks.values()) {
-      data.addValue(link.getBandwidthLoad() / link.getBandwidthCapacity());
+      data.addValue(getBandwidthLoadRate(link));
     }
 
     return data;
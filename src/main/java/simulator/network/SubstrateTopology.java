@@ -0,0 +1,300 @@
+package simulator.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import simulator.util.MaxSegmentTree;
+import simulator.network.components.physical.PhysicalLink;
+import simulator.network.components.physical.PhysicalNode;
+
+/*
+ *  Compressed sparse row (CSR) view of a substrate network. Nodes and links
+ * get dense indexes (see PhysicalNode.getIndex() and PhysicalLink.getIndex());
+ * the links attached to node u are adjacentLinks[offsets[u]] ..
+ * adjacentLinks[offsets[u + 1] - 1], each leading to the node at the same
+ * position of targets. The structure is immutable; only the remaining node
+ * capacities and link bandwidths follow the loads, through the owning
+ * SubstrateNetwork. Remaining node capacities are also indexed by a
+ * MaxSegmentTree laid out in availability order, so nodes able to host a
+ * given capacity come out already sorted by availability.
+ */
+public class SubstrateTopology {
+  private PhysicalNode[] nodes;
+  private PhysicalLink[] links;
+  private int[] offsets;
+  private int[] targets;
+  private int[] adjacentLinks;
+  private int[] linksSources;
+  private int[] linksDestinies;
+  private double[] nodesCapacities;
+  private double[] nodesRemainingCapacities;
+  private double[] linksDelays;
+  private double[] linksBandwidthCapacities;
+  private double[] linksResidualBandwidths;
+  private double[] nodesLogAvailabilities;
+  private double[] nodesLogIntermediaryAvailabilities;
+  private double[] linksLogAvailabilities;
+  private int[] nodesByAvailability;
+  private int[] availabilityRanks;
+  private MaxSegmentTree remainingCapacitiesByRank;
+
+  public SubstrateTopology(SubstrateNetwork substrateNetwork) {
+    nodes = substrateNetwork.getHashNodes().values().toArray(new PhysicalNode[0]);
+    links = substrateNetwork.getHashLinks().values().toArray(new PhysicalLink[0]);
+    nodesCapacities = new double[nodes.length];
+    nodesRemainingCapacities = new double[nodes.length];
+    nodesLogAvailabilities = new double[nodes.length];
+    nodesLogIntermediaryAvailabilities = new double[nodes.length];
+    for(int i = 0; i < nodes.length; i++) {
+      nodes[i].setIndex(i);
+      nodesCapacities[i] = nodes[i].getCapacity();
+      nodesRemainingCapacities[i] = nodes[i].getRemainingCapacity();
+      nodesLogAvailabilities[i] = nodes[i].getLogAvailability();
+      nodesLogIntermediaryAvailabilities[i] =
+        nodes[i].getIntermediaryNodeLogAvailability();
+    }
+
+    linksSources = new int[links.length];
+    linksDestinies = new int[links.length];
+    linksDelays = new double[links.length];
+    linksBandwidthCapacities = new double[links.length];
+    linksResidualBandwidths = new double[links.length];
+    linksLogAvailabilities = new double[links.length];
+    offsets = new int[nodes.length + 1];
+    for(int i = 0; i < links.length; i++) {
+      links[i].setIndex(i);
+      linksSources[i] = indexOf((PhysicalNode) links[i].getSourceNode());
+      linksDestinies[i] = indexOf((PhysicalNode) links[i].getDestinyNode());
+      if(linksSources[i] < 0 || linksDestinies[i] < 0)
+        throw new RuntimeException("Enlace físico liga nó fora da rede substrato.");
+      linksDelays[i] = links[i].getDelay();
+      linksBandwidthCapacities[i] = links[i].getBandwidthCapacity();
+      linksResidualBandwidths[i] = links[i].getRemainingBandwidth();
+      linksLogAvailabilities[i] = links[i].getLogAvailability();
+      offsets[linksSources[i] + 1]++;
+      offsets[linksDestinies[i] + 1]++;
+    }
+    for(int i = 0; i < nodes.length; i++)
+      offsets[i + 1] += offsets[i];
+
+    targets = new int[offsets[nodes.length]];
+    adjacentLinks = new int[offsets[nodes.length]];
+    int[] next = new int[nodes.length];
+    System.arraycopy(offsets, 0, next, 0, nodes.length);
+    for(int i = 0; i < links.length; i++) {
+      targets[next[linksSources[i]]] = linksDestinies[i];
+      adjacentLinks[next[linksSources[i]]++] = i;
+      targets[next[linksDestinies[i]]] = linksSources[i];
+      adjacentLinks[next[linksDestinies[i]]++] = i;
+    }
+  }
+
+  public int getAmountNodes() {
+    return nodes.length;
+  }
+
+  public int getAmountLinks() {
+    return links.length;
+  }
+
+  /*
+   * Índice do nó nesta topologia, ou -1 se ele não pertence a ela.
+   */
+  public int indexOf(PhysicalNode physicalNode) {
+    int index = physicalNode.getIndex();
+    if(index >= 0 && index < nodes.length && nodes[index] == physicalNode)
+      return index;
+
+    return -1;
+  }
+
+  public int indexOf(PhysicalLink physicalLink) {
+    int index = physicalLink.getIndex();
+    if(index >= 0 && index < links.length && links[index] == physicalLink)
+      return index;
+
+    return -1;
+  }
+
+  public PhysicalNode getNode(int node) {
+    return nodes[node];
+  }
+
+  public PhysicalLink getLink(int link) {
+    return links[link];
+  }
+
+  public int getAdjacencyStart(int node) {
+    return offsets[node];
+  }
+
+  public int getAdjacencyEnd(int node) {
+    return offsets[node + 1];
+  }
+
+  public int getDegree(int node) {
+    return offsets[node + 1] - offsets[node];
+  }
+
+  public int getTarget(int adjacency) {
+    return targets[adjacency];
+  }
+
+  public int getAdjacentLink(int adjacency) {
+    return adjacentLinks[adjacency];
+  }
+
+  public int getLinkSource(int link) {
+    return linksSources[link];
+  }
+
+  public int getLinkDestiny(int link) {
+    return linksDestinies[link];
+  }
+
+  public double getNodeCapacity(int node) {
+    return nodesCapacities[node];
+  }
+
+  public double getRemainingCapacity(int node) {
+    return nodesRemainingCapacities[node];
+  }
+
+  public double getLinkDelay(int link) {
+    return linksDelays[link];
+  }
+
+  public double getLinkBandwidthCapacity(int link) {
+    return linksBandwidthCapacities[link];
+  }
+
+  public double getResidualBandwidth(int link) {
+    return linksResidualBandwidths[link];
+  }
+
+  /*
+   * Índices dos nós do mais para o menos disponível, segundo
+   * PhysicalNode.compareTo; empates mantêm a ordem dos índices. O vetor não
+   * deve ser alterado.
+   */
+  public synchronized int[] getNodesByAvailability() {
+    if(nodesByAvailability == null)
+      sortNodesByAvailability();
+
+    return nodesByAvailability;
+  }
+
+  /*
+   * Posição do nó em getNodesByAvailability().
+   */
+  public synchronized int getAvailabilityRank(int node) {
+    getNodesByAvailability();
+    return availabilityRanks[node];
+  }
+
+  private void sortNodesByAvailability() {
+    ArrayList<PhysicalNode> sortedNodes = new ArrayList<PhysicalNode>(
+      Arrays.asList(nodes));
+    Collections.sort(sortedNodes);
+    nodesByAvailability = new int[nodes.length];
+    availabilityRanks = new int[nodes.length];
+    double[] remainingCapacities = new double[nodes.length];
+    for(int rank = 0; rank < nodes.length; rank++) {
+      nodesByAvailability[rank] = sortedNodes.get(rank).getIndex();
+      availabilityRanks[nodesByAvailability[rank]] = rank;
+      remainingCapacities[rank] = nodesRemainingCapacities[nodesByAvailability[rank]];
+    }
+    remainingCapacitiesByRank = new MaxSegmentTree(remainingCapacities);
+  }
+
+  public synchronized double getMaxRemainingCapacity() {
+    getNodesByAvailability();
+    return remainingCapacitiesByRank.max();
+  }
+
+  /*
+   * Preenche nodes com os índices dos nós de capacidade restante maior ou igual
+   * a capacity, do mais para o menos disponível. Retorna quantos foram
+   * encontrados; nodes deve comportar getAmountNodes() índices.
+   */
+  public synchronized int collectNodesWithRemainingCapacityAtLeast(double capacity,
+                                                                  int[] nodes) {
+    getNodesByAvailability();
+    return toNodes(remainingCapacitiesByRank.collectAtLeast(capacity, nodes), nodes);
+  }
+
+  public synchronized int collectNodesWithRemainingCapacityGreaterThan(
+                                               double capacity, int[] nodes) {
+    getNodesByAvailability();
+    return toNodes(remainingCapacitiesByRank.collectGreaterThan(capacity, nodes),
+      nodes);
+  }
+
+  /*
+   * Cópia do índice de capacidades restantes, posicionado por
+   * getAvailabilityRank().
+   */
+  public synchronized MaxSegmentTree copyRemainingCapacitiesByRank() {
+    getNodesByAvailability();
+    return new MaxSegmentTree(remainingCapacitiesByRank);
+  }
+
+  /*
+   * Converte, no lugar, posições na ordem de disponibilidade em índices.
+   */
+  int toNodes(int amount, int[] ranks) {
+    for(int i = 0; i < amount; i++)
+      ranks[i] = nodesByAvailability[ranks[i]];
+
+    return amount;
+  }
+
+  /*
+   * Cópias de getLogAvailability dos componentes, para varreduras por índice.
+   */
+  public double getNodeLogAvailability(int node) {
+    return nodesLogAvailabilities[node];
+  }
+
+  public double getIntermediaryNodeLogAvailability(int node) {
+    return nodesLogIntermediaryAvailabilities[node];
+  }
+
+  public double getLinkLogAvailability(int link) {
+    return linksLogAvailabilities[link];
+  }
+
+  synchronized void updateRemainingCapacity(PhysicalNode physicalNode) {
+    int node = indexOf(physicalNode);
+    if(node >= 0) {
+      nodesRemainingCapacities[node] = physicalNode.getRemainingCapacity();
+      if(remainingCapacitiesByRank != null) {
+        remainingCapacitiesByRank.set(availabilityRanks[node],
+          nodesRemainingCapacities[node]);
+      }
+    }
+  }
+
+  void updateResidualBandwidth(PhysicalLink physicalLink) {
+    int link = indexOf(physicalLink);
+    if(link >= 0)
+      linksResidualBandwidths[link] = physicalLink.getRemainingBandwidth();
+  }
+
+  int[] getOffsets() {
+    return offsets;
+  }
+
+  int[] getTargets() {
+    return targets;
+  }
+
+  int[] getAdjacentLinks() {
+    return adjacentLinks;
+  }
+
+  double[] getLinksDelays() {
+    return linksDelays;
+  }
+}
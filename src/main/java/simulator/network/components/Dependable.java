@@ -0,0 +1,13 @@
+package simulator.network.components;
+
+import java.math.BigDecimal;
+
+/*
+ *  Anything whose availability can be measured, either exactly or as the sum
+ * of the natural logarithms of its components availabilities.
+ */
+public interface Dependable {
+  public BigDecimal getAvailability();
+
+  public double getLogAvailability();
+}
@@ -8,7 +8,7 @@ import java.util.ArrayList;
 import simulator.network.components.physical.*;
 import simulator.network.components.virtual.VirtualLink;
 
-public class Path {
+public class Path implements Dependable {
   private PhysicalNode sourceNode;
   private PhysicalNode destinyNode;
   private ArrayList<PhysicalLink> links;
@@ -61,9 +61,35 @@ public class Path {
   public BigDecimal getAvailability() {
     MathContext mathContext = new MathContext(10, RoundingMode.HALF_UP);
     BigDecimal availability = new BigDecimal(1, mathContext);
-    ArrayList<PhysicalNode> intermediaryNodes = new ArrayList<PhysicalNode>();
     for(PhysicalLink link : links) {
       availability = availability.multiply(link.getAvailability(), mathContext);
+    }
+    for(PhysicalNode intermediaryNode : getIntermediaryNodes()) {
+      availability = availability.multiply(
+        intermediaryNode.getIntermediaryNodeAvailability(), mathContext);
+    }
+    availability = availability.multiply(sourceNode.getNodeAvailability(),
+      mathContext).multiply(destinyNode.getNodeAvailability(), mathContext);
+
+    return availability;
+  }
+
+  public double getLogAvailability() {
+    double logAvailability = 0;
+    for(PhysicalLink link : links) {
+      logAvailability += link.getLogAvailability();
+    }
+    for(PhysicalNode intermediaryNode : getIntermediaryNodes()) {
+      logAvailability += intermediaryNode.getIntermediaryNodeLogAvailability();
+    }
+
+    return logAvailability + sourceNode.getLogAvailability()
+      + destinyNode.getLogAvailability();
+  }
+
+  private ArrayList<PhysicalNode> getIntermediaryNodes() {
+    ArrayList<PhysicalNode> intermediaryNodes = new ArrayList<PhysicalNode>();
+    for(PhysicalLink link : links) {
       PhysicalNode[] linkNodes = { (PhysicalNode) link.getSourceNode(),
         (PhysicalNode) link.getDestinyNode() };
       for(PhysicalNode physicalNode : linkNodes) {
@@ -73,13 +99,7 @@ public class Path {
         }
       }
     }
-    for(PhysicalNode intermediaryNode : intermediaryNodes) {
-      availability = availability.multiply(
-        intermediaryNode.getIntermediaryNodeAvailability(), mathContext);
-    }
-    availability = availability.multiply(sourceNode.getNodeAvailability(),
-      mathContext).multiply(destinyNode.getNodeAvailability(), mathContext);
 
-    return availability;
+    return intermediaryNodes;
   }
 }
@@ -0,0 +1,9 @@
+package simulator.network.components.physical;
+
+/*
+ *  Notified after the load of a physical node or link changes.
+ */
+public interface LoadListener {
+  public void nodeLoadChanged(PhysicalNode node);
+  public void linkLoadChanged(PhysicalLink link);
+}
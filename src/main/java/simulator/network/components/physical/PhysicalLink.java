@@ -4,37 +4,58 @@ import java.math.BigDecimal;
 
 import generator.dependability.AvailabilityGenerator;
 
+import simulator.network.components.Dependable;
 import simulator.network.components.Link;
 import simulator.network.components.physical.PhysicalNode;
 import simulator.network.components.virtual.VirtualLink;
 
-public class PhysicalLink extends Link {
+public class PhysicalLink extends Link implements Dependable {
   private BigDecimal bandwidthLoad;
   private int cost;
   private BigDecimal availability;
+  private double logAvailability;
+  private int index;
+  private LoadListener loadListener;
 
   public PhysicalLink(String id, PhysicalNode sourceNode, PhysicalNode destinyNode,
                       double bandwidth, double delay, int cost) {
+    this(id, sourceNode, destinyNode, bandwidth, delay, cost,
+      AvailabilityGenerator.getInstance());
+  }
+
+  public PhysicalLink(String id, PhysicalNode sourceNode, PhysicalNode destinyNode,
+                      double bandwidth, double delay, int cost,
+                      AvailabilityGenerator availabilityGenerator) {
     super(id, sourceNode, destinyNode, bandwidth, delay);
     bandwidthLoad = new BigDecimal(0);
+    index = -1;
     this.cost = cost;
-    this.availability = AvailabilityGenerator.getInstance().
+    this.availability = availabilityGenerator.
       generateComponentAvailability(AvailabilityGenerator.LINK_FAILURE_RATE,
                                     AvailabilityGenerator.LINK_MTTR);
+    this.logAvailability = Math.log(availability.doubleValue());
   }
 
   public double getBandwidthLoad() {
     return bandwidthLoad.doubleValue();
   }
 
+  public BigDecimal getExactBandwidthLoad() {
+    return bandwidthLoad;
+  }
+
   public void addBandwidthLoad(double bandwidth) {
     bandwidthLoad = bandwidthLoad.add(BigDecimal.valueOf(bandwidth));
+    if(loadListener != null)
+      loadListener.linkLoadChanged(this);
     if(bandwidthLoad.doubleValue() > getBandwidthCapacity())
       throw new RuntimeException("Enlace físico não possui capacidade suficiente.");
   }
 
   public void removeBandwidthLoad(double bandwidth) {
     bandwidthLoad = bandwidthLoad.subtract(BigDecimal.valueOf(bandwidth));
+    if(loadListener != null)
+      loadListener.linkLoadChanged(this);
     if(bandwidthLoad.doubleValue() < 0)
       throw new RuntimeException("Carga de enlace físico negativa.");
   }
@@ -43,6 +64,21 @@ public class PhysicalLink extends Link {
     return BigDecimal.valueOf(this.getBandwidthCapacity()).subtract(bandwidthLoad).doubleValue();
   }
 
+  /*
+   * Posição do enlace na topologia da rede substrato que o contém, ou -1.
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  public void setIndex(int index) {
+    this.index = index;
+  }
+
+  public void setLoadListener(LoadListener loadListener) {
+    this.loadListener = loadListener;
+  }
+
   public int getCost() {
     return cost;
   }
@@ -58,4 +94,8 @@ public class PhysicalLink extends Link {
   public BigDecimal getAvailability() {
     return this.availability;
   }
+
+  public double getLogAvailability() {
+    return logAvailability;
+  }
 }
@@ -1,35 +1,56 @@
 package simulator.network.components.physical;
 
 import java.math.BigDecimal;
+import java.math.MathContext;
 import java.util.ArrayList;
 import java.util.HashMap;
 
 import generator.dependability.AvailabilityGenerator;
 
+import simulator.network.components.Dependable;
 import simulator.network.components.Node;
 import simulator.network.components.virtual.VirtualNode;
+import simulator.util.AvailabilityMode;
 
 import static simulator.util.Config.COMPARE_NODES_BY_AVAILABILITY;
 import static simulator.util.Config.SOFTWARE_AGING_CONSTANT;
 import static simulator.util.Config.softwareAgingScenario;
 
-public class PhysicalNode extends Node implements Comparable<PhysicalNode> {
+public class PhysicalNode extends Node implements Comparable<PhysicalNode>,
+                                                  Dependable {
   private double load;
   private BigDecimal machineAvailability;
   private BigDecimal hypervisorAvailability;
   private BigDecimal operatingSystemAvailability;
+  private BigDecimal nodeAvailability;
+  private double logAvailability;
+  private double intermediaryLogAvailability;
+  private int index;
+  private LoadListener loadListener;
 
   public PhysicalNode (int id, double capacity) {
+    this(id, capacity, AvailabilityGenerator.getInstance());
+  }
+
+  public PhysicalNode (int id, double capacity,
+                       AvailabilityGenerator availabilityGenerator) {
     super(id, capacity);
     load = 0;
-    this.machineAvailability = AvailabilityGenerator.getInstance().
+    index = -1;
+    this.machineAvailability = availabilityGenerator.
       generateMachineAvailability();
-    this.hypervisorAvailability = AvailabilityGenerator.getInstance().
+    this.hypervisorAvailability = availabilityGenerator.
       generateComponentAvailability(AvailabilityGenerator.HYPERVISOR_FAILURE_RATE,
         AvailabilityGenerator.HYPERVISOR_MTTR);
-    this.operatingSystemAvailability = AvailabilityGenerator.getInstance().
+    this.operatingSystemAvailability = availabilityGenerator.
       generateComponentAvailability(AvailabilityGenerator.OPERATING_SYSTEM_MTTF,
         AvailabilityGenerator.OPERATING_SYSTEM_MTTR);
+    this.nodeAvailability = hypervisorAvailability.multiply(machineAvailability).
+      multiply(operatingSystemAvailability, MathContext.DECIMAL64);
+    this.intermediaryLogAvailability = Math.log(machineAvailability.doubleValue());
+    this.logAvailability = intermediaryLogAvailability
+      + Math.log(hypervisorAvailability.doubleValue())
+      + Math.log(operatingSystemAvailability.doubleValue());
   }
 
   public double getLoad() {
@@ -39,6 +60,8 @@ public class PhysicalNode extends Node implements Comparable<PhysicalNode> {
   public void addLoad(double load) {
     this.load = (new BigDecimal(String.valueOf(this.load)).
       add(new BigDecimal(String.valueOf(load)))).doubleValue();
+    if(loadListener != null)
+      loadListener.nodeLoadChanged(this);
     if(load > getCapacity())
       throw new RuntimeException("Nó físico não possui capacidade suficiente.");
   }
@@ -46,6 +69,8 @@ public class PhysicalNode extends Node implements Comparable<PhysicalNode> {
   public void removeLoad(double load) {
     this.load = (new BigDecimal(String.valueOf(this.load)).
       subtract(new BigDecimal(String.valueOf(load)))).doubleValue();
+    if(loadListener != null)
+      loadListener.nodeLoadChanged(this);
     if(load < 0)
       throw new RuntimeException("Carga de nó físico negativa.");
   }
@@ -58,18 +83,47 @@ public class PhysicalNode extends Node implements Comparable<PhysicalNode> {
     return this.getRemainingCapacity() >= virtualNode.getCapacity();
   }
 
+  /*
+   * Posição do nó na topologia da rede substrato que o contém, ou -1.
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  public void setIndex(int index) {
+    this.index = index;
+  }
+
+  public void setLoadListener(LoadListener loadListener) {
+    this.loadListener = loadListener;
+  }
+
   public BigDecimal getNodeAvailability() {
-    return hypervisorAvailability.multiply(machineAvailability).multiply(
-      operatingSystemAvailability);
+    return nodeAvailability;
   }
 
   public BigDecimal getIntermediaryNodeAvailability() {
     return machineAvailability;
   }
 
+  /*
+   * Disponibilidade do nó como hospedeiro; o mesmo que getNodeAvailability.
+   */
+  public BigDecimal getAvailability() {
+    return getNodeAvailability();
+  }
+
+  public double getLogAvailability() {
+    return logAvailability;
+  }
+
+  public double getIntermediaryNodeLogAvailability() {
+    return intermediaryLogAvailability;
+  }
+
+  // Ordena do mais para o menos disponível, pela disponibilidade exata
   @Override
   public int compareTo(PhysicalNode node) {
-    return node.getNodeAvailability().compareTo(
-      this.getNodeAvailability());
+    return AvailabilityMode.EXACT.compare(node, this);
   }
 }
@@ -0,0 +1,44 @@
+package simulator.simulation;
+
+/*
+ *  Order in which the arrivals of one time are mapped. ARRIVAL_ORDER maps
+ * each arrival as it leaves the event queue, by request id; the others first
+ * gather every arrival of the time and map the batch in their own order, so
+ * that the requests that matter most get the resources while they are free.
+ */
+public enum AdmissionPolicy {
+  ARRIVAL_ORDER {
+    public int compare(Request request, Request otherRequest) {
+      return 0;
+    }
+  },
+
+  // Mais nós virtuais antes; empate pela capacidade total pedida
+  LARGEST_FIRST {
+    public int compare(Request request, Request otherRequest) {
+      if(request.getAmountNodes() != otherRequest.getAmountNodes())
+        return (request.getAmountNodes() > otherRequest.getAmountNodes() ? -1 : 1);
+
+      return Double.compare(otherRequest.getNodesCapacity(),
+        request.getNodesCapacity());
+    }
+  },
+
+  // Maior receita antes: capacidade e banda pedidas durante o tempo de vida
+  HIGHEST_REVENUE {
+    public int compare(Request request, Request otherRequest) {
+      return Double.compare(getRevenue(otherRequest), getRevenue(request));
+    }
+  };
+
+  /*
+   * Negativo se request deve ser mapeada antes de otherRequest. Empates são
+   * resolvidos pelo id da requisição.
+   */
+  public abstract int compare(Request request, Request otherRequest);
+
+  private static double getRevenue(Request request) {
+    return (request.getNodesCapacity() + request.getLinksBandwidth())
+      * request.getLifeTime();
+  }
+}
@@ -0,0 +1,123 @@
+package simulator.simulation;
+
+import java.util.IdentityHashMap;
+
+import simulator.network.SubstrateNetwork;
+import simulator.network.SubstrateTopology;
+import simulator.network.components.virtual.VirtualLink;
+import simulator.network.components.virtual.VirtualNode;
+
+/*
+ *  Necessary conditions for a request to fit the substrate, checked in time
+ * linear in the sizes of the request and the substrate. A request that fails
+ * one of them cannot be mapped with the given node sharing setting, so it is
+ * rejected without spending the allocation attempts; one that passes may
+ * still not fit.
+ */
+public class AdmissionPrecheck {
+  // Folga para somas de capacidades feitas em outra ordem
+  private static final double TOLERANCE = 1e-9;
+
+  private boolean allowNodeSharing;
+
+  public AdmissionPrecheck() {
+    this(false);
+  }
+
+  /*
+   * Com compartilhamento, nós virtuais vizinhos podem ficar no mesmo nó
+   * físico sem usar banda, e a condição de banda não vale.
+   */
+  public AdmissionPrecheck(boolean allowNodeSharing) {
+    this.allowNodeSharing = allowNodeSharing;
+  }
+
+  /*
+   * Motivo pelo qual request certamente não cabe na rede, ou null se pode
+   * caber.
+   */
+  public RejectionReason check(Request request, SubstrateNetwork substrateNetwork) {
+    SubstrateTopology topology = substrateNetwork.getTopology();
+    double largestDemand = 0;
+    double totalDemand = 0;
+    for(VirtualNode virtualNode : request.getVirtualNodes().values()) {
+      largestDemand = Math.max(largestDemand, virtualNode.getCapacity());
+      totalDemand += virtualNode.getCapacity();
+    }
+    if(request.getAmountNodes() > 0
+       && largestDemand > topology.getMaxRemainingCapacity())
+      return RejectionReason.NODE_TOO_LARGE;
+
+    double totalRemaining = 0;
+    for(int node = 0; node < topology.getAmountNodes(); node++)
+      totalRemaining += topology.getRemainingCapacity(node);
+    if(totalDemand - totalRemaining > TOLERANCE * Math.max(1, totalRemaining))
+      return RejectionReason.NOT_ENOUGH_CAPACITY;
+
+    if(!allowNodeSharing && !hasBandwidthAround(request, topology))
+      return RejectionReason.NOT_ENOUGH_BANDWIDTH;
+
+    return null;
+  }
+
+  /*
+   * Sem compartilhamento, todo enlace virtual sai do nó físico de cada ponta
+   * por um enlace adjacente a ele. O nó físico de um nó virtual precisa então
+   * de um enlace adjacente com a banda do seu maior enlace virtual e de banda
+   * adjacente total que cubra a de todos eles.
+   */
+  private boolean hasBandwidthAround(Request request, SubstrateTopology topology) {
+    IdentityHashMap<VirtualNode, double[]> demands =
+      new IdentityHashMap<VirtualNode, double[]>();
+    for(VirtualLink virtualLink : request.getVirtualLinks().values()) {
+      addBandwidthDemand(demands, (VirtualNode) virtualLink.getSourceNode(),
+        virtualLink.getBandwidthCapacity());
+      addBandwidthDemand(demands, (VirtualNode) virtualLink.getDestinyNode(),
+        virtualLink.getBandwidthCapacity());
+    }
+    if(demands.isEmpty())
+      return true;
+
+    // Banda residual total e maior banda residual ao redor de cada nó físico
+    int amountNodes = topology.getAmountNodes();
+    double[] adjacentBandwidths = new double[amountNodes];
+    double[] largestAdjacentBandwidths = new double[amountNodes];
+    for(int node = 0; node < amountNodes; node++) {
+      for(int adjacency = topology.getAdjacencyStart(node);
+          adjacency < topology.getAdjacencyEnd(node); adjacency++) {
+        double bandwidth = topology.getResidualBandwidth(
+          topology.getAdjacentLink(adjacency));
+        adjacentBandwidths[node] += bandwidth;
+        largestAdjacentBandwidths[node] = Math.max(
+          largestAdjacentBandwidths[node], bandwidth);
+      }
+    }
+
+    for(VirtualNode virtualNode : demands.keySet()) {
+      double[] demand = demands.get(virtualNode);
+      boolean hostable = false;
+      for(int node = 0; node < amountNodes && !hostable; node++) {
+        hostable = topology.getRemainingCapacity(node) >= virtualNode.getCapacity()
+          && largestAdjacentBandwidths[node] >= demand[1]
+          && demand[0] - adjacentBandwidths[node]
+             <= TOLERANCE * Math.max(1, adjacentBandwidths[node]);
+      }
+      if(!hostable)
+        return false;
+    }
+
+    return true;
+  }
+
+  // demand[0]: banda total dos enlaces virtuais do nó; demand[1]: a maior
+  private void addBandwidthDemand(IdentityHashMap<VirtualNode, double[]> demands,
+                                  VirtualNode virtualNode, double bandwidth) {
+    double[] demand = demands.get(virtualNode);
+    if(demand == null) {
+      demand = new double[2];
+      demands.put(virtualNode, demand);
+    }
+    demand[0] += bandwidth;
+    demand[1] = Math.max(demand[1], bandwidth);
+  }
+}
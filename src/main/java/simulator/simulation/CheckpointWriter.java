@@ -0,0 +1,148 @@
+package simulator.simulation;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/*
+ *  Writes simulation checkpoints without holding up the event loop. The loop
+ * serializes the state into memory and a background thread writes it to a
+ * temporary file that then replaces the previous checkpoint, so a crash never
+ * leaves a partial one. Request outcomes, which grow with the simulated
+ * history, are appended to a journal instead of being copied into every
+ * checkpoint; each checkpoint records how much of the journal it covers.
+ */
+class CheckpointWriter {
+  private File checkpointFile;
+  private File journalFile;
+  private FileOutputStream journalOutput;
+  private DataOutputStream journal;
+  private ExecutorService executor;
+  private Future<?> pendingWrite;
+
+  /*
+   * O diário é truncado em journalLength bytes: zero numa simulação nova, o
+   * valor registrado no checkpoint numa retomada.
+   */
+  CheckpointWriter(String fileName, long journalLength) {
+    checkpointFile = new File(fileName);
+    journalFile = getJournalFile(fileName);
+    try {
+      journalOutput = new FileOutputStream(journalFile, true);
+      journalOutput.getChannel().truncate(journalLength);
+    } catch(IOException e) {
+      throw new RuntimeException("Diário de checkpoint inacessível: "
+        + journalFile);
+    }
+    journal = new DataOutputStream(new BufferedOutputStream(journalOutput));
+    executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  static File getJournalFile(String fileName) {
+    return new File(fileName + ".outcomes");
+  }
+
+  void appendOutcome(RequestOutcome outcome) {
+    try {
+      outcome.write(journal);
+    } catch(IOException e) {
+      throw new RuntimeException("Falha ao escrever no diário de checkpoint.");
+    }
+  }
+
+  // Bytes do diário já entregues ao sistema de arquivos
+  long getJournalLength() {
+    try {
+      journal.flush();
+      return journalOutput.getChannel().position();
+    } catch(IOException e) {
+      throw new RuntimeException("Falha ao escrever no diário de checkpoint.");
+    }
+  }
+
+  /*
+   * Agenda a gravação de state. Só espera se a gravação anterior ainda não
+   * terminou.
+   */
+  void write(final byte[] state) {
+    waitPendingWrite();
+    pendingWrite = executor.submit(new Runnable() {
+      public void run() {
+        writeFile(state);
+      }
+    });
+  }
+
+  /*
+   * Espera a última gravação. Com completed, a simulação terminou e o
+   * checkpoint e o diário são apagados.
+   */
+  void finish(boolean completed) {
+    try {
+      waitPendingWrite();
+    } finally {
+      executor.shutdown();
+      try {
+        journal.close();
+      } catch(IOException e) {
+        e.printStackTrace();
+      }
+    }
+    if(completed) {
+      checkpointFile.delete();
+      journalFile.delete();
+    }
+  }
+
+  private void waitPendingWrite() {
+    if(pendingWrite == null)
+      return;
+    try {
+      pendingWrite.get();
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Gravação de checkpoint interrompida.");
+    } catch(ExecutionException e) {
+      throw new RuntimeException("Falha ao gravar checkpoint: "
+        + e.getCause().getMessage());
+    } finally {
+      pendingWrite = null;
+    }
+  }
+
+  private void writeFile(byte[] state) {
+    File temporary = new File(checkpointFile.getPath() + ".tmp");
+    try {
+      // O diário precisa estar no disco antes do checkpoint que o cobre
+      journalOutput.getFD().sync();
+      FileOutputStream output = new FileOutputStream(temporary);
+      try {
+        output.write(state);
+        output.getFD().sync();
+      } finally {
+        output.close();
+      }
+    } catch(IOException e) {
+      throw new RuntimeException(e.getMessage());
+    }
+    if(!temporary.renameTo(checkpointFile)) {
+      checkpointFile.delete();
+      if(!temporary.renameTo(checkpointFile))
+        throw new RuntimeException("Não foi possível substituir o checkpoint "
+          + checkpointFile);
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package simulator.simulation;
+
+/*
+ *  Why a request was rejected: by the mapper after its allocation attempts,
+ * or by the admission precheck, which proves without mapping that the request
+ * cannot fit the substrate as it is.
+ */
+public enum RejectionReason {
+  MAPPING_FAILED,
+  // Algum nó virtual pede mais que a maior capacidade restante
+  NODE_TOO_LARGE,
+  // Os nós virtuais pedem mais que a capacidade restante de toda a rede
+  NOT_ENOUGH_CAPACITY,
+  // Nenhum nó físico capaz tem banda suficiente ao redor para algum nó virtual
+  NOT_ENOUGH_BANDWIDTH
+}
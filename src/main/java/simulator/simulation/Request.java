@@ -85,4 +85,22 @@ public class Request {
   public int getAmountLinks() {
     return virtualLinks.size();
   }
+
+  // Soma das capacidades dos nós virtuais
+  public double getNodesCapacity() {
+    double capacity = 0;
+    for(VirtualNode virtualNode : virtualNodes.values())
+      capacity += virtualNode.getCapacity();
+
+    return capacity;
+  }
+
+  // Soma das larguras de banda dos enlaces virtuais
+  public double getLinksBandwidth() {
+    double bandwidth = 0;
+    for(VirtualLink virtualLink : virtualLinks.values())
+      bandwidth += virtualLink.getBandwidthCapacity();
+
+    return bandwidth;
+  }
 }
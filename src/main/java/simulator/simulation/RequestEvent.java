@@ -34,14 +34,22 @@ public class RequestEvent implements Comparable<RequestEvent> {
     return this.type == DEPARTURE_EVENT;
   }
 
+  /*
+   * Ordem por tempo; no mesmo tempo, saídas antes de chegadas (liberando
+   * recursos antes de novas alocações) e, por fim, pelo id da requisição.
+   */
   @Override
   public int compareTo(RequestEvent requestEvent) {
-    if(this.time < requestEvent.time)
-      return -1;
-    else if(this.time > requestEvent.time)
-      return 1;
-    else
-      return 0;
+    if(this.time != requestEvent.time)
+      return (this.time < requestEvent.time ? -1 : 1);
+    if(this.type != requestEvent.type)
+      return (this.type == DEPARTURE_EVENT ? -1 : 1);
+    int id = this.request.getId();
+    int otherId = requestEvent.request.getId();
+    if(id != otherId)
+      return (id < otherId ? -1 : 1);
+
+    return 0;
   }
 
   @Override
@@ -0,0 +1,220 @@
+package simulator.simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.PriorityQueue;
+
+/*
+ *  Event queue specialized for integer times. Events of the next window of
+ * times are kept in a ring of buckets, one per time, so adding and removing
+ * them costs constant amortized time; a bitmap skips the empty buckets.
+ * Events beyond the window wait in a heap and move into the ring once, when
+ * the window reaches them. Events of the same time come out in the order of
+ * RequestEvent.compareTo: departures first, then by request id.
+ */
+public class RequestEventQueue {
+  private static final int DEFAULT_WINDOW = 1 << 12;
+
+  private Bucket[] buckets;
+  private long[] occupied;
+  private int mask;
+  private int base;
+  private int lastTime;
+  private boolean started;
+  private int ringSize;
+  private PriorityQueue<RequestEvent> overflow;
+
+  public RequestEventQueue() {
+    this(DEFAULT_WINDOW);
+  }
+
+  /*
+   * window é arredondado para a próxima potência de dois.
+   */
+  public RequestEventQueue(int window) {
+    int length = 64;
+    while(length < window)
+      length <<= 1;
+    buckets = new Bucket[length];
+    occupied = new long[length >>> 6];
+    mask = length - 1;
+    base = 0;
+    ringSize = 0;
+    started = false;
+    overflow = new PriorityQueue<RequestEvent>();
+  }
+
+  public int size() {
+    return ringSize + overflow.size();
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  // Eventos na fila, sem ordem definida
+  public ArrayList<RequestEvent> getEvents() {
+    ArrayList<RequestEvent> events = new ArrayList<RequestEvent>(size());
+    for(Bucket bucket : buckets) {
+      if(bucket != null)
+        bucket.collect(events);
+    }
+    events.addAll(overflow);
+
+    return events;
+  }
+
+  public void add(RequestEvent event) {
+    int time = event.getTime();
+    if(started && time < lastTime)
+      throw new RuntimeException("Evento anterior ao último retirado da fila.");
+    if(isEmpty())
+      base = time;
+    else if(time < base)
+      rebase(time);
+    if(inWindow(time))
+      addToRing(event);
+    else
+      overflow.add(event);
+  }
+
+  /*
+   * Retira o próximo evento, ou null se a fila está vazia.
+   */
+  public RequestEvent poll() {
+    if(isEmpty())
+      return null;
+    advanceToNext();
+    Bucket bucket = buckets[base & mask];
+    RequestEvent event = bucket.poll();
+    ringSize--;
+    if(bucket.isEmpty())
+      clear(base & mask);
+    started = true;
+    lastTime = event.getTime();
+
+    return event;
+  }
+
+  /*
+   * Próximo evento, sem retirá-lo, ou null se a fila está vazia.
+   */
+  public RequestEvent peek() {
+    if(isEmpty())
+      return null;
+    advanceToNext();
+
+    return buckets[base & mask].peek();
+  }
+
+  private void advanceToNext() {
+    if(ringSize == 0)
+      advanceTo(overflow.peek().getTime());
+    else
+      advanceTo(nextOccupiedTime());
+  }
+
+  private boolean inWindow(int time) {
+    return (long) time - base <= mask;
+  }
+
+  private void addToRing(RequestEvent event) {
+    int slot = event.getTime() & mask;
+    Bucket bucket = buckets[slot];
+    if(bucket == null) {
+      bucket = new Bucket();
+      buckets[slot] = bucket;
+    }
+    bucket.add(event);
+    occupied[slot >>> 6] |= 1L << slot;
+    ringSize++;
+  }
+
+  private void clear(int slot) {
+    occupied[slot >>> 6] &= ~(1L << slot);
+  }
+
+  // Tempo do primeiro balde ocupado a partir de base, dando a volta no anel
+  private int nextOccupiedTime() {
+    int start = base & mask;
+    int word = start >>> 6;
+    long bits = occupied[word] & (-1L << start);
+    while(bits == 0) {
+      word = (word + 1) & (occupied.length - 1);
+      bits = occupied[word];
+    }
+    int slot = (word << 6) + Long.numberOfTrailingZeros(bits);
+
+    return base + ((slot - start) & mask);
+  }
+
+  // Move a janela para começar em time, trazendo os eventos que passam a caber
+  private void advanceTo(int time) {
+    base = time;
+    while(!overflow.isEmpty() && inWindow(overflow.peek().getTime()))
+      addToRing(overflow.poll());
+  }
+
+  // Evento anterior à janela antes do início: os do anel voltam para o heap
+  private void rebase(int time) {
+    for(int slot = 0; slot < buckets.length; slot++) {
+      Bucket bucket = buckets[slot];
+      while(bucket != null && !bucket.isEmpty())
+        overflow.add(bucket.poll());
+      clear(slot);
+    }
+    ringSize = 0;
+    advanceTo(time);
+  }
+
+  /*
+   * Eventos de um mesmo tempo. São ordenados só quando o primeiro deles é
+   * retirado; os que chegam depois disso entram na posição certa.
+   */
+  private static class Bucket {
+    private ArrayList<RequestEvent> events = new ArrayList<RequestEvent>();
+    private int next;
+    private boolean sorted;
+
+    void add(RequestEvent event) {
+      if(!sorted) {
+        events.add(event);
+        return;
+      }
+      int position = Collections.binarySearch(
+        events.subList(next, events.size()), event);
+      if(position < 0)
+        position = -position - 1;
+      events.add(next + position, event);
+    }
+
+    RequestEvent peek() {
+      if(!sorted) {
+        Collections.sort(events);
+        sorted = true;
+      }
+
+      return events.get(next);
+    }
+
+    RequestEvent poll() {
+      RequestEvent event = peek();
+      events.set(next++, null);
+      if(next == events.size()) {
+        events.clear();
+        next = 0;
+        sorted = false;
+      }
+
+      return event;
+    }
+
+    boolean isEmpty() {
+      return next == events.size();
+    }
+
+    void collect(ArrayList<RequestEvent> collected) {
+      collected.addAll(events.subList(next, events.size()));
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package simulator.simulation;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import simulator.mapping.Mapping;
+
+/*
+ *  What is left of a request once it has been served: whether it was
+ * accepted and, if so, the availability, node sharing rate and number of
+ * physical components of its mapping. Holds no reference to the request or
+ * mapping, so these can be collected.
+ */
+public class RequestOutcome {
+  private int requestId;
+  private int arrivalTime;
+  private int departureTime;
+  private boolean accepted;
+  private double availability;
+  private double nodeSharingRate;
+  private int physicalNodes;
+  private int physicalLinks;
+  private RejectionReason rejectionReason;
+
+  // Requisição rejeitada pelo mapeador
+  public RequestOutcome(Request request) {
+    this(request, RejectionReason.MAPPING_FAILED);
+  }
+
+  public RequestOutcome(Request request, RejectionReason rejectionReason) {
+    requestId = request.getId();
+    arrivalTime = request.getCreationTime();
+    departureTime = request.getDepartureTime();
+    accepted = false;
+    this.rejectionReason = rejectionReason;
+  }
+
+  /*
+   * Requisição aceita; deve ser criado antes de o mapeamento ser desfeito.
+   */
+  public RequestOutcome(Request request, Mapping mapping) {
+    this(request, (RejectionReason) null);
+    accepted = true;
+    availability = mapping.getAvailability().doubleValue();
+    nodeSharingRate = mapping.getNodeSharingRate(request.getAmountNodes());
+    physicalNodes = mapping.getPhysicalNodesInUse();
+    physicalLinks = mapping.getPhysicalLinksInUse();
+  }
+
+  private RequestOutcome() {
+  }
+
+  // Formato binário usado no diário de checkpoints da simulação
+  void write(DataOutputStream out) throws IOException {
+    out.writeInt(requestId);
+    out.writeInt(arrivalTime);
+    out.writeInt(departureTime);
+    out.writeBoolean(accepted);
+    out.writeDouble(availability);
+    out.writeDouble(nodeSharingRate);
+    out.writeInt(physicalNodes);
+    out.writeInt(physicalLinks);
+    out.writeByte(rejectionReason == null ? -1 : rejectionReason.ordinal());
+  }
+
+  static RequestOutcome read(DataInputStream in) throws IOException {
+    RequestOutcome outcome = new RequestOutcome();
+    outcome.requestId = in.readInt();
+    outcome.arrivalTime = in.readInt();
+    outcome.departureTime = in.readInt();
+    outcome.accepted = in.readBoolean();
+    outcome.availability = in.readDouble();
+    outcome.nodeSharingRate = in.readDouble();
+    outcome.physicalNodes = in.readInt();
+    outcome.physicalLinks = in.readInt();
+    byte reason = in.readByte();
+    if(reason >= 0)
+      outcome.rejectionReason = RejectionReason.values()[reason];
+
+    return outcome;
+  }
+
+  public int getRequestId() {
+    return requestId;
+  }
+
+  public int getArrivalTime() {
+    return arrivalTime;
+  }
+
+  public int getDepartureTime() {
+    return departureTime;
+  }
+
+  public boolean isAccepted() {
+    return accepted;
+  }
+
+  public double getAvailability() {
+    return availability;
+  }
+
+  public double getNodeSharingRate() {
+    return nodeSharingRate;
+  }
+
+  public int getPhysicalNodes() {
+    return physicalNodes;
+  }
+
+  public int getPhysicalLinks() {
+    return physicalLinks;
+  }
+
+  // null se a requisição foi aceita
+  public RejectionReason getRejectionReason() {
+    return rejectionReason;
+  }
+}
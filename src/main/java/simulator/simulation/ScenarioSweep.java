@@ -0,0 +1,180 @@
+package simulator.simulation;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import generator.util.RandomContext;
+
+import simulator.io.IVNMPReaderFactory;
+import simulator.mapping.IMapper;
+import simulator.mapping.IMapperFactory;
+
+/*
+ *  Simulates every instance of a scenario with every mapper configuration,
+ * one job per pair, on a fixed pool of threads. Jobs start from the largest
+ * instance so the long ones do not end up running alone at the end. Each job
+ * reads its own substrate and builds its own mapper from a random context
+ * derived from the instance and configuration names, so its results do not
+ * depend on the number of threads or on the order jobs are run.
+ */
+public class ScenarioSweep {
+  private String outputDirectory;
+  private IVNMPReaderFactory readerFactory;
+  private RandomContext context;
+  private ArrayList<File> instances;
+  private ArrayList<String> configurationNames;
+  private ArrayList<IMapperFactory> configurations;
+
+  public ScenarioSweep(String outputDirectory, IVNMPReaderFactory readerFactory,
+                       RandomContext context) {
+    this.outputDirectory = outputDirectory;
+    this.readerFactory = readerFactory;
+    this.context = context;
+    instances = new ArrayList<File>();
+    configurationNames = new ArrayList<String>();
+    configurations = new ArrayList<IMapperFactory>();
+  }
+
+  public void addInstance(File instance) {
+    instances.add(instance);
+  }
+
+  /*
+   * Adiciona os arquivos de cada subdiretório de baseDirectory, organização
+   * usada pelos conjuntos de VNMPs.
+   */
+  public void addInstances(File baseDirectory) {
+    File[] problemsDirs = baseDirectory.listFiles();
+    if(problemsDirs == null)
+      throw new RuntimeException("Diretório de instâncias não encontrado: "
+        + baseDirectory);
+    Arrays.sort(problemsDirs);
+    for(File problemsDir : problemsDirs) {
+      File[] problemFiles = problemsDir.listFiles();
+      if(problemFiles == null)
+        continue;
+      Arrays.sort(problemFiles);
+      for(File problemFile : problemFiles)
+        addInstance(problemFile);
+    }
+  }
+
+  /*
+   * Configuração de nome vazio não acrescenta prefixo ao nome das simulações.
+   */
+  public void addConfiguration(String name, IMapperFactory mapperFactory) {
+    configurationNames.add(name);
+    configurations.add(mapperFactory);
+  }
+
+  public ArrayList<SweepResult> run() {
+    return run(Runtime.getRuntime().availableProcessors());
+  }
+
+  /*
+   * Executa todos os trabalhos e retorna seus resultados, do maior para o
+   * menor. A falha de um trabalho é registrada no seu resultado e não
+   * interrompe os demais.
+   */
+  public ArrayList<SweepResult> run(int threads) {
+    ArrayList<SweepJob> jobs = new ArrayList<SweepJob>();
+    for(File instance : instances) {
+      for(int i = 0; i < configurations.size(); i++)
+        jobs.add(new SweepJob(instance, configurationNames.get(i),
+          configurations.get(i)));
+    }
+    Collections.sort(jobs, new Comparator<SweepJob>() {
+      public int compare(SweepJob job, SweepJob otherJob) {
+        if(job.size != otherJob.size)
+          return (job.size > otherJob.size ? -1 : 1);
+
+        return job.simulationName.compareTo(otherJob.simulationName);
+      }
+    });
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+    ArrayList<SweepResult> results = new ArrayList<SweepResult>();
+    try {
+      ArrayList<Future<SweepResult>> futures = new ArrayList<Future<SweepResult>>();
+      for(SweepJob job : jobs)
+        futures.add(executor.submit(job));
+      for(Future<SweepResult> future : futures)
+        results.add(future.get());
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Varredura interrompida.", e);
+    } catch(ExecutionException e) {
+      throw new RuntimeException("Falha em trabalho da varredura.", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    return results;
+  }
+
+  private String getSimulationName(File instance, String configuration) {
+    String instanceName = instance.getName();
+    if(instanceName.endsWith(".txt"))
+      instanceName = instanceName.substring(0, instanceName.length() - 4);
+    if(configuration.length() > 0)
+      instanceName = configuration + "_" + instanceName;
+
+    return outputDirectory + instanceName;
+  }
+
+  private class SweepJob implements Callable<SweepResult> {
+    private File instance;
+    private String configuration;
+    private IMapperFactory mapperFactory;
+    private String simulationName;
+    private long size;
+
+    SweepJob(File instance, String configuration, IMapperFactory mapperFactory) {
+      this.instance = instance;
+      this.configuration = configuration;
+      this.mapperFactory = mapperFactory;
+      simulationName = getSimulationName(instance, configuration);
+      size = instance.length();
+    }
+
+    public SweepResult call() {
+      // Chave independente de caminho absoluto: diretório do problema e arquivo
+      File problemsDir = instance.getParentFile();
+      String key = (problemsDir == null ? "" : problemsDir.getName() + "/")
+        + instance.getName();
+      RandomContext jobContext = context.derive(key).derive(configuration);
+      long startTime = System.currentTimeMillis();
+      RuntimeException failure = null;
+      try {
+        Simulation simulation = new Simulation(simulationName,
+          readerFactory.createReader(instance, jobContext));
+        IMapper mapper = mapperFactory.createMapper(jobContext);
+        try {
+          simulation.simulate(mapper);
+        } finally {
+          // Libera as threads de um mapeador com construções paralelas
+          if(mapper instanceof Closeable)
+            ((Closeable) mapper).close();
+        }
+      } catch(RuntimeException e) {
+        failure = e;
+      } catch(IOException e) {
+        failure = new RuntimeException("Falha ao fechar mapeador: "
+          + e.getMessage());
+      }
+
+      return new SweepResult(instance, configuration, simulationName,
+        System.currentTimeMillis() - startTime, failure);
+    }
+  }
+}
@@ -1,69 +1,622 @@
 package simulator.simulation;
 
-
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.PriorityQueue;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 
+import simulator.io.ICheckpointable;
+import simulator.io.AsyncTracer;
+import simulator.io.BinaryTracer;
+import simulator.io.IRequestSource;
+import simulator.io.ITracer;
+import simulator.io.SamplingTracer;
 import simulator.io.IVNMPReader;
 import simulator.io.Tracer;
+import simulator.io.WindowedTracer;
 import simulator.mapping.IMapper;
+import simulator.mapping.IMapperSession;
 import simulator.mapping.Mapping;
+import simulator.mapping.RepeatedMapperSession;
 import simulator.network.SubstrateNetwork;
+import simulator.network.SubstrateTopology;
+import simulator.network.components.physical.PhysicalLink;
+import simulator.network.components.physical.PhysicalNode;
+import simulator.network.components.virtual.VirtualLink;
+import simulator.network.components.virtual.VirtualNode;
 
 public class Simulation {
   private String name;
-  private PriorityQueue<RequestEvent> requestEvents;
+  private RequestEventQueue requestEvents;
+  private IRequestSource requestSource;
+  private int pendingArrivals;
   private SubstrateNetwork substrateNetwork;
   private HashMap<Request, Mapping> mappings;
+  private ArrayList<RequestOutcome> outcomes;
+  private boolean retainDepartedMappings;
+  private AdmissionPolicy admissionPolicy;
+  private AdmissionPrecheck admissionPrecheck;
+  private boolean binaryTrace;
+  private boolean asyncTrace;
+  private int traceSampling;
+  private int traceWindow;
+  private int consumedRequests;
+  private String checkpointFileName;
+  private int checkpointInterval;
+  private CheckpointWriter checkpointWriter;
   private final int MAX_ALLOCATION_TRIES = 8;
+  private static final int CHECKPOINT_MAGIC = 0x5653434b;
+  private static final int CHECKPOINT_VERSION = 3;
+  private static final String TRACE_WINDOW_CONFLICT = "Rastro por janelas não "
+    + "combina com amostragem nem com rastro binário ou assíncrono.";
 
   public Simulation(String simulationName, IVNMPReader reader) {
+    this(simulationName, reader.getSubstrateNetwork(), reader.getRequestSource());
+  }
+
+  /*
+   * As requisições são retiradas de requestSource à medida que o tempo
+   * simulado avança, e não todas de antemão.
+   */
+  public Simulation(String simulationName, SubstrateNetwork substrateNetwork,
+                    IRequestSource requestSource) {
     name = simulationName;
-    requestEvents = new PriorityQueue<RequestEvent>();
+    requestEvents = new RequestEventQueue();
     mappings = new HashMap<Request, Mapping>();
-    substrateNetwork = reader.getSubstrateNetwork();
-    ArrayList<Request> virtualRequests = reader.getVirtualNetworkRequests();
-    for(Request request : virtualRequests) {
-      requestEvents.add(new RequestEvent(request, request.getCreationTime(),
-                                         RequestEvent.ARRIVAL_EVENT));
-    }
+    outcomes = new ArrayList<RequestOutcome>();
+    retainDepartedMappings = true;
+    admissionPolicy = AdmissionPolicy.ARRIVAL_ORDER;
+    this.substrateNetwork = substrateNetwork;
+    this.requestSource = requestSource;
+    enqueueNextArrivals();
+  }
+
+  /*
+   * Com retain falso, o mapeamento de uma requisição é descartado na sua
+   * saída e apenas seu RequestOutcome é guardado, de modo que a memória
+   * acompanha as requisições ativas e não o total de requisições.
+   */
+  public void setRetainDepartedMappings(boolean retain) {
+    retainDepartedMappings = retain;
+  }
+
+  public void setAdmissionPolicy(AdmissionPolicy policy) {
+    admissionPolicy = policy;
+  }
+
+  /*
+   * Com binary, o rastro é gravado por BinaryTracer em <nome>_simulation.bin,
+   * em vez de texto em <nome>_simulation.txt.
+   */
+  public void setBinaryTrace(boolean binary) {
+    if(binary)
+      checkNoTraceWindow();
+    binaryTrace = binary;
+  }
+
+  /*
+   * Com async, o rastro é escrito por uma thread própria, via AsyncTracer,
+   * fora do laço de eventos.
+   */
+  public void setAsyncTrace(boolean async) {
+    if(async)
+      checkNoTraceWindow();
+    asyncTrace = async;
+  }
+
+  /*
+   * Com interval maior que um, só o primeiro evento e cada interval-ésimo
+   * depois dele vão para o rastro, via SamplingTracer. Um, o padrão, rastreia
+   * todos os eventos.
+   */
+  public void setTraceSampling(int interval) {
+    if(interval <= 0)
+      throw new RuntimeException("Intervalo de amostragem deve ser positivo.");
+    if(interval > 1)
+      checkNoTraceWindow();
+    traceSampling = interval;
+  }
+
+  /*
+   * Com window positiva, o rastro tem uma linha de agregados por janela de
+   * window unidades de tempo simulado, via WindowedTracer, em
+   * <nome>_windows.txt. Não combina com amostragem nem com rastro binário
+   * ou assíncrono: configurar uns com os outros falha. Zero, o padrão, volta
+   * ao rastro por evento.
+   */
+  public void setTraceWindow(int window) {
+    if(window < 0)
+      throw new RuntimeException("Janela de tempo não pode ser negativa.");
+    if(window > 0 && (traceSampling > 1 || binaryTrace || asyncTrace))
+      throw new RuntimeException(TRACE_WINDOW_CONFLICT);
+    traceWindow = window;
+  }
+
+  private void checkNoTraceWindow() {
+    if(traceWindow > 0)
+      throw new RuntimeException(TRACE_WINDOW_CONFLICT);
+  }
+
+  public String getTraceFileName() {
+    if(traceWindow > 0)
+      return name + "_windows.txt";
+
+    return name + (binaryTrace ? "_simulation.bin" : "_simulation.txt");
+  }
+
+  /*
+   * Requisições que o precheck prova não caberem na rede são rejeitadas sem
+   * chamar o mapeador. null, o padrão, desliga a verificação.
+   */
+  public void setAdmissionPrecheck(AdmissionPrecheck precheck) {
+    admissionPrecheck = precheck;
+  }
+
+  /*
+   * A cada interval eventos, o estado da simulação -- fila de eventos, cargas
+   * da rede substrato, mapeamentos ativos, estado do mapeador e posição do
+   * rastro -- é gravado em fileName, de onde resume continua uma execução
+   * interrompida. Os resultados das requisições vão para fileName.outcomes à
+   * medida que saem. Os dois arquivos são apagados quando a simulação termina.
+   */
+  public void setCheckpoint(String fileName, int interval) {
+    if(interval <= 0)
+      throw new RuntimeException("Intervalo de checkpoint deve ser positivo.");
+    checkpointFileName = fileName;
+    checkpointInterval = interval;
   }
 
   public void simulate(IMapper mapper) {
-    Tracer tracer = new Tracer(name + "_simulation.txt");
-    long startTime = System.currentTimeMillis();
+    if(checkpointFileName != null) {
+      new File(checkpointFileName).delete();
+      checkpointWriter = new CheckpointWriter(checkpointFileName, 0);
+    }
+    run(mapper, openTracer(-1), System.nanoTime());
+  }
+
+  /*
+   * Continua a simulação do último checkpoint gravado, ou a começa se não há
+   * um, com o mesmo resultado de uma execução sem interrupção. Esta simulação
+   * deve ter sido criada como a interrompida, com a rede ainda sem carga, e o
+   * mapeador deve ser do mesmo tipo e configuração.
+   */
+  public void resume(IMapper mapper) {
+    if(checkpointFileName == null)
+      throw new RuntimeException("Checkpoint não configurado.");
+    File checkpointFile = new File(checkpointFileName);
+    if(!checkpointFile.exists()) {
+      simulate(mapper);
+      return;
+    }
+    long[] positions;
+    ITracer tracer = null;
+    try {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(
+        new FileInputStream(checkpointFile)));
+      try {
+        positions = restore(in, mapper);
+        if(new File(getTraceFileName()).length() < positions[1])
+          throw new RuntimeException("Rastro menor que o registrado no checkpoint.");
+        tracer = openTracer(positions[1]);
+        // O estado do rastro vem por último, depois de aberto o arquivo
+        if(in.readBoolean() != (tracer instanceof ICheckpointable))
+          throw new RuntimeException("Checkpoint gravado com outro rastro.");
+        if(tracer instanceof ICheckpointable)
+          ((ICheckpointable) tracer).readCheckpoint(in);
+      } finally {
+        in.close();
+      }
+    } catch(IOException e) {
+      if(tracer != null)
+        tracer.close();
+      throw new RuntimeException("Checkpoint ilegível: " + checkpointFileName);
+    } catch(RuntimeException e) {
+      if(tracer != null)
+        tracer.close();
+      throw e;
+    }
+    checkpointWriter = new CheckpointWriter(checkpointFileName, positions[2]);
+    run(mapper, tracer, System.nanoTime() - positions[0]);
+  }
 
+  /*
+   * Abre o rastro configurado, truncado em position numa retomada ou novo
+   * com position negativa.
+   */
+  private ITracer openTracer(long position) {
+    String traceFileName = getTraceFileName();
+    if(traceWindow > 0) {
+      Tracer tracer = (position < 0 ? new Tracer(traceFileName) :
+        new Tracer(traceFileName, position));
+      return new WindowedTracer(tracer, traceWindow);
+    }
+    ITracer tracer;
+    if(binaryTrace)
+      tracer = (position < 0 ? new BinaryTracer(traceFileName, name) :
+        new BinaryTracer(traceFileName, position));
+    else
+      tracer = (position < 0 ? new Tracer(traceFileName) :
+        new Tracer(traceFileName, position));
+    if(asyncTrace)
+      tracer = new AsyncTracer(tracer);
+    // Amostrar antes da fila assíncrona poupa também a cópia dos registros
+    if(traceSampling > 1)
+      tracer = new SamplingTracer(tracer, traceSampling);
+
+    return tracer;
+  }
+
+  private void run(IMapper mapper, ITracer tracer, long startTime) {
+    boolean completed = false;
+    try {
+      processEvents(mapper, tracer, startTime);
+      completed = true;
+    } finally {
+      // também numa falha, para não deixar a thread de um AsyncTracer viva
+      tracer.close();
+      if(checkpointWriter != null) {
+        checkpointWriter.finish(completed);
+        checkpointWriter = null;
+      }
+    }
+  }
+
+  private void processEvents(IMapper mapper, ITracer tracer, long startTime) {
+    int processedEvents = 0;
     while(!requestEvents.isEmpty()) {
-      RequestEvent currentRequestEvent = requestEvents.poll();
-      Request currentRequest = currentRequestEvent.getRequest();
-      if(currentRequestEvent.isArrivalEvent()) { // arrival event
-        int triesCounter = 0;
-        while(!mappings.containsKey(currentRequest)
-              && triesCounter < MAX_ALLOCATION_TRIES) {
-          Mapping requestMapping = mapper.map(currentRequest, substrateNetwork);
-          if(requestMapping != null) {
-            mappings.put(currentRequest, requestMapping);
-            // cria evento de saída
-            requestEvents.add(new RequestEvent(currentRequest,
-                                               currentRequest.getDepartureTime(),
-                                               RequestEvent.DEPARTURE_EVENT));
-          }
-          triesCounter++;
+      ArrayList<RequestEvent> currentEvents = pollNextEvents();
+      for(RequestEvent currentRequestEvent : currentEvents)
+        processEvent(currentRequestEvent, mapper, tracer);
+      // checkpoints só entre lotes
+      int previousEvents = processedEvents;
+      processedEvents += currentEvents.size();
+      if(checkpointWriter != null && !requestEvents.isEmpty()
+         && processedEvents / checkpointInterval
+            > previousEvents / checkpointInterval)
+        checkpoint(mapper, tracer, startTime);
+    }
+    // Milissegundos arredondados para cima: execução curta não registra zero
+    tracer.traceExecutionTime((System.nanoTime() - startTime + 999999) / 1000000);
+  }
+
+  /*
+   * Próximo evento da fila. Fora de ARRIVAL_ORDER, uma chegada vem com as
+   * demais do seu tempo, na ordem da política de admissão.
+   */
+  private ArrayList<RequestEvent> pollNextEvents() {
+    ArrayList<RequestEvent> events = new ArrayList<RequestEvent>();
+    RequestEvent event = pollEvent();
+    events.add(event);
+    if(admissionPolicy == AdmissionPolicy.ARRIVAL_ORDER || !event.isArrivalEvent())
+      return events;
+    while(!requestEvents.isEmpty() && requestEvents.peek().isArrivalEvent()
+          && requestEvents.peek().getTime() == event.getTime())
+      events.add(pollEvent());
+    Collections.sort(events, new Comparator<RequestEvent>() {
+      public int compare(RequestEvent event, RequestEvent otherEvent) {
+        int order = admissionPolicy.compare(event.getRequest(),
+          otherEvent.getRequest());
+
+        return (order != 0 ? order : event.compareTo(otherEvent));
+      }
+    });
+
+    return events;
+  }
+
+  private RequestEvent pollEvent() {
+    RequestEvent event = requestEvents.poll();
+    if(event.isArrivalEvent() && --pendingArrivals == 0)
+      enqueueNextArrivals();
+
+    return event;
+  }
+
+  private void processEvent(RequestEvent currentRequestEvent, IMapper mapper,
+                            ITracer tracer) {
+    Request currentRequest = currentRequestEvent.getRequest();
+    RequestOutcome outcome = null;
+    if(currentRequestEvent.isArrivalEvent()) { // arrival event
+      RejectionReason rejection = (admissionPrecheck == null ? null :
+        admissionPrecheck.check(currentRequest, substrateNetwork));
+      // as tentativas de uma requisição compartilham o estado da busca
+      IMapperSession session = RepeatedMapperSession.open(mapper,
+        currentRequest, substrateNetwork);
+      int triesCounter = 0;
+      while(rejection == null && !mappings.containsKey(currentRequest)
+            && triesCounter < MAX_ALLOCATION_TRIES) {
+        Mapping requestMapping = session.map();
+        if(requestMapping != null) {
+          mappings.put(currentRequest, requestMapping);
+          // calculada uma vez, na aceitação: o rastro só lê a guardada
+          requestMapping.getAvailability();
+          // cria evento de saída
+          requestEvents.add(new RequestEvent(currentRequest,
+                                             currentRequest.getDepartureTime(),
+                                             RequestEvent.DEPARTURE_EVENT));
         }
-      } else { // departure event
-        mappings.get(currentRequest).clearMappings();
+        triesCounter++;
+      }
+      session.close();
+      if(!mappings.containsKey(currentRequest))
+        outcome = new RequestOutcome(currentRequest, (rejection == null ?
+          RejectionReason.MAPPING_FAILED : rejection));
+    } else { // departure event
+      Mapping requestMapping = mappings.get(currentRequest);
+      outcome = new RequestOutcome(currentRequest, requestMapping);
+      requestMapping.clearMappings();
+    }
+    tracer.trace(substrateNetwork, mappings, currentRequestEvent);
+    if(outcome != null) {
+      outcomes.add(outcome);
+      if(checkpointWriter != null)
+        checkpointWriter.appendOutcome(outcome);
+      if(!retainDepartedMappings)
+        mappings.remove(currentRequest);
+    }
+  }
+
+  /*
+   * Agenda as chegadas do próximo tempo de criação da fonte. As do tempo
+   * seguinte só entram na fila quando todas estas tiverem sido retiradas.
+   */
+  private void enqueueNextArrivals() {
+    if(!requestSource.hasNext())
+      return;
+    int creationTime = requestSource.peek().getCreationTime();
+    while(requestSource.hasNext()
+          && requestSource.peek().getCreationTime() == creationTime) {
+      Request request = requestSource.next();
+      consumedRequests++;
+      requestEvents.add(new RequestEvent(request, creationTime,
+                                         RequestEvent.ARRIVAL_EVENT));
+      pendingArrivals++;
+    }
+  }
+
+  /*
+   * Grava o estado entre dois eventos. Os resultados já saíram no diário; o
+   * resto é proporcional às requisições ativas.
+   */
+  private void checkpoint(IMapper mapper, ITracer tracer, long startTime) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    try {
+      out.writeInt(CHECKPOINT_MAGIC);
+      out.writeInt(CHECKPOINT_VERSION);
+      out.writeUTF(name);
+      out.writeLong(System.nanoTime() - startTime);
+      out.writeLong(tracer.getPosition());
+      out.writeLong(checkpointWriter.getJournalLength());
+      out.writeInt(outcomes.size());
+      out.writeInt(consumedRequests);
+      out.writeInt(pendingArrivals);
+
+      ArrayList<RequestEvent> events = requestEvents.getEvents();
+      out.writeInt(events.size());
+      for(RequestEvent event : events) {
+        out.writeInt(event.getRequest().getId());
+        out.writeInt(event.getTime());
+        out.writeInt(event.getType());
+      }
+      // Requisições com saída pendente são as que têm mapeamento ativo
+      SubstrateTopology topology = substrateNetwork.getTopology();
+      for(RequestEvent event : events) {
+        if(event.isDepartureEvent())
+          writeMapping(out, mappings.get(event.getRequest()));
+      }
+
+      out.writeInt(topology.getAmountNodes());
+      for(int node = 0; node < topology.getAmountNodes(); node++)
+        out.writeDouble(topology.getNode(node).getLoad());
+      out.writeInt(topology.getAmountLinks());
+      for(int link = 0; link < topology.getAmountLinks(); link++)
+        out.writeDouble(topology.getLink(link).getBandwidthLoad());
+
+      out.writeBoolean(mapper instanceof ICheckpointable);
+      if(mapper instanceof ICheckpointable)
+        ((ICheckpointable) mapper).writeCheckpoint(out);
+      out.writeBoolean(tracer instanceof ICheckpointable);
+      if(tracer instanceof ICheckpointable)
+        ((ICheckpointable) tracer).writeCheckpoint(out);
+      out.close();
+    } catch(IOException e) {
+      throw new RuntimeException("Falha ao montar checkpoint: " + e.getMessage());
+    }
+    checkpointWriter.write(bytes.toByteArray());
+  }
+
+  private void writeMapping(DataOutputStream out, Mapping mapping)
+    throws IOException {
+    ArrayList<VirtualNode> virtualNodes = mapping.getMappedVirtualNodes();
+    out.writeInt(virtualNodes.size());
+    for(VirtualNode virtualNode : virtualNodes) {
+      out.writeInt(virtualNode.getId());
+      out.writeInt(mapping.getHostingNodeFor(virtualNode).getIndex());
+    }
+    ArrayList<VirtualLink> virtualLinks = mapping.getMappedVirtualLinks();
+    out.writeInt(virtualLinks.size());
+    for(VirtualLink virtualLink : virtualLinks) {
+      ArrayList<PhysicalLink> physicalLinks =
+        mapping.getHostingLinksFor(virtualLink);
+      out.writeUTF(virtualLink.getId());
+      out.writeInt(physicalLinks.size());
+      for(PhysicalLink physicalLink : physicalLinks)
+        out.writeInt(physicalLink.getIndex());
+    }
+  }
+
+  /*
+   * Recoloca a simulação no estado gravado por checkpoint. Retorna o tempo
+   * decorrido até ali e as posições do rastro e do diário.
+   */
+  private long[] restore(DataInputStream in, IMapper mapper) throws IOException {
+    if(in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION)
+      throw new RuntimeException("Arquivo não é um checkpoint de simulação.");
+    if(!in.readUTF().equals(name))
+      throw new RuntimeException("Checkpoint pertence a outra simulação.");
+    long[] positions = { in.readLong(), in.readLong(), in.readLong() };
+    int amountOutcomes = in.readInt();
+    int savedConsumedRequests = in.readInt();
+    int savedPendingArrivals = in.readInt();
+    readOutcomes(amountOutcomes, positions[2]);
+
+    int amountEvents = in.readInt();
+    int[][] savedEvents = new int[amountEvents][];
+    HashSet<Integer> neededIds = new HashSet<Integer>();
+    for(int i = 0; i < amountEvents; i++) {
+      savedEvents[i] = new int[] { in.readInt(), in.readInt(), in.readInt() };
+      neededIds.add(savedEvents[i][0]);
+    }
+    if(retainDepartedMappings) {
+      for(RequestOutcome outcome : outcomes) {
+        if(outcome.isAccepted())
+          neededIds.add(outcome.getRequestId());
+      }
+    }
+    HashMap<Integer, Request> requests = skipRequests(savedConsumedRequests,
+      neededIds);
+    pendingArrivals = savedPendingArrivals;
+
+    // Mapeamentos refeitos na ordem original, reservando os recursos de novo
+    SubstrateTopology topology = substrateNetwork.getTopology();
+    for(int[] savedEvent : savedEvents) {
+      Request request = requests.get(savedEvent[0]);
+      requestEvents.add(new RequestEvent(request, savedEvent[1], savedEvent[2]));
+      if(savedEvent[2] == RequestEvent.DEPARTURE_EVENT)
+        mappings.put(request, readMapping(in, request, topology));
+    }
+    if(retainDepartedMappings) {
+      for(RequestOutcome outcome : outcomes) {
+        if(outcome.isAccepted())
+          mappings.put(requests.get(outcome.getRequestId()), new Mapping());
       }
-      tracer.trace(substrateNetwork, mappings, currentRequestEvent);
     }
-    tracer.println(System.currentTimeMillis() - startTime);
-    tracer.close();
+
+    restoreLoads(in, topology);
+    if(in.readBoolean() != (mapper instanceof ICheckpointable))
+      throw new RuntimeException("Checkpoint gravado com outro mapeador.");
+    if(mapper instanceof ICheckpointable)
+      ((ICheckpointable) mapper).readCheckpoint(in);
+
+    return positions;
+  }
+
+  private void readOutcomes(int amountOutcomes, long journalLength)
+    throws IOException {
+    File journalFile = CheckpointWriter.getJournalFile(checkpointFileName);
+    if(journalFile.length() < journalLength)
+      throw new RuntimeException("Diário de checkpoint incompleto.");
+    DataInputStream journal = new DataInputStream(new BufferedInputStream(
+      new FileInputStream(journalFile)));
+    try {
+      for(int i = 0; i < amountOutcomes; i++)
+        outcomes.add(RequestOutcome.read(journal));
+    } finally {
+      journal.close();
+    }
+  }
+
+  /*
+   * Descarta a fila montada pelo construtor e avança a fonte até onde a
+   * simulação interrompida estava, guardando as requisições de neededIds.
+   */
+  private HashMap<Integer, Request> skipRequests(int savedConsumedRequests,
+                                                 HashSet<Integer> neededIds) {
+    HashMap<Integer, Request> requests = new HashMap<Integer, Request>();
+    ArrayList<Request> consumed = new ArrayList<Request>();
+    while(!requestEvents.isEmpty())
+      consumed.add(requestEvents.poll().getRequest());
+    requestEvents = new RequestEventQueue();
+    while(consumedRequests < savedConsumedRequests) {
+      if(!requestSource.hasNext())
+        throw new RuntimeException("Fonte com menos requisições que o checkpoint.");
+      Request request = requestSource.next();
+      consumedRequests++;
+      if(neededIds.contains(request.getId()))
+        consumed.add(request);
+    }
+    for(Request request : consumed) {
+      if(neededIds.contains(request.getId())
+         && requests.put(request.getId(), request) != null)
+        throw new RuntimeException("Identificador de requisição repetido: "
+          + request.getId());
+    }
+    if(requests.size() != neededIds.size())
+      throw new RuntimeException("Requisições do checkpoint ausentes da fonte.");
+
+    return requests;
+  }
+
+  private Mapping readMapping(DataInputStream in, Request request,
+                              SubstrateTopology topology) throws IOException {
+    Mapping mapping = new Mapping();
+    int amountNodes = in.readInt();
+    for(int i = 0; i < amountNodes; i++) {
+      VirtualNode virtualNode = request.getVirtualNodes().get(in.readInt());
+      PhysicalNode physicalNode = topology.getNode(in.readInt());
+      if(virtualNode == null)
+        throw new RuntimeException("Nó virtual do checkpoint ausente da requisição.");
+      mapping.addNodeMapping(virtualNode, physicalNode);
+    }
+    int amountLinks = in.readInt();
+    for(int i = 0; i < amountLinks; i++) {
+      VirtualLink virtualLink = request.getVirtualLinks().get(in.readUTF());
+      if(virtualLink == null)
+        throw new RuntimeException(
+          "Enlace virtual do checkpoint ausente da requisição.");
+      ArrayList<PhysicalLink> physicalLinks = new ArrayList<PhysicalLink>();
+      int amountPhysicalLinks = in.readInt();
+      for(int j = 0; j < amountPhysicalLinks; j++)
+        physicalLinks.add(topology.getLink(in.readInt()));
+      mapping.addLinkMapping(virtualLink, physicalLinks);
+    }
+
+    return mapping;
+  }
+
+  /*
+   * Cargas de nós somadas em outra ordem podem diferir no último bit das da
+   * execução original, então recebem o valor gravado. As de enlaces são
+   * exatas e só são conferidas.
+   */
+  private void restoreLoads(DataInputStream in, SubstrateTopology topology)
+    throws IOException {
+    if(in.readInt() != topology.getAmountNodes())
+      throw new RuntimeException("Checkpoint gravado com outra rede substrato.");
+    for(int node = 0; node < topology.getAmountNodes(); node++) {
+      PhysicalNode physicalNode = topology.getNode(node);
+      double load = in.readDouble();
+      if(physicalNode.getLoad() != load) {
+        physicalNode.removeLoad(physicalNode.getLoad());
+        physicalNode.addLoad(load);
+      }
+    }
+    if(in.readInt() != topology.getAmountLinks())
+      throw new RuntimeException("Checkpoint gravado com outra rede substrato.");
+    for(int link = 0; link < topology.getAmountLinks(); link++) {
+      if(topology.getLink(link).getBandwidthLoad() != in.readDouble())
+        throw new RuntimeException("Carga de enlace difere da do checkpoint.");
+    }
   }
 
   public HashMap<Request, Mapping> getMappings() {
     return this.mappings;
   }
 
+  // Resultado de cada requisição já rejeitada ou que já deixou a rede
+  public ArrayList<RequestOutcome> getOutcomes() {
+    return outcomes;
+  }
+
   public String getName() {
     return name;
   }
@@ -0,0 +1,54 @@
+package simulator.simulation;
+
+import java.io.File;
+
+/*
+ *  Outcome of one (instance, mapper configuration) simulation of a sweep.
+ */
+public class SweepResult {
+  private File instance;
+  private String configuration;
+  private String simulationName;
+  private long wallTime;
+  private RuntimeException failure;
+
+  public SweepResult(File instance, String configuration, String simulationName,
+                     long wallTime, RuntimeException failure) {
+    this.instance = instance;
+    this.configuration = configuration;
+    this.simulationName = simulationName;
+    this.wallTime = wallTime;
+    this.failure = failure;
+  }
+
+  public File getInstance() {
+    return instance;
+  }
+
+  public String getConfiguration() {
+    return configuration;
+  }
+
+  public String getSimulationName() {
+    return simulationName;
+  }
+
+  // Tempo de parede da leitura e simulação, em milissegundos
+  public long getWallTime() {
+    return wallTime;
+  }
+
+  public RuntimeException getFailure() {
+    return failure;
+  }
+
+  public boolean isSuccessful() {
+    return failure == null;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s %s %d ms%s", simulationName, instance.getPath(),
+      wallTime, (failure == null ? "" : " falhou: " + failure));
+  }
+}
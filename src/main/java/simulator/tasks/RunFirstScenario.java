@@ -1,12 +1,17 @@
 package simulator.tasks;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.HashMap;
 
+import generator.util.RandomContext;
+
+import simulator.io.IVNMPReader;
+import simulator.io.IVNMPReaderFactory;
 import simulator.io.OptFIVNMPReader;
 import simulator.mapping.GraspMapper;
-import simulator.simulation.Simulation;
+import simulator.mapping.IMapper;
+import simulator.mapping.IMapperFactory;
+import simulator.simulation.ScenarioSweep;
+import simulator.simulation.SweepResult;
 
 /*
  * Primeiro cenário: apenas simulação de eventos discretos -- sem Software Aging,
@@ -17,16 +22,21 @@ public class RunFirstScenario {
   public static void main(String[] args) {
     File baseDir = new File("/media/embs/Data/VNMP_Instances/");
     String outDir = "/media/embs/Data/VirtuaSimulationSharingNodesOptFIVNMPs/";
-    for(File problemsDir : baseDir.listFiles()) {
-      for(File problemFile : problemsDir.listFiles()) {
-        String filename = problemFile.getAbsolutePath();
-        OptFIVNMPReader reader = new OptFIVNMPReader(filename);
-        Simulation simulation = new Simulation(outDir + problemFile.getName(),
-          reader);
-        GraspMapper mapper = new GraspMapper();
+    ScenarioSweep sweep = new ScenarioSweep(outDir, new IVNMPReaderFactory() {
+      public IVNMPReader createReader(File instance, RandomContext context) {
+        return new OptFIVNMPReader(instance.getAbsolutePath(), context);
+      }
+    }, new RandomContext(1337));
+    sweep.addInstances(baseDir);
+    sweep.addConfiguration("", new IMapperFactory() {
+      public IMapper createMapper(RandomContext context) {
+        GraspMapper mapper = new GraspMapper(context);
         mapper.allowNodeSharing();
-        simulation.simulate(mapper);
+        return mapper;
       }
+    });
+    for(SweepResult result : sweep.run()) {
+      System.out.println(result);
     }
   }
 }
@@ -1,12 +1,17 @@
 package simulator.tasks;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.HashMap;
 
+import generator.util.RandomContext;
+
+import simulator.io.IVNMPReader;
+import simulator.io.IVNMPReaderFactory;
 import simulator.io.VirtuaVNMPReader;
 import simulator.mapping.GraspMapper;
-import simulator.simulation.Simulation;
+import simulator.mapping.IMapper;
+import simulator.mapping.IMapperFactory;
+import simulator.simulation.ScenarioSweep;
+import simulator.simulation.SweepResult;
 
 /*
  *  Segundo cenário: levando em conta desalocações no tempo e software aging.
@@ -16,16 +21,21 @@ public class RunSecondScenario {
   public static void main(String[] args) {
     File baseDir = new File("/media/embs/Data/VirtuaVNMPs/");
     String outDir = "/media/embs/Data/VirtuaSimulationVirtuaVNMPs/";
-    for(File problemsDir : baseDir.listFiles()) {
-      for(File problemFile : problemsDir.listFiles()) {
-        String filename = problemFile.getAbsolutePath();
-        VirtuaVNMPReader reader = new VirtuaVNMPReader(filename);
-        Simulation simulation = new Simulation(outDir + problemFile.getName().split(".txt")[0],
-          reader);
-        GraspMapper mapper = new GraspMapper();
+    ScenarioSweep sweep = new ScenarioSweep(outDir, new IVNMPReaderFactory() {
+      public IVNMPReader createReader(File instance, RandomContext context) {
+        return new VirtuaVNMPReader(instance.getAbsolutePath(), context);
+      }
+    }, new RandomContext(1337));
+    sweep.addInstances(baseDir);
+    sweep.addConfiguration("", new IMapperFactory() {
+      public IMapper createMapper(RandomContext context) {
+        GraspMapper mapper = new GraspMapper(context);
         // mapper.allowNodeSharing();
-        simulation.simulate(mapper);
+        return mapper;
       }
+    });
+    for(SweepResult result : sweep.run()) {
+      System.out.println(result);
     }
   }
 }
@@ -1,6 +1,7 @@
 package simulator.tasks;
 
 import java.util.HashMap;
+import java.util.Map;
 
 import simulator.io.ViNEYardVNMPReader;
 import simulator.mapping.GraspMapper;
@@ -11,8 +12,13 @@ public class RunViNEYardInstance {
     ViNEYardVNMPReader reader = new ViNEYardVNMPReader(
       "/home/embs/Code/vine-yard/sub-50.txt",
       "/home/embs/Code/vine-yard/r-2000-50-50-20-10-5-25");
+    for(Map.Entry<String, String> failure : reader.getLoadFailures().entrySet())
+      System.err.println("Requisição ignorada: " + failure.getKey() + ": "
+        + failure.getValue());
     Simulation simulation = new Simulation("vine_yard_instance", reader);
     GraspMapper mapper = new GraspMapper();
-    simulation.simulate(mapper);
+    // Uma execução interrompida continua do último checkpoint
+    simulation.setCheckpoint("vine_yard_instance.checkpoint", 1000);
+    simulation.resume(mapper);
   }
 }
@@ -0,0 +1,54 @@
+package simulator.util;
+
+import java.math.BigDecimal;
+
+import simulator.network.components.Dependable;
+
+/*
+ *  How availabilities are compared while mapping. EXACT multiplies BigDecimals
+ * as before; LOG_SPACE compares the precomputed sums of logarithms without
+ * allocating; VALIDATED does both and fails when they disagree by more than
+ * Config.availabilityTolerance. Each GraspMapper has its own mode; the
+ * substrate orders its nodes by exact availability whatever the mode.
+ */
+public enum AvailabilityMode {
+  EXACT {
+    public int compare(Dependable dependable, Dependable otherDependable) {
+      return dependable.getAvailability().compareTo(
+        otherDependable.getAvailability());
+    }
+  },
+
+  LOG_SPACE {
+    public int compare(Dependable dependable, Dependable otherDependable) {
+      return Double.compare(dependable.getLogAvailability(),
+        otherDependable.getLogAvailability());
+    }
+  },
+
+  VALIDATED {
+    public int compare(Dependable dependable, Dependable otherDependable) {
+      BigDecimal availability = validate(dependable);
+      BigDecimal otherAvailability = validate(otherDependable);
+
+      return availability.compareTo(otherAvailability);
+    }
+  };
+
+  public abstract int compare(Dependable dependable, Dependable otherDependable);
+
+  /*
+   * Retorna a disponibilidade exata, verificando-a contra a soma de logaritmos.
+   */
+  private static BigDecimal validate(Dependable dependable) {
+    BigDecimal availability = dependable.getAvailability();
+    double difference = Math.exp(dependable.getLogAvailability())
+      - availability.doubleValue();
+    if(Math.abs(difference) > Config.availabilityTolerance)
+      throw new RuntimeException(String.format(
+        "Disponibilidade em log-espaço diverge da exata: %s != %s.",
+        Math.exp(dependable.getLogAvailability()), availability));
+
+    return availability;
+  }
+}
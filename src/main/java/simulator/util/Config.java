@@ -22,6 +22,7 @@ public class Config {
   public static boolean allowNodeSharing = false;
   public static boolean considerIntermediaryNodes = true;
   public static boolean softwareAgingScenario = false;
+  public static double availabilityTolerance = 1e-8;
 
   // Técnicas de mapeamento de redes virtuais FIXME têm de estar consistentes com os nomes de arquivos abaixo
   public static final int GRASP = 0;
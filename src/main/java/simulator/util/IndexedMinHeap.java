@@ -0,0 +1,116 @@
+package simulator.util;
+
+import java.util.Arrays;
+
+/*
+ *  Binary min-heap over the integers [0, capacity) keyed by double values,
+ * supporting decrease-key. Buffers are allocated once and reused after clear().
+ */
+public class IndexedMinHeap {
+  private int[] heap;
+  private int[] positions;
+  private double[] keys;
+  private int size;
+
+  public IndexedMinHeap(int capacity) {
+    heap = new int[capacity];
+    positions = new int[capacity];
+    keys = new double[capacity];
+    Arrays.fill(positions, -1);
+  }
+
+  public int capacity() {
+    return heap.length;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean contains(int item) {
+    return positions[item] >= 0;
+  }
+
+  public double getKey(int item) {
+    return keys[item];
+  }
+
+  /*
+   * Insere o item ou diminui sua chave; chaves maiores que a atual são
+   * ignoradas.
+   */
+  public void insertOrDecrease(int item, double key) {
+    int position = positions[item];
+    if(position < 0) {
+      position = size++;
+      heap[position] = item;
+      positions[item] = position;
+      keys[item] = key;
+      siftUp(position);
+    } else if(key < keys[item]) {
+      keys[item] = key;
+      siftUp(position);
+    }
+  }
+
+  public int peek() {
+    return heap[0];
+  }
+
+  public int poll() {
+    int min = heap[0];
+    positions[min] = -1;
+    size--;
+    if(size > 0) {
+      heap[0] = heap[size];
+      positions[heap[0]] = 0;
+      siftDown(0);
+    }
+
+    return min;
+  }
+
+  public void clear() {
+    for(int i = 0; i < size; i++)
+      positions[heap[i]] = -1;
+    size = 0;
+  }
+
+  private void siftUp(int position) {
+    int item = heap[position];
+    double key = keys[item];
+    while(position > 0) {
+      int parent = (position - 1) >>> 1;
+      if(keys[heap[parent]] <= key)
+        break;
+      heap[position] = heap[parent];
+      positions[heap[position]] = position;
+      position = parent;
+    }
+    heap[position] = item;
+    positions[item] = position;
+  }
+
+  private void siftDown(int position) {
+    int item = heap[position];
+    double key = keys[item];
+    int half = size >>> 1;
+    while(position < half) {
+      int child = 2 * position + 1;
+      int right = child + 1;
+      if(right < size && keys[heap[right]] < keys[heap[child]])
+        child = right;
+      if(key <= keys[heap[child]])
+        break;
+      heap[position] = heap[child];
+      positions[heap[position]] = position;
+      position = child;
+    }
+    heap[position] = item;
+    positions[item] = position;
+  }
+}
@@ -0,0 +1,87 @@
+package simulator.util;
+
+import java.util.Arrays;
+
+/*
+ *  Segment tree over the positions [0, size) holding double values. Keeps the
+ * maximum of every segment, so the overall maximum is read in constant time,
+ * a value is changed in logarithmic time and the positions whose values pass
+ * a threshold are listed visiting only the segments that contain some of them.
+ */
+public class MaxSegmentTree {
+  private int size;
+  private int leaves;
+  private double[] maximums;
+
+  public MaxSegmentTree(double[] values) {
+    size = values.length;
+    leaves = 1;
+    while(leaves < size)
+      leaves <<= 1;
+    maximums = new double[2 * leaves];
+    Arrays.fill(maximums, Double.NEGATIVE_INFINITY);
+    System.arraycopy(values, 0, maximums, leaves, size);
+    for(int i = leaves - 1; i > 0; i--)
+      maximums[i] = Math.max(maximums[2 * i], maximums[2 * i + 1]);
+  }
+
+  public MaxSegmentTree(MaxSegmentTree tree) {
+    size = tree.size;
+    leaves = tree.leaves;
+    maximums = tree.maximums.clone();
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public double get(int position) {
+    return maximums[leaves + position];
+  }
+
+  public void set(int position, double value) {
+    int i = leaves + position;
+    maximums[i] = value;
+    for(i >>>= 1; i > 0; i >>>= 1) {
+      double maximum = Math.max(maximums[2 * i], maximums[2 * i + 1]);
+      if(maximums[i] == maximum)
+        break;
+      maximums[i] = maximum;
+    }
+  }
+
+  /*
+   * Maior valor da árvore, ou infinito negativo se ela é vazia.
+   */
+  public double max() {
+    return maximums[1];
+  }
+
+  /*
+   * Preenche positions, em ordem crescente, com as posições de valor maior ou
+   * igual a value. Retorna quantas foram encontradas.
+   */
+  public int collectAtLeast(double value, int[] positions) {
+    return collect(1, value, false, positions, 0);
+  }
+
+  /*
+   * Como collectAtLeast, para valores estritamente maiores que value.
+   */
+  public int collectGreaterThan(double value, int[] positions) {
+    return collect(1, value, true, positions, 0);
+  }
+
+  private int collect(int i, double value, boolean strict, int[] positions,
+                      int amount) {
+    if(size == 0 || maximums[i] < value || (strict && maximums[i] == value))
+      return amount;
+    if(i >= leaves) {
+      positions[amount] = i - leaves;
+      return amount + 1;
+    }
+    amount = collect(2 * i, value, strict, positions, amount);
+
+    return collect(2 * i + 1, value, strict, positions, amount);
+  }
+}
@@ -0,0 +1,58 @@
+package generator.util;
+
+import junit.framework.TestCase;
+
+import generator.dependability.AvailabilityGenerator;
+
+public class RandomContextTest extends TestCase {
+
+  private RandomContext context;
+
+  public void setUp() {
+    context = new RandomContext(42);
+  }
+
+  public void testSameSeedGivesSameNumbers() {
+    RandomContext otherContext = new RandomContext(42);
+    for(int i = 0; i < 10; i++) {
+      assertEquals(context.getRandomizer().nextInt(1000),
+        otherContext.getRandomizer().nextInt(1000));
+    }
+    assertEquals(context.newRandom().nextLong(),
+      otherContext.newRandom().nextLong());
+  }
+
+  public void testDeriveIsDeterministic() {
+    assertEquals(context.derive("job").getSeed(),
+      context.derive("job").getSeed());
+    assertEquals(context.derive(3).getSeed(), context.derive(3).getSeed());
+  }
+
+  public void testDerivedContextsAreIndependent() {
+    assertFalse(context.derive("a").getSeed() == context.derive("b").getSeed());
+    assertFalse(context.derive(1).getSeed() == context.derive(2).getSeed());
+    assertFalse(context.derive(0).getSeed() == context.getSeed());
+  }
+
+  public void testCollidingStringHashesGiveDifferentContexts() {
+    assertEquals("Aa".hashCode(), "BB".hashCode());
+    assertFalse(context.derive("Aa").getSeed() == context.derive("BB").getSeed());
+    assertFalse(context.derive("AaAa").getSeed()
+      == context.derive("BBBB").getSeed());
+    assertFalse(context.derive("").getSeed() == context.derive("\0").getSeed());
+  }
+
+  public void testGetRandomizerReturnsSameInstance() {
+    assertSame(context.getRandomizer(), context.getRandomizer());
+  }
+
+  public void testAvailabilitiesDoNotDependOnOtherContexts() {
+    AvailabilityGenerator generator = context.getAvailabilityGenerator();
+    new RandomContext(42).derive("other").getAvailabilityGenerator().
+      generateMachineAvailability();
+    AvailabilityGenerator.getInstance().generateMachineAvailability();
+    assertEquals(0, new RandomContext(42).getAvailabilityGenerator().
+      generateMachineAvailability().compareTo(
+        generator.generateMachineAvailability()));
+  }
+}
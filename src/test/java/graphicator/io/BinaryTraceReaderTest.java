@@ -0,0 +1,80 @@
+package graphicator.io;
+
+import java.io.File;
+import java.util.HashMap;
+
+import junit.framework.TestCase;
+
+import generator.network.SubstrateNetworkGenerator;
+import generator.network.VirtualNetworksGenerator;
+
+import simulator.io.BinaryTracer;
+import simulator.mapping.Mapping;
+import simulator.network.SubstrateNetwork;
+import simulator.simulation.Request;
+import simulator.simulation.RequestEvent;
+
+public class BinaryTraceReaderTest extends TestCase {
+
+  private final String TRACE_FILE_NAME = "binary_trace_reader.bin";
+  private BinaryTraceReader reader;
+  private SubstrateNetwork network;
+
+  public void setUp() {
+    network = new SubstrateNetworkGenerator().generate(10);
+    Request request =
+      new VirtualNetworksGenerator().generateVirtualNetworks(1).get(0);
+    BinaryTracer tracer = new BinaryTracer(TRACE_FILE_NAME, "run");
+    HashMap<Request, Mapping> mappings = new HashMap<Request, Mapping>();
+    tracer.trace(network, mappings, new RequestEvent(request, 3,
+      RequestEvent.ARRIVAL_EVENT));
+    mappings.put(request, new Mapping());
+    tracer.trace(network, mappings, new RequestEvent(request, 9,
+      RequestEvent.DEPARTURE_EVENT));
+    tracer.traceExecutionTime(1500);
+    tracer.close();
+    reader = new BinaryTraceReader(TRACE_FILE_NAME);
+  }
+
+  public void tearDown() {
+    new File(TRACE_FILE_NAME).delete();
+  }
+
+  public void testHeader() {
+    assertEquals("run", reader.getRunName());
+    assertEquals(1500, reader.getExecutionTime());
+    assertEquals(2, reader.getAmountRecords());
+    assertEquals(13, reader.getColumnNames().length);
+    assertTrue(BinaryTraceReader.isBinaryTrace(TRACE_FILE_NAME));
+  }
+
+  public void testReadColumns() {
+    int time = reader.getColumnIndex("time");
+    int type = reader.getColumnIndex("type");
+    int accepted = reader.getColumnIndex("accepted");
+    assertEquals(3, reader.getInt(0, time));
+    assertEquals(9, reader.getInt(1, time));
+    assertEquals(RequestEvent.DEPARTURE_EVENT, reader.getInt(1, type));
+    assertEquals(0, reader.getInt(0, accepted));
+    assertEquals(1, reader.getInt(1, accepted));
+    assertEquals(network.getAverageNodesLoad(),
+      reader.getDouble(0, reader.getColumnIndex("averageNodesLoad")));
+    assertEquals(9.0, reader.getDouble(1, time));
+  }
+
+  public void testInexistentColumn() {
+    try {
+      reader.getColumnIndex("eita");
+      fail("Missing column should not be found.");
+    } catch(RuntimeException e) {
+      assertTrue(e.getMessage().contains("eita"));
+    }
+  }
+
+  public void testTraceMetricsFromBinaryFile() {
+    HashMap<String, Object> metrics =
+      new VirtuaSimulatorTraceReader().readTrace(TRACE_FILE_NAME);
+    assertEquals(0, metrics.get("acceptedRequests"));
+    assertEquals(1.5, metrics.get("executionTime"));
+  }
+}
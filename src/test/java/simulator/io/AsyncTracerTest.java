@@ -0,0 +1,140 @@
+package simulator.io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import junit.framework.TestCase;
+
+import generator.network.SubstrateNetworkGenerator;
+import generator.network.VirtualNetworksGenerator;
+
+import simulator.mapping.Mapping;
+import simulator.network.SubstrateNetwork;
+import simulator.network.components.physical.PhysicalNode;
+import simulator.network.components.virtual.VirtualNode;
+import simulator.simulation.Request;
+import simulator.simulation.RequestEvent;
+
+public class AsyncTracerTest extends TestCase {
+
+  private SubstrateNetwork network;
+  private HashMap<Request, Mapping> mappings;
+  private ArrayList<Request> requests;
+  private final String SYNC_FILE_NAME = "sync_trace.txt";
+  private final String ASYNC_FILE_NAME = "async_trace.txt";
+
+  protected void setUp() {
+    network = new SubstrateNetworkGenerator().generate(10);
+    mappings = new HashMap<Request, Mapping>();
+    requests = new VirtualNetworksGenerator().generateVirtualNetworks(20);
+  }
+
+  protected void tearDown() {
+    new File(SYNC_FILE_NAME).delete();
+    new File(ASYNC_FILE_NAME).delete();
+  }
+
+  public void testWritesSameLinesAsTracer() throws Exception {
+    Tracer tracer = new Tracer(SYNC_FILE_NAME);
+    // Anel menor que o número de eventos: a simulação precisa esperar
+    AsyncTracer asyncTracer = new AsyncTracer(new Tracer(ASYNC_FILE_NAME), 4);
+    for(int i = 0; i < 5; i++) {
+      for(Request request : requests) {
+        RequestEvent event = new RequestEvent(request, request.getCreationTime(),
+          RequestEvent.ARRIVAL_EVENT);
+        tracer.trace(network, mappings, event);
+        asyncTracer.trace(network, mappings, event);
+      }
+    }
+    tracer.traceExecutionTime(7);
+    asyncTracer.traceExecutionTime(7);
+    tracer.close();
+    asyncTracer.close();
+
+    ArrayList<String> lines = readLines(SYNC_FILE_NAME);
+    assertEquals(5 * requests.size() + 1, lines.size());
+    assertEquals(lines, readLines(ASYNC_FILE_NAME));
+  }
+
+  public void testPositionIncludesPublishedRecords() {
+    AsyncTracer asyncTracer = new AsyncTracer(new Tracer(ASYNC_FILE_NAME));
+    Request request = requests.get(0);
+    asyncTracer.trace(network, mappings, new RequestEvent(request, 0,
+      RequestEvent.ARRIVAL_EVENT));
+    assertTrue(asyncTracer.getPosition() > 0);
+    asyncTracer.close();
+    assertEquals(ASYNC_FILE_NAME, asyncTracer.getOutputFileName());
+  }
+
+  public void testTraceAllocatesNothing() {
+    com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    if(!threads.isThreadAllocatedMemorySupported())
+      return;
+    threads.setThreadAllocatedMemoryEnabled(true);
+    Request accepted = requests.get(0);
+    Mapping mapping = new Mapping();
+    ArrayList<PhysicalNode> physicalNodes =
+      new ArrayList<PhysicalNode>(network.getHashNodes().values());
+    int i = 0;
+    for(VirtualNode virtualNode : accepted.getVirtualNodes().values())
+      mapping.addNodeMapping(virtualNode, physicalNodes.get(i++ % 3));
+    mappings.put(accepted, mapping);
+    mapping.getAvailability();
+    RequestEvent[] events = { new RequestEvent(accepted,
+      accepted.getCreationTime(), RequestEvent.ARRIVAL_EVENT),
+      new RequestEvent(accepted, accepted.getDepartureTime(),
+      RequestEvent.DEPARTURE_EVENT), new RequestEvent(requests.get(1),
+      requests.get(1).getCreationTime(), RequestEvent.ARRIVAL_EVENT) };
+    PhysicalNode changingNode = physicalNodes.get(5);
+    AsyncTracer asyncTracer = new AsyncTracer(new Tracer(ASYNC_FILE_NAME), 4);
+    // Aquecimento primeiro, para medir o código já compilado
+    traceMeasuringAllocation(asyncTracer, threads, events, changingNode, 20000);
+    // Uma desotimização do JIT pode alocar uma vez; só alocar sempre falha
+    long allocated = -1;
+    for(int round = 0; round < 3 && allocated != 0; round++)
+      allocated = traceMeasuringAllocation(asyncTracer, threads, events,
+        changingNode, 1000);
+    asyncTracer.close();
+    assertEquals(0, allocated);
+  }
+
+  // Bytes alocados por amount chamadas de trace(), descontada a medição
+  private long traceMeasuringAllocation(AsyncTracer asyncTracer,
+                                        com.sun.management.ThreadMXBean threads,
+                                        RequestEvent[] events,
+                                        PhysicalNode changingNode, int amount) {
+    long threadId = Thread.currentThread().getId();
+    long allocated = 0;
+    for(int event = 0; event < amount; event++) {
+      // Carga alterada: as estatísticas são recalculadas dentro de trace()
+      if(event % 2 == 0)
+        changingNode.addLoad(1);
+      else
+        changingNode.removeLoad(1);
+      long overheadStart = threads.getThreadAllocatedBytes(threadId);
+      long overheadEnd = threads.getThreadAllocatedBytes(threadId);
+      long start = threads.getThreadAllocatedBytes(threadId);
+      asyncTracer.trace(network, mappings, events[event % events.length]);
+      long end = threads.getThreadAllocatedBytes(threadId);
+      allocated += (end - start) - (overheadEnd - overheadStart);
+    }
+
+    return allocated;
+  }
+
+  private ArrayList<String> readLines(String fileName) throws Exception {
+    BufferedReader reader = new BufferedReader(new FileReader(fileName));
+    ArrayList<String> lines = new ArrayList<String>();
+    String line;
+    while((line = reader.readLine()) != null)
+      lines.add(line);
+    reader.close();
+
+    return lines;
+  }
+}
@@ -0,0 +1,73 @@
+package simulator.io;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.HashMap;
+
+import junit.framework.TestCase;
+
+import generator.network.SubstrateNetworkGenerator;
+import generator.network.VirtualNetworksGenerator;
+
+import simulator.mapping.Mapping;
+import simulator.network.SubstrateNetwork;
+import simulator.simulation.Request;
+import simulator.simulation.RequestEvent;
+
+public class BinaryTracerTest extends TestCase {
+
+  private BinaryTracer tracer;
+  private SubstrateNetwork network;
+  private HashMap<Request, Mapping> mappings;
+  private RequestEvent requestEvent;
+  private final String OUTPUT_FILE_NAME = "simulation_trace.bin";
+  private final int RECORD_LENGTH = 84;
+
+  protected void setUp() {
+    tracer = new BinaryTracer(OUTPUT_FILE_NAME, "binary");
+    network = new SubstrateNetworkGenerator().generate(10);
+    mappings = new HashMap<Request, Mapping>();
+    Request request =
+      new VirtualNetworksGenerator().generateVirtualNetworks(1).get(0);
+    requestEvent = new RequestEvent(request, request.getCreationTime(),
+      RequestEvent.ARRIVAL_EVENT);
+  }
+
+  protected void tearDown() {
+    new File(OUTPUT_FILE_NAME).delete();
+  }
+
+  public void testHeaderAndFixedWidthRecords() throws Exception {
+    long headerLength = tracer.getPosition();
+    tracer.trace(network, mappings, requestEvent);
+    tracer.trace(network, mappings, requestEvent);
+    tracer.traceExecutionTime(42);
+    tracer.close();
+
+    File outputFile = new File(OUTPUT_FILE_NAME);
+    assertEquals(headerLength + 2 * RECORD_LENGTH, outputFile.length());
+    DataInputStream in = new DataInputStream(new FileInputStream(outputFile));
+    assertEquals(BinaryTracer.MAGIC, in.readInt());
+    assertEquals(BinaryTracer.VERSION, in.readInt());
+    assertEquals(headerLength, in.readInt());
+    assertEquals(RECORD_LENGTH, in.readInt());
+    in.readLong();
+    assertEquals(42, in.readLong());
+    assertEquals("binary", in.readUTF());
+    in.close();
+  }
+
+  public void testResumeTruncatesAtPosition() {
+    tracer.trace(network, mappings, requestEvent);
+    long position = tracer.getPosition();
+    tracer.trace(network, mappings, requestEvent);
+    tracer.close();
+
+    tracer = new BinaryTracer(OUTPUT_FILE_NAME, position);
+    assertEquals(position, tracer.getPosition());
+    tracer.trace(network, mappings, requestEvent);
+    tracer.close();
+    assertEquals(position + RECORD_LENGTH, new File(OUTPUT_FILE_NAME).length());
+  }
+}
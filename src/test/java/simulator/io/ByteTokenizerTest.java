@@ -0,0 +1,79 @@
+package simulator.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+public class ByteTokenizerTest extends TestCase {
+
+  private final String INPUT_FILE_NAME = "tokenizer_input.txt";
+
+  protected void tearDown() {
+    new File(INPUT_FILE_NAME).delete();
+  }
+
+  public void testReadsIntsAndSkipsLines() throws Exception {
+    ByteTokenizer tokenizer = tokenizerFor("# header\r\n12 -7 ignored\n\n+3\n");
+    tokenizer.skipLine();
+    assertEquals(12, tokenizer.nextInt());
+    assertEquals(-7, tokenizer.nextInt());
+    tokenizer.skipLine();
+    assertEquals(3, tokenizer.nextInt());
+    tokenizer.skipLine();
+    assertFalse(tokenizer.hasNext());
+  }
+
+  public void testDoublesMatchDoubleValueOf() throws Exception {
+    String[] values = { "59.65992978474482", "98.87434819166769", "0", "-0.0",
+      "10", "0.1", "1e22", "1e23", "2.5E-3", "123456789012345678901234",
+      "4.9e-324", "1.7976931348623157e308", "0.30000000000000004", "7." };
+    StringBuilder text = new StringBuilder();
+    for(String value : values)
+      text.append(value).append(' ');
+    ByteTokenizer tokenizer = tokenizerFor(text.toString());
+    for(String value : values)
+      assertEquals(Double.valueOf(value), Double.valueOf(tokenizer.nextDouble()));
+  }
+
+  public void testSkipPastLine() throws Exception {
+    ByteTokenizer tokenizer = tokenizerFor("a\n#Virtual Graph x\n#Virtual Graph\r\n5\n");
+    assertTrue(tokenizer.skipPastLine("#Virtual Graph"));
+    assertEquals(5, tokenizer.nextInt());
+    tokenizer.skipLine();
+    assertFalse(tokenizer.skipPastLine("#Virtual Graph"));
+  }
+
+  public void testInvalidIntegerReportsLine() throws Exception {
+    ByteTokenizer tokenizer = tokenizerFor("1\n2.5\n");
+    tokenizer.nextInt();
+    try {
+      tokenizer.nextInt();
+      fail("2.5 is not an integer.");
+    } catch(RuntimeException e) {
+      assertTrue(e.getMessage().endsWith("linha 2"));
+    }
+  }
+
+  public void testReadsAcrossBufferRefills() throws Exception {
+    StringBuilder text = new StringBuilder();
+    for(int i = 0; i < 50000; i++)
+      text.append(i).append(' ').append(i / 8.0).append('\n');
+    ByteTokenizer tokenizer = tokenizerFor(text.toString());
+    for(int i = 0; i < 50000; i++) {
+      assertEquals(i, tokenizer.nextInt());
+      assertEquals(i / 8.0, tokenizer.nextDouble());
+      tokenizer.skipLine();
+    }
+    assertFalse(tokenizer.hasNext());
+  }
+
+  private ByteTokenizer tokenizerFor(String text) throws IOException {
+    FileOutputStream output = new FileOutputStream(INPUT_FILE_NAME);
+    output.write(text.getBytes("UTF-8"));
+    output.close();
+
+    return new ByteTokenizer(INPUT_FILE_NAME);
+  }
+}
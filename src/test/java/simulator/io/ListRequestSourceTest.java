@@ -0,0 +1,50 @@
+package simulator.io;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+
+import simulator.simulation.Request;
+
+public class ListRequestSourceTest extends TestCase {
+
+  private ListRequestSource source;
+  private ArrayList<Request> requests;
+
+  public void setUp() {
+    requests = new ArrayList<Request>();
+    requests.add(new Request(0, 20, 5));
+    requests.add(new Request(1, 10, 5));
+    requests.add(new Request(2, 20, 5));
+    source = new ListRequestSource(requests);
+  }
+
+  public void testNextInCreationTimeOrder() {
+    assertEquals(1, source.next().getId());
+    assertEquals(0, source.next().getId());
+    assertEquals(2, source.next().getId());
+    assertFalse(source.hasNext());
+  }
+
+  public void testPeekDoesNotConsume() {
+    assertSame(source.peek(), source.peek());
+    assertSame(source.peek(), source.next());
+  }
+
+  public void testDoesNotChangeGivenList() {
+    source.next();
+    assertEquals(3, requests.size());
+    assertEquals(0, requests.get(0).getId());
+  }
+
+  public void testNextWhenExhausted() {
+    for(int i = 0; i < 3; i++)
+      source.next();
+    assertNull(source.peek());
+    try {
+      source.next();
+      fail("An exhausted source should not hand out requests.");
+    } catch(RuntimeException e) {
+    }
+  }
+}
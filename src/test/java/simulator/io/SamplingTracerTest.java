@@ -0,0 +1,103 @@
+package simulator.io;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import junit.framework.TestCase;
+
+import generator.network.SubstrateNetworkGenerator;
+import generator.network.VirtualNetworksGenerator;
+
+import simulator.mapping.Mapping;
+import simulator.network.SubstrateNetwork;
+import simulator.simulation.Request;
+import simulator.simulation.RequestEvent;
+
+public class SamplingTracerTest extends TestCase {
+
+  private SubstrateNetwork network;
+  private HashMap<Request, Mapping> mappings;
+  private ArrayList<Request> requests;
+  private final String OUTPUT_FILE_NAME = "sampled_trace.txt";
+
+  protected void setUp() {
+    network = new SubstrateNetworkGenerator().generate(10);
+    mappings = new HashMap<Request, Mapping>();
+    requests = new VirtualNetworksGenerator().generateVirtualNetworks(10);
+  }
+
+  protected void tearDown() {
+    new File(OUTPUT_FILE_NAME).delete();
+  }
+
+  public void testTracesFirstAndEveryIntervalEvent() throws Exception {
+    SamplingTracer tracer = new SamplingTracer(new Tracer(OUTPUT_FILE_NAME), 4);
+    for(Request request : requests)
+      tracer.trace(network, mappings, arrivalOf(request));
+    tracer.traceExecutionTime(5);
+    tracer.close();
+
+    ArrayList<String> lines = readLines();
+    assertEquals(4, lines.size());
+    assertEquals(requests.get(0).getId(), firstToken(lines.get(0)));
+    assertEquals(requests.get(4).getId(), firstToken(lines.get(1)));
+    assertEquals(requests.get(8).getId(), firstToken(lines.get(2)));
+    assertEquals("5", lines.get(3));
+  }
+
+  public void testCheckpointKeepsTheCount() throws Exception {
+    SamplingTracer tracer = new SamplingTracer(new Tracer(OUTPUT_FILE_NAME), 4);
+    for(int i = 0; i < 3; i++)
+      tracer.trace(network, mappings, arrivalOf(requests.get(i)));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    tracer.writeCheckpoint(new DataOutputStream(bytes));
+    long position = tracer.getPosition();
+    tracer.close();
+
+    tracer = new SamplingTracer(new Tracer(OUTPUT_FILE_NAME, position), 4);
+    tracer.readCheckpoint(new DataInputStream(
+      new ByteArrayInputStream(bytes.toByteArray())));
+    tracer.trace(network, mappings, arrivalOf(requests.get(3)));
+    tracer.trace(network, mappings, arrivalOf(requests.get(4)));
+    tracer.close();
+
+    ArrayList<String> lines = readLines();
+    assertEquals(2, lines.size());
+    assertEquals(requests.get(4).getId(), firstToken(lines.get(1)));
+  }
+
+  public void testRejectsNonPositiveInterval() {
+    try {
+      new SamplingTracer(null, 0);
+      fail("Interval must be positive.");
+    } catch(RuntimeException e) {
+    }
+  }
+
+  private RequestEvent arrivalOf(Request request) {
+    return new RequestEvent(request, request.getCreationTime(),
+      RequestEvent.ARRIVAL_EVENT);
+  }
+
+  private int firstToken(String line) {
+    return Integer.valueOf(line.split(" ")[0]);
+  }
+
+  private ArrayList<String> readLines() throws Exception {
+    BufferedReader reader = new BufferedReader(new FileReader(OUTPUT_FILE_NAME));
+    ArrayList<String> lines = new ArrayList<String>();
+    String line;
+    while((line = reader.readLine()) != null)
+      lines.add(line);
+    reader.close();
+
+    return lines;
+  }
+}
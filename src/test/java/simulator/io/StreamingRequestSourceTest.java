@@ -0,0 +1,70 @@
+package simulator.io;
+
+import junit.framework.TestCase;
+
+import java.util.LinkedList;
+
+import simulator.simulation.Request;
+
+public class StreamingRequestSourceTest extends TestCase {
+
+  private LinkedList<Request> fileRequests;
+  private int readRequests;
+  private IRequestReader reader;
+
+  public void setUp() {
+    fileRequests = new LinkedList<Request>();
+    readRequests = 0;
+    reader = new IRequestReader() {
+      public Request readNextRequest() {
+        if(fileRequests.isEmpty())
+          return null;
+        readRequests++;
+        return fileRequests.removeFirst();
+      }
+    };
+  }
+
+  public void testReadsRequestsOnlyWhenNeeded() {
+    addRequests(new int[] { 1, 2, 3 });
+    StreamingRequestSource source = new StreamingRequestSource(reader, 1);
+    assertEquals(0, readRequests);
+    assertEquals(1, source.next().getCreationTime());
+    assertEquals(1, readRequests);
+    assertEquals(2, source.peek().getCreationTime());
+    assertEquals(2, readRequests);
+  }
+
+  public void testReordersWithinWindow() {
+    addRequests(new int[] { 2, 1, 4, 3, 3 });
+    StreamingRequestSource source = new StreamingRequestSource(reader, 2);
+    int[] expectedIds = { 1, 0, 3, 4, 2 };
+    for(int expectedId : expectedIds)
+      assertEquals(expectedId, source.next().getId());
+    assertFalse(source.hasNext());
+    assertNull(source.peek());
+  }
+
+  public void testRejectsDisorderBeyondWindow() {
+    addRequests(new int[] { 3, 2, 1 });
+    StreamingRequestSource source = new StreamingRequestSource(reader, 2);
+    assertEquals(2, source.next().getCreationTime());
+    try {
+      source.next();
+      fail("A request out of order beyond the window should be rejected.");
+    } catch(RuntimeException e) {
+    }
+  }
+
+  public void testDefaultWindow() {
+    addRequests(new int[] { 5, 1 });
+    StreamingRequestSource source = new StreamingRequestSource(reader);
+    assertEquals(1, source.next().getCreationTime());
+    assertEquals(2, readRequests);
+  }
+
+  private void addRequests(int[] creationTimes) {
+    for(int i = 0; i < creationTimes.length; i++)
+      fileRequests.add(new Request(i, creationTimes[i], 10));
+  }
+}
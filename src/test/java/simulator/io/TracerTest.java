@@ -83,6 +83,15 @@ public class TracerTest extends TestCase {
     }
   }
 
+  public void testResumeOnUnwritablePathFails() {
+    try {
+      new Tracer("missing_directory/trace.txt", 0);
+      fail("Resuming a trace that cannot be opened should fail.");
+    } catch(RuntimeException e) {
+      assertTrue(e.getMessage().startsWith("Falha ao abrir rastro"));
+    }
+  }
+
   private BufferedReader getReaderForFile(String fileName) throws Exception {
     return new BufferedReader(new FileReader(new File(fileName)));
   }
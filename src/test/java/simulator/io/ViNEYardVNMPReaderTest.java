@@ -1,5 +1,9 @@
 package simulator.io;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+
 import junit.framework.TestCase;
 
 import simulator.network.SubstrateNetwork;
@@ -76,4 +80,54 @@ public class ViNEYardVNMPReaderTest extends TestCase {
     assertEquals(70.310927, request.getVirtualLinks().get("9:0").
       getDelay());
   }
+
+  public void testNoLoadFailures() {
+    assertTrue(reader.getLoadFailures().isEmpty());
+  }
+
+  public void testRequestsOrderedByCreationTime() {
+    reader = new ViNEYardVNMPReader(
+      "src/test/resources/ViNEYard/substrate/sub-50.txt",
+      "src/test/resources/ViNEYard/requests/40");
+    ArrayList<Request> requests = reader.getVirtualNetworkRequests();
+    assertEquals(40, requests.size());
+    for(int i = 1; i < requests.size(); i++) {
+      Request previous = requests.get(i - 1);
+      Request current = requests.get(i);
+      assertTrue(previous.getCreationTime() < current.getCreationTime()
+        || (previous.getCreationTime() == current.getCreationTime()
+            && previous.getId() < current.getId()));
+    }
+  }
+
+  public void testFailuresReportedPerFile() throws Exception {
+    File folder = new File("vineyard_requests_test");
+    folder.mkdir();
+    File validFile = new File(folder, "req3.txt");
+    File truncatedFile = new File(folder, "req4.txt");
+    File strayFile = new File(folder, "notes.txt");
+    try {
+      write(validFile, "1 0 0 5 10\n1 2 3.5\n");
+      write(truncatedFile, "2 1 0 5 10\n1 2 3.5\n");
+      write(strayFile, "");
+      reader = new ViNEYardVNMPReader(
+        "src/test/resources/ViNEYard/substrate/sub-50.txt", folder.getPath());
+      assertEquals(1, reader.getVirtualNetworkRequests().size());
+      assertEquals(3, reader.getVirtualNetworkRequests().get(0).getId());
+      assertEquals(2, reader.getLoadFailures().size());
+      assertTrue(reader.getLoadFailures().containsKey(truncatedFile.getPath()));
+      assertTrue(reader.getLoadFailures().containsKey(strayFile.getPath()));
+    } finally {
+      validFile.delete();
+      truncatedFile.delete();
+      strayFile.delete();
+      folder.delete();
+    }
+  }
+
+  private void write(File file, String text) throws Exception {
+    FileWriter writer = new FileWriter(file);
+    writer.write(text);
+    writer.close();
+  }
 }
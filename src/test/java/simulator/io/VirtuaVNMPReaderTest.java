@@ -2,6 +2,8 @@ package simulator.io;
 
 import junit.framework.TestCase;
 
+import generator.util.RandomContext;
+
 import simulator.network.components.physical.PhysicalNode;
 import simulator.simulation.Request;
 
@@ -39,4 +41,45 @@ public class VirtuaVNMPReaderTest extends TestCase {
   public void testFirstVirtualNetworkRequestNumberOfLinks() {
     assertTrue(request.getAmountLinks() >= 0);
   }
+
+  public void testReadersWithSameContextDrawSameAvailabilities() {
+    VirtuaVNMPReader firstReader = new VirtuaVNMPReader(
+      "src/test/resources/VirtuaSimulator/VNMPs/vVNMP1.txt", new RandomContext(7));
+    VirtuaVNMPReader secondReader = new VirtuaVNMPReader(
+      "src/test/resources/VirtuaSimulator/VNMPs/vVNMP1.txt", new RandomContext(7));
+    for(PhysicalNode physicalNode :
+        firstReader.getSubstrateNetwork().getHashNodes().values()) {
+      PhysicalNode sameNode = secondReader.getSubstrateNetwork().getHashNodes().
+        get(physicalNode.getId());
+      assertEquals(0, physicalNode.getAvailability().compareTo(
+        sameNode.getAvailability()));
+    }
+  }
+
+  public void testStreamedRequestsMatchReadRequests() {
+    VirtuaVNMPReader streamingReader = new VirtuaVNMPReader(
+      "src/test/resources/VirtuaSimulator/VNMPs/vVNMP1.txt", new RandomContext(7),
+      true);
+    IRequestSource source = streamingReader.getRequestSource();
+    IRequestSource listSource = reader.getRequestSource();
+    while(listSource.hasNext()) {
+      Request expected = listSource.next();
+      Request streamed = source.next();
+      assertEquals(expected.getId(), streamed.getId());
+      assertEquals(expected.getCreationTime(), streamed.getCreationTime());
+      assertEquals(expected.getAmountNodes(), streamed.getAmountNodes());
+    }
+    assertFalse(source.hasNext());
+  }
+
+  public void testStreamingReaderDoesNotListRequests() {
+    VirtuaVNMPReader streamingReader = new VirtuaVNMPReader(
+      "src/test/resources/VirtuaSimulator/VNMPs/vVNMP1.txt", new RandomContext(7),
+      true);
+    try {
+      streamingReader.getVirtualNetworkRequests();
+      fail("A streaming reader should not list its requests.");
+    } catch(RuntimeException e) {
+    }
+  }
 }
@@ -0,0 +1,84 @@
+package simulator.io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import junit.framework.TestCase;
+
+import generator.network.SubstrateNetworkGenerator;
+
+import simulator.mapping.Mapping;
+import simulator.network.SubstrateNetwork;
+import simulator.simulation.Request;
+import simulator.simulation.RequestEvent;
+
+public class WindowedTracerTest extends TestCase {
+
+  private SubstrateNetwork network;
+  private HashMap<Request, Mapping> mappings;
+  private final String OUTPUT_FILE_NAME = "windowed_trace.txt";
+
+  protected void setUp() {
+    network = new SubstrateNetworkGenerator().generate(10);
+    mappings = new HashMap<Request, Mapping>();
+  }
+
+  protected void tearDown() {
+    new File(OUTPUT_FILE_NAME).delete();
+  }
+
+  public void testOneLinePerWindowWithEvents() throws Exception {
+    WindowedTracer tracer = new WindowedTracer(new Tracer(OUTPUT_FILE_NAME), 10);
+    int[] times = { 0, 3, 3, 12, 35 };
+    for(int i = 0; i < times.length; i++) {
+      Request request = new Request(i, times[i], 5);
+      tracer.trace(network, mappings, new RequestEvent(request, times[i],
+        (i == 2 ? RequestEvent.DEPARTURE_EVENT : RequestEvent.ARRIVAL_EVENT)));
+    }
+    tracer.traceExecutionTime(9);
+    tracer.close();
+
+    ArrayList<String> lines = readLines();
+    assertEquals(4, lines.size());
+    String[] first = lines.get(0).split(" ");
+    assertEquals(WindowedTracer.WINDOW_TOKENS, first.length);
+    assertEquals("0", first[0]);
+    assertEquals("3", first[1]);
+    assertEquals("3", first[2]); // eventos
+    assertEquals("2", first[3]); // chegadas
+    assertEquals("0", first[4]); // nenhuma aceita
+    for(int column = 5; column < first.length; column += 3) {
+      double minimum = Double.valueOf(first[column]);
+      double mean = Double.valueOf(first[column + 1]);
+      double maximum = Double.valueOf(first[column + 2]);
+      assertTrue(minimum <= mean && mean <= maximum);
+    }
+    assertEquals("10", lines.get(1).split(" ")[0]);
+    // janela 20 sem eventos não aparece
+    assertEquals("30", lines.get(2).split(" ")[0]);
+    assertEquals("35", lines.get(2).split(" ")[1]);
+    assertEquals("9", lines.get(3));
+  }
+
+  public void testRejectsNonPositiveWindow() {
+    try {
+      new WindowedTracer(null, 0);
+      fail("Window must be positive.");
+    } catch(RuntimeException e) {
+    }
+  }
+
+  private ArrayList<String> readLines() throws Exception {
+    BufferedReader reader = new BufferedReader(new FileReader(OUTPUT_FILE_NAME));
+    ArrayList<String> lines = new ArrayList<String>();
+    String line;
+    while((line = reader.readLine()) != null)
+      lines.add(line);
+    reader.close();
+
+    return lines;
+  }
+}
@@ -0,0 +1,83 @@
+package simulator.mapping;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+
+import simulator.io.OptFIVNMPReader;
+import simulator.network.SubstrateNetwork;
+import simulator.network.SubstrateTopology;
+import simulator.network.components.physical.*;
+import simulator.simulation.Request;
+
+public class AvailabilityLedgerTest extends TestCase {
+
+  private SubstrateNetwork substrateNetwork;
+  private SubstrateTopology topology;
+  private ArrayList<Request> requests;
+
+  public void setUp() {
+    OptFIVNMPReader reader = new OptFIVNMPReader(
+      "src/test/resources/OptFI/VNMPs/eu_20_0_prob");
+    substrateNetwork = reader.getSubstrateNetwork();
+    topology = substrateNetwork.getTopology();
+    requests = reader.getVirtualNetworkRequests();
+  }
+
+  public void testEmptyLedger() {
+    AvailabilityLedger ledger = new AvailabilityLedger(topology);
+    assertEquals(0D, ledger.getLogAvailability());
+    assertEquals(1D, ledger.getAvailability());
+  }
+
+  public void testMatchesMappingAvailability() {
+    GraspMapper mapper = new GraspMapper();
+    for(Request request : requests) {
+      Mapping mapping = mapper.map(request, substrateNetwork);
+      if(mapping != null) {
+        AvailabilityLedger ledger = new AvailabilityLedger(topology, request,
+          mapping);
+        assertEquals(mapping.getAvailability().doubleValue(),
+          ledger.getAvailability(), 1e-12);
+      }
+    }
+  }
+
+  public void testCountsSharedComponentsOnce() {
+    PhysicalNode physicalNode = topology.getNode(0);
+    AvailabilityLedger ledger = new AvailabilityLedger(topology);
+    ledger.addNode(physicalNode);
+    double logAvailability = ledger.getLogAvailability();
+    ledger.addNode(physicalNode);
+    assertEquals(logAvailability, ledger.getLogAvailability());
+    ledger.removeNode(physicalNode);
+    assertEquals(logAvailability, ledger.getLogAvailability());
+    ledger.removeNode(physicalNode);
+    assertEquals(0D, ledger.getLogAvailability());
+  }
+
+  public void testRouteCountsIntermediaryNodes() {
+    PhysicalLink physicalLink = topology.getLink(0);
+    PhysicalNode sourceNode = (PhysicalNode) physicalLink.getSourceNode();
+    PhysicalNode destinyNode = (PhysicalNode) physicalLink.getDestinyNode();
+    ArrayList<PhysicalLink> route = new ArrayList<PhysicalLink>();
+    route.add(physicalLink);
+    AvailabilityLedger ledger = new AvailabilityLedger(topology);
+    ledger.addRoute(sourceNode, destinyNode, route);
+    assertEquals(topology.getLinkLogAvailability(0), ledger.getLogAvailability());
+    ledger.removeRoute(sourceNode, destinyNode, route);
+    ledger.addRoute(sourceNode, sourceNode, route);
+    assertEquals(topology.getLinkLogAvailability(0)
+      + topology.getIntermediaryNodeLogAvailability(topology.indexOf(destinyNode)),
+      ledger.getLogAvailability(), 1e-15);
+  }
+
+  public void testRemoveUnusedNode() {
+    AvailabilityLedger ledger = new AvailabilityLedger(topology);
+    try {
+      ledger.removeNode(topology.getNode(0));
+      fail();
+    } catch(RuntimeException e) {
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package simulator.mapping;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+
+import simulator.io.OptFIVNMPReader;
+import simulator.network.SubstrateNetwork;
+import simulator.network.components.physical.*;
+import simulator.network.components.virtual.*;
+import simulator.simulation.Request;
+
+public class GraspLocalSearchTest extends TestCase {
+
+  private GraspMapper mapper;
+  private SubstrateNetwork substrateNetwork;
+  private ArrayList<Request> requests;
+
+  public void setUp() {
+    mapper = new GraspMapper();
+    OptFIVNMPReader reader = new OptFIVNMPReader(
+      "src/test/resources/OptFI/VNMPs/eu_20_0_prob");
+    substrateNetwork = reader.getSubstrateNetwork();
+    requests = reader.getVirtualNetworkRequests();
+  }
+
+  public void testImproveDoesNotDecreaseAvailability() {
+    for(Request request : requests) {
+      Mapping mapping = mapper.map(request, substrateNetwork);
+      if(mapping != null) {
+        double availability = mapping.getAvailability().doubleValue();
+        new GraspLocalSearch(substrateNetwork, false, 500, 0).improve(request,
+          mapping);
+        assertTrue(mapping.getAvailability().doubleValue() >= availability - 1e-12);
+      }
+    }
+  }
+
+  public void testImprovedMappingIsComplete() {
+    Request request = requests.get(0);
+    Mapping mapping = mapper.map(request, substrateNetwork);
+    new GraspLocalSearch(substrateNetwork, false, 500, 0).improve(request, mapping);
+    ArrayList<PhysicalNode> hostingNodes = new ArrayList<PhysicalNode>();
+    for(VirtualNode virtualNode : request.getVirtualNodes().values()) {
+      PhysicalNode hostingNode = mapping.getHostingNodeFor(virtualNode);
+      assertNotNull(hostingNode);
+      assertFalse(hostingNodes.contains(hostingNode));
+      hostingNodes.add(hostingNode);
+    }
+    for(VirtualLink virtualLink : request.getVirtualLinks().values()) {
+      ArrayList<PhysicalLink> hostingLinks = mapping.getHostingLinksFor(virtualLink);
+      assertNotNull(hostingLinks);
+      double delay = 0;
+      for(PhysicalLink hostingLink : hostingLinks)
+        delay += hostingLink.getDelay();
+      assertTrue(delay <= virtualLink.getDelay());
+    }
+  }
+
+  public void testImproveKeepsLoadsConsistent() {
+    Request request = requests.get(0);
+    Mapping mapping = mapper.map(request, substrateNetwork);
+    new GraspLocalSearch(substrateNetwork, false, 500, 0).improve(request, mapping);
+    for(VirtualNode virtualNode : request.getVirtualNodes().values()) {
+      assertEquals(virtualNode.getCapacity(),
+        mapping.getHostingNodeFor(virtualNode).getLoad());
+    }
+    mapping.clearMappings();
+    for(PhysicalNode physicalNode : substrateNetwork.getHashNodes().values()) {
+      assertEquals(0D, physicalNode.getLoad());
+    }
+    for(PhysicalLink physicalLink : substrateNetwork.getHashLinks().values()) {
+      assertEquals(0D, physicalLink.getBandwidthLoad());
+    }
+  }
+
+  public void testMoveBudgetIsRespected() {
+    Request request = requests.get(0);
+    Mapping mapping = mapper.map(request, substrateNetwork);
+    GraspLocalSearch localSearch = new GraspLocalSearch(substrateNetwork, false,
+      3, 0);
+    localSearch.improve(request, mapping);
+    assertTrue(localSearch.getEvaluatedMoves() <= 3);
+  }
+
+  public void testMapperWithLocalSearch() {
+    mapper.setLocalSearch(500, 0);
+    Request request = requests.get(0);
+    assertNotNull(mapper.map(request, substrateNetwork));
+  }
+}
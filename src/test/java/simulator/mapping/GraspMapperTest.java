@@ -2,15 +2,19 @@ package simulator.mapping;
 
 import junit.framework.TestCase;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.HashMap;
 
+import generator.util.RandomContext;
+
 import simulator.io.OptFIVNMPReader;
 import simulator.network.SubstrateNetwork;
 import simulator.network.components.Path;
 import simulator.network.components.virtual.*;
 import simulator.network.components.physical.*;
 import simulator.simulation.Request;
+import simulator.util.AvailabilityMode;
 
 public class GraspMapperTest extends TestCase {
 
@@ -99,6 +103,16 @@ public class GraspMapperTest extends TestCase {
     assertNotNull(mapper.map(request, substrateNetwork));
   }
 
+  public void testMappedRequestKeepsNoReservationJournal() {
+    mapper.setLocalSearch(50, 0);
+    for(Request request : requests) {
+      Mapping mapping = mapper.map(request, substrateNetwork);
+      // savepoint() é o tamanho do diário
+      if(mapping != null)
+        assertEquals(0, mapping.savepoint());
+    }
+  }
+
   public void testMapWhenRequestCannotBeMapped() {
     Request request = requests.get(0);
     VirtualNode virtualNode = request.getVirtualNodes().get(0);
@@ -145,4 +159,149 @@ public class GraspMapperTest extends TestCase {
       hostsIds.add(hostingNode.getId());
     }
   }
+
+  public void testMultiStartMapReservesResourcesOnSubstrate() {
+    mapper.setMultiStart(4, 2);
+    Request request = requests.get(0);
+    Mapping mapping = mapper.map(request, substrateNetwork);
+    assertNotNull(mapping);
+    for(VirtualNode virtualNode : request.getVirtualNodes().values()) {
+      PhysicalNode hostingNode = mapping.getHostingNodeFor(virtualNode);
+      assertEquals(virtualNode.getCapacity(), hostingNode.getLoad());
+    }
+    mapping.clearMappings();
+    for(PhysicalNode physicalNode : substrateNetwork.getHashNodes().values()) {
+      assertEquals(0D, physicalNode.getLoad());
+    }
+  }
+
+  public void testMultiStartMapAfterClose() {
+    mapper.setMultiStart(4, 2);
+    assertNotNull(mapper.map(requests.get(0), substrateNetwork));
+    mapper.close();
+    mapper.close();
+    // Um novo conjunto de threads é criado sob demanda
+    assertNotNull(mapper.map(requests.get(1), substrateNetwork));
+    mapper.close();
+  }
+
+  public void testMultiStartMapDoesNotDependOnThreads() {
+    GraspMapper otherMapper = new GraspMapper();
+    mapper.setMultiStart(4, 4);
+    otherMapper.setMultiStart(4, 1);
+    Request request = requests.get(0);
+    Mapping mapping = mapper.map(request, substrateNetwork);
+    BigDecimal availability = mapping.getAvailability();
+    HashMap<VirtualNode, PhysicalNode> hostingNodes =
+      new HashMap<VirtualNode, PhysicalNode>();
+    for(VirtualNode virtualNode : request.getVirtualNodes().values())
+      hostingNodes.put(virtualNode, mapping.getHostingNodeFor(virtualNode));
+    mapping.clearMappings();
+    Mapping otherMapping = otherMapper.map(request, substrateNetwork);
+    assertEquals(0, availability.compareTo(otherMapping.getAvailability()));
+    for(VirtualNode virtualNode : request.getVirtualNodes().values()) {
+      assertSame(hostingNodes.get(virtualNode),
+        otherMapping.getHostingNodeFor(virtualNode));
+    }
+  }
+
+  public void testMultiStartMapWhenRequestCannotBeMapped() {
+    mapper.setMultiStart(4, 2);
+    Request request = requests.get(0);
+    VirtualNode virtualNode = request.getVirtualNodes().get(0);
+    VirtualLink virtualLink = (VirtualLink) virtualNode.getAttachedLinks().get(0);
+    virtualLink.setBandwidthCapacity(9999);
+    assertNull(mapper.map(request, substrateNetwork));
+    for(PhysicalNode physicalNode : substrateNetwork.getHashNodes().values()) {
+      assertEquals(0D, physicalNode.getLoad());
+    }
+  }
+
+  public void testMapInLogSpaceMode() {
+    mapper.setAvailabilityMode(AvailabilityMode.LOG_SPACE);
+    mapper.setMultiStart(4, 2);
+    assertNotNull(mapper.map(requests.get(0), substrateNetwork));
+  }
+
+  public void testAvailabilityModeIsPerMapper() {
+    GraspMapper otherMapper = new GraspMapper();
+    mapper.setAvailabilityMode(AvailabilityMode.LOG_SPACE);
+    assertEquals(AvailabilityMode.LOG_SPACE, mapper.getAvailabilityMode());
+    assertEquals(AvailabilityMode.EXACT, otherMapper.getAvailabilityMode());
+  }
+
+  public void testMapInValidatedMode() {
+    mapper.setAvailabilityMode(AvailabilityMode.VALIDATED);
+    for(Request request : requests) {
+      mapper.map(request, substrateNetwork);
+    }
+  }
+
+  public void testMapWithSameContextIsReproducible() {
+    Request request = requests.get(0);
+    Mapping[] mappings = new Mapping[2];
+    for(int i = 0; i < mappings.length; i++) {
+      RandomContext context = new RandomContext(11);
+      OptFIVNMPReader reader = new OptFIVNMPReader(
+        "src/test/resources/OptFI/VNMPs/eu_20_0_prob", context);
+      mappings[i] = new GraspMapper(context).map(request,
+        reader.getSubstrateNetwork());
+    }
+    assertEquals(0, mappings[0].getAvailability().compareTo(
+      mappings[1].getAvailability()));
+    for(VirtualNode virtualNode : request.getVirtualNodes().values()) {
+      assertEquals(mappings[0].getHostingNodeFor(virtualNode).getId(),
+        mappings[1].getHostingNodeFor(virtualNode).getId());
+    }
+  }
+
+  public void testSessionAttemptsMatchRepeatedMaps() {
+    ArrayList<String> withSessions = mapWithRetries(true);
+    ArrayList<String> withoutSessions = mapWithRetries(false);
+    assertEquals(withoutSessions, withSessions);
+  }
+
+  public void testSessionReturnsNullWhenRequestDoesNotFit() {
+    RandomContext context = new RandomContext(5);
+    OptFIVNMPReader reader = new OptFIVNMPReader(
+      "src/test/resources/OptFI/VNMPs/eu_20_0_prob", context);
+    SubstrateNetwork network = reader.getSubstrateNetwork();
+    Request request = requests.get(0);
+    for(VirtualNode virtualNode : request.getVirtualNodes().values())
+      virtualNode.setCapacity(Double.MAX_VALUE);
+    IMapperSession session = new GraspMapper(context).openSession(request,
+      network);
+    for(int i = 0; i < 3; i++)
+      assertNull(session.map());
+    session.close();
+  }
+
+  // Aloca as requisições como a simulação, com até 8 tentativas cada
+  private ArrayList<String> mapWithRetries(boolean useSessions) {
+    RandomContext context = new RandomContext(23);
+    OptFIVNMPReader reader = new OptFIVNMPReader(
+      "src/test/resources/OptFI/VNMPs/eu_20_0_prob", context);
+    SubstrateNetwork network = reader.getSubstrateNetwork();
+    GraspMapper graspMapper = new GraspMapper(context);
+    ArrayList<String> placements = new ArrayList<String>();
+    for(Request request : reader.getVirtualNetworkRequests()) {
+      IMapperSession session = useSessions ?
+        graspMapper.openSession(request, network) :
+        new RepeatedMapperSession(graspMapper, request, network);
+      Mapping mapping = null;
+      for(int tries = 0; mapping == null && tries < 8; tries++)
+        mapping = session.map();
+      session.close();
+      if(mapping == null) {
+        placements.add(null);
+        continue;
+      }
+      StringBuilder placement = new StringBuilder();
+      for(VirtualNode virtualNode : request.getVirtualNodes().values())
+        placement.append(mapping.getHostingNodeFor(virtualNode).getId()).append(' ');
+      placements.add(placement.toString());
+    }
+
+    return placements;
+  }
 }
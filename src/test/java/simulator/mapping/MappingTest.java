@@ -45,6 +45,98 @@ public class MappingTest extends TestCase {
     assertEquals(hostingLinks, mapping.getHostingLinksFor(virtualLink));
   }
 
+  public void testRemoveNodeMapping() {
+    mapping.addNodeMapping(virtualNode, hostingNode);
+    mapping.removeNodeMapping(virtualNode);
+    assertFalse(mapping.isNodeMapped(virtualNode));
+    assertEquals(0D, hostingNode.getLoad());
+  }
+
+  public void testRemoveLinkMapping() {
+    mapping.addLinkMapping(virtualLink, hostingLinks);
+    mapping.removeLinkMapping(virtualLink);
+    assertFalse(mapping.isLinkMapped(virtualLink));
+    for(PhysicalLink hostingLink : hostingLinks) {
+      assertEquals(0D, hostingLink.getBandwidthLoad());
+    }
+  }
+
+  public void testRemoveNodeMappingWhenItIsntMapped() {
+    try {
+      mapping.removeNodeMapping(virtualNode);
+      fail();
+    } catch(RuntimeException e) {
+    }
+  }
+
+  public void testRollbackToSavepoint() {
+    mapping.addNodeMapping(virtualNode, hostingNode);
+    int savepoint = mapping.savepoint();
+    VirtualNode otherVirtualNode = new VirtualNode(2, 30);
+    mapping.addNodeMapping(otherVirtualNode, hostingNode);
+    mapping.addLinkMapping(virtualLink, hostingLinks);
+    mapping.rollbackTo(savepoint);
+    assertTrue(mapping.isNodeMapped(virtualNode));
+    assertFalse(mapping.isNodeMapped(otherVirtualNode));
+    assertFalse(mapping.isLinkMapped(virtualLink));
+    assertEquals(50D, hostingNode.getLoad());
+    for(PhysicalLink hostingLink : hostingLinks) {
+      assertEquals(0D, hostingLink.getBandwidthLoad());
+    }
+  }
+
+  public void testRollbackRestoresRemovedMappings() {
+    mapping.addNodeMapping(virtualNode, hostingNode);
+    mapping.addLinkMapping(virtualLink, hostingLinks);
+    int savepoint = mapping.savepoint();
+    mapping.removeLinkMapping(virtualLink);
+    mapping.removeNodeMapping(virtualNode);
+    mapping.rollbackTo(savepoint);
+    assertSame(hostingNode, mapping.getHostingNodeFor(virtualNode));
+    assertSame(hostingLinks, mapping.getHostingLinksFor(virtualLink));
+    assertEquals(50D, hostingNode.getLoad());
+    for(PhysicalLink hostingLink : hostingLinks) {
+      assertEquals(5D, hostingLink.getBandwidthLoad());
+    }
+  }
+
+  public void testRollbackToInvalidSavepoint() {
+    mapping.addNodeMapping(virtualNode, hostingNode);
+    int savepoint = mapping.savepoint();
+    mapping.clearMappings();
+    try {
+      mapping.rollbackTo(savepoint);
+      fail();
+    } catch(RuntimeException e) {
+    }
+  }
+
+  public void testNestedRollbackAfterInnerRelease() {
+    int outerSavepoint = mapping.savepoint();
+    mapping.addNodeMapping(virtualNode, hostingNode);
+    int innerSavepoint = mapping.savepoint();
+    mapping.addLinkMapping(virtualLink, hostingLinks);
+    mapping.release(innerSavepoint);
+    mapping.rollbackTo(outerSavepoint);
+    assertFalse(mapping.isNodeMapped(virtualNode));
+    assertFalse(mapping.isLinkMapped(virtualLink));
+    assertEquals(0D, hostingNode.getLoad());
+  }
+
+  public void testReleaseOfOutermostSavepointEndsRollback() {
+    int savepoint = mapping.savepoint();
+    mapping.addNodeMapping(virtualNode, hostingNode);
+    mapping.release(savepoint);
+    assertEquals(0, mapping.savepoint());
+    mapping.release(0);
+    try {
+      mapping.rollbackTo(savepoint);
+      fail();
+    } catch(RuntimeException e) {
+    }
+    assertTrue(mapping.isNodeMapped(virtualNode));
+  }
+
   public void testIsNodeMappedWhenItIs() {
     mapping.addNodeMapping(virtualNode, hostingNode);
     assertTrue(mapping.isNodeMapped(virtualNode));
@@ -81,6 +173,63 @@ public class MappingTest extends TestCase {
     assertFalse(mapping.isLinkInUse(hostingLinks.get(0)));
   }
 
+  public void testIsNodeInUseAfterRemoval() {
+    VirtualNode otherVirtualNode = new VirtualNode(2, 30);
+    mapping.addNodeMapping(virtualNode, hostingNode);
+    mapping.addNodeMapping(otherVirtualNode, hostingNode);
+    assertEquals(2, mapping.getHostedNodesCount(hostingNode));
+    mapping.removeNodeMapping(virtualNode);
+    assertTrue(mapping.isNodeInUse(hostingNode));
+    mapping.removeNodeMapping(otherVirtualNode);
+    assertFalse(mapping.isNodeInUse(hostingNode));
+  }
+
+  public void testIsLinkInUseCountsEveryHostedLink() {
+    VirtualLink otherVirtualLink = new VirtualLink("2:1", new VirtualNode(2, 50),
+                                                   new VirtualNode(1, 50), 5, 5);
+    int savepoint = mapping.savepoint();
+    mapping.addLinkMapping(virtualLink, hostingLinks);
+    mapping.addLinkMapping(otherVirtualLink, hostingLinks);
+    assertEquals(2, mapping.getHostedLinksCount(hostingLinks.get(0)));
+    mapping.removeLinkMapping(virtualLink);
+    assertTrue(mapping.isLinkInUse(hostingLinks.get(0)));
+    mapping.rollbackTo(savepoint);
+    assertFalse(mapping.isLinkInUse(hostingLinks.get(0)));
+  }
+
+  public void testIsNodeInUseWithTopologyIndexes() {
+    PhysicalNode indexedNode = new PhysicalNode(7, 100);
+    PhysicalNode otherIndexedNode = new PhysicalNode(8, 100);
+    indexedNode.setIndex(3);
+    otherIndexedNode.setIndex(3);
+    mapping.addNodeMapping(virtualNode, indexedNode);
+    mapping.addNodeMapping(new VirtualNode(2, 10), otherIndexedNode);
+    assertTrue(mapping.isNodeInUse(indexedNode));
+    assertTrue(mapping.isNodeInUse(otherIndexedNode));
+    mapping.removeNodeMapping(virtualNode);
+    assertFalse(mapping.isNodeInUse(indexedNode));
+    assertTrue(mapping.isNodeInUse(otherIndexedNode));
+  }
+
+  public void testGetNodeSharingRate() {
+    PhysicalNode otherHostingNode = new PhysicalNode(2, 100);
+    mapping.addNodeMapping(virtualNode, hostingNode);
+    mapping.addNodeMapping(new VirtualNode(2, 10), hostingNode);
+    mapping.addNodeMapping(new VirtualNode(3, 10), hostingNode);
+    mapping.addNodeMapping(new VirtualNode(4, 10), otherHostingNode);
+    assertEquals(0.25, mapping.getNodeSharingRate(4));
+    mapping.addNodeMapping(new VirtualNode(5, 10), otherHostingNode);
+    assertEquals(0.5, mapping.getNodeSharingRate(4));
+  }
+
+  public void testGetPhysicalComponentsInUse() {
+    mapping.addNodeMapping(virtualNode, hostingNode);
+    mapping.addNodeMapping(new VirtualNode(2, 10), hostingNode);
+    mapping.addLinkMapping(virtualLink, hostingLinks);
+    assertEquals(1, mapping.getPhysicalNodesInUse());
+    assertEquals(hostingLinks.size(), mapping.getPhysicalLinksInUse());
+  }
+
   public void testClearMappings() {
     mapping.addNodeMapping(virtualNode, hostingNode);
     mapping.addLinkMapping(virtualLink, hostingLinks);
@@ -149,6 +298,13 @@ public class MappingTest extends TestCase {
       mapping.getAvailability().doubleValue());
   }
 
+  public void testGetLogAvailabilityMatchesGetAvailability() {
+    mapping.addNodeMapping(virtualNode, hostingNode);
+    mapping.addLinkMapping(virtualLink, hostingLinks);
+    assertEquals(Math.log(mapping.getAvailability().doubleValue()),
+      mapping.getLogAvailability(), 1e-12);
+  }
+
   public void testGetAvailabilityTakesIntoAccountUniqPhysicalLinksOnly() {
     VirtualNode virtualNode1 = new VirtualNode(1, 50);
     VirtualNode virtualNode2 = new VirtualNode(2, 50);
@@ -0,0 +1,44 @@
+package simulator.mapping;
+
+import junit.framework.TestCase;
+
+import simulator.network.SubstrateNetwork;
+import simulator.simulation.Request;
+
+public class RepeatedMapperSessionTest extends TestCase {
+
+  private SubstrateNetwork substrateNetwork;
+  private Request request;
+
+  public void setUp() {
+    substrateNetwork = new SubstrateNetwork();
+    request = new Request(0, 0, 0);
+  }
+
+  public void testEveryAttemptCallsMap() {
+    CountingMapper mapper = new CountingMapper();
+    IMapperSession session = RepeatedMapperSession.open(mapper, request,
+      substrateNetwork);
+    assertTrue(session instanceof RepeatedMapperSession);
+    for(int i = 0; i < 3; i++)
+      assertNull(session.map());
+    session.close();
+    assertEquals(3, mapper.calls);
+  }
+
+  public void testOpenUsesMapperOwnSession() {
+    IMapperSession session = RepeatedMapperSession.open(new GraspMapper(),
+      request, substrateNetwork);
+    assertFalse(session instanceof RepeatedMapperSession);
+    session.close();
+  }
+
+  private static class CountingMapper implements IMapper {
+    private int calls;
+
+    public Mapping map(Request request, SubstrateNetwork substrateNetwork) {
+      calls++;
+      return null;
+    }
+  }
+}
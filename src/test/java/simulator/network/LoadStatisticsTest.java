@@ -0,0 +1,91 @@
+package simulator.network;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.uncommons.maths.statistics.DataSet;
+
+import simulator.util.Util;
+
+public class LoadStatisticsTest extends TestCase {
+
+  private LoadStatistics<Object> statistics;
+  private Object[] components;
+
+  public void setUp() {
+    components = new Object[] { new Object(), new Object(), new Object(),
+      new Object() };
+    statistics = new LoadStatistics<Object>(components,
+      new double[] { 0.1, 0.05, 0.2, 0.05 });
+  }
+
+  public void testGetAverage() {
+    assertEquals(0.1, statistics.getAverage());
+  }
+
+  public void testGetMaximum() {
+    assertEquals(0.2, statistics.getMaximum());
+  }
+
+  public void testGetStandardDeviation() {
+    assertEquals(0.0612372435695794, statistics.getStandardDeviation(), 1e-15);
+  }
+
+  public void testSetUpdatesStatistics() {
+    statistics.set(components[2], 0.05);
+    assertEquals(0.0625, statistics.getAverage());
+    assertEquals(0.1, statistics.getMaximum());
+  }
+
+  public void testSetBackLeavesNoResidue() {
+    for(int i = 0; i < 1000; i++) {
+      statistics.set(components[i % 4], 0.3);
+      statistics.set(components[i % 4], 0.1 * (i % 3));
+    }
+    for(int i = 0; i < 4; i++)
+      statistics.set(components[i], 0.7);
+    assertEquals(0.7, statistics.getAverage());
+    assertEquals(0D, statistics.getStandardDeviation());
+  }
+
+  public void testMatchesDataSet() {
+    Random random = new Random(7);
+    components = new Object[40];
+    double[] values = new double[components.length];
+    for(int i = 0; i < components.length; i++) {
+      components[i] = new Object();
+      values[i] = random.nextDouble() / 3;
+    }
+    statistics = new LoadStatistics<Object>(components, values);
+    for(int i = 0; i < 200; i++) {
+      int position = random.nextInt(components.length);
+      values[position] = (random.nextBoolean() ? 0 : random.nextDouble() / 3);
+      statistics.set(components[position], values[position]);
+      DataSet data = new DataSet(values);
+      assertEquals(Util.getAverage(data), statistics.getAverage());
+      assertEquals(Util.getMaximum(data), statistics.getMaximum());
+      assertEquals(Util.getStandardDeviation(data),
+        statistics.getStandardDeviation());
+    }
+  }
+
+  public void testSetIgnoresUnknownComponent() {
+    statistics.set(new Object(), 1);
+    assertEquals(0.2, statistics.getMaximum());
+  }
+
+  public void testEmptyStatistics() {
+    statistics = new LoadStatistics<Object>(new Object[0], new double[0]);
+    assertEquals(0D, statistics.getAverage());
+    assertEquals(0D, statistics.getMaximum());
+    assertEquals(0D, statistics.getStandardDeviation());
+  }
+
+  public void testNotFiniteValue() {
+    statistics.set(components[0], Double.POSITIVE_INFINITY);
+    assertEquals(Double.POSITIVE_INFINITY, statistics.getAverage());
+    statistics.set(components[0], 0.1);
+    assertEquals(0.1, statistics.getAverage());
+  }
+}
@@ -0,0 +1,121 @@
+package simulator.network;
+
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+
+import simulator.network.components.Path;
+import simulator.network.components.physical.*;
+import simulator.network.components.virtual.*;
+
+public class ResidualSnapshotTest extends TestCase {
+
+  private SubstrateNetwork substrateNetwork;
+  private HashMap<Integer, PhysicalNode> physicalNodes;
+  private HashMap<String, PhysicalLink> physicalLinks;
+
+  public void setUp() {
+    physicalNodes = new HashMap<Integer, PhysicalNode>();
+    physicalLinks = new HashMap<String, PhysicalLink>();
+    for(int i = 1; i < 4; i++) {
+      physicalNodes.put(i, new PhysicalNode(i, 10));
+    }
+    physicalLinks.put("1:2", new PhysicalLink("1:2", physicalNodes.get(1),
+                                              physicalNodes.get(2), 10, 5, 1));
+    physicalLinks.put("2:3", new PhysicalLink("2:3", physicalNodes.get(2),
+                                              physicalNodes.get(3), 10, 5, 1));
+    substrateNetwork = new SubstrateNetwork(physicalNodes, physicalLinks);
+  }
+
+  public void testCopiesCurrentLoads() {
+    physicalNodes.get(1).addLoad(4);
+    physicalLinks.get("1:2").addBandwidthLoad(3);
+    ResidualSnapshot snapshot = new ResidualSnapshot(substrateNetwork);
+    assertEquals(6D, snapshot.getRemainingCapacity(physicalNodes.get(1)));
+    assertEquals(7D, snapshot.getRemainingBandwidth(physicalLinks.get("1:2")));
+    assertEquals(10D, snapshot.getRemainingBandwidth(physicalLinks.get("2:3")));
+  }
+
+  public void testChangesDoNotReachComponents() {
+    ResidualSnapshot snapshot = new ResidualSnapshot(substrateNetwork);
+    snapshot.addLoad(physicalNodes.get(2), 7.3);
+    snapshot.addBandwidthLoad(physicalLinks.get("2:3"), 2.1);
+    assertEquals(0D, physicalNodes.get(2).getLoad());
+    assertEquals(0D, physicalLinks.get("2:3").getBandwidthLoad());
+    assertEquals(10 - 7.3, snapshot.getRemainingCapacity(physicalNodes.get(2)), 1e-9);
+    assertEquals(7.9, snapshot.getRemainingBandwidth(physicalLinks.get("2:3")), 1e-9);
+  }
+
+  public void testArithmeticMatchesComponents() {
+    ResidualSnapshot snapshot = new ResidualSnapshot(substrateNetwork);
+    double[] loads = {0.1, 0.2, 1.7, 3.3};
+    for(double load : loads) {
+      snapshot.addLoad(physicalNodes.get(3), load);
+      physicalNodes.get(3).addLoad(load);
+      snapshot.addBandwidthLoad(physicalLinks.get("1:2"), load);
+      physicalLinks.get("1:2").addBandwidthLoad(load);
+    }
+    assertEquals(physicalNodes.get(3).getRemainingCapacity(),
+      snapshot.getRemainingCapacity(physicalNodes.get(3)));
+    assertEquals(physicalLinks.get("1:2").getRemainingBandwidth(),
+      snapshot.getRemainingBandwidth(physicalLinks.get("1:2")));
+  }
+
+  public void testIndexedAccessFollowsCopy() {
+    SubstrateTopology topology = substrateNetwork.getTopology();
+    ResidualSnapshot snapshot = new ResidualSnapshot(substrateNetwork);
+    snapshot.addLoad(physicalNodes.get(1), 4);
+    snapshot.addBandwidthLoad(physicalLinks.get("1:2"), 4);
+    assertEquals(6D, snapshot.getRemainingCapacity(topology,
+      topology.indexOf(physicalNodes.get(1))));
+    assertEquals(6D, snapshot.getRemainingBandwidth(topology,
+      topology.indexOf(physicalLinks.get("1:2"))));
+    assertEquals(10D, topology.getRemainingCapacity(
+      topology.indexOf(physicalNodes.get(1))));
+  }
+
+  public void testCapableNodesFollowCopy() {
+    ResidualSnapshot snapshot = new ResidualSnapshot(substrateNetwork);
+    snapshot.addLoad(physicalNodes.get(1), 8);
+    assertEquals(2, snapshot.getPhysicalNodesWithRemainingCapacityGreaterThan(
+      substrateNetwork, 5).size());
+    assertEquals(3, substrateNetwork.
+      getPhysicalNodesWithRemainingCapacityGreaterThan(5).size());
+  }
+
+  public void testCapacityIndexFollowsCopy() {
+    SubstrateTopology topology = substrateNetwork.getTopology();
+    ResidualSnapshot snapshot = new ResidualSnapshot(substrateNetwork);
+    int[] nodes = new int[topology.getAmountNodes()];
+    snapshot.addLoad(physicalNodes.get(2), 6);
+    assertEquals(2, snapshot.collectNodesWithRemainingCapacityAtLeast(topology,
+      10, nodes));
+    assertEquals(3, topology.collectNodesWithRemainingCapacityAtLeast(10, nodes));
+    snapshot.addLoad(physicalNodes.get(1), 1);
+    snapshot.addLoad(physicalNodes.get(3), 2);
+    assertEquals(9D, snapshot.getMaxRemainingCapacity(topology));
+    snapshot.removeLoad(physicalNodes.get(2), 6);
+    assertEquals(10D, snapshot.getMaxRemainingCapacity(topology));
+  }
+
+  public void testCanHostPath() {
+    ResidualSnapshot snapshot = new ResidualSnapshot(substrateNetwork);
+    Path path = substrateNetwork.getShortestPathCache().getPath(
+      physicalNodes.get(1), physicalNodes.get(3));
+    VirtualLink virtualLink = new VirtualLink("1:2", new VirtualNode(1, 1),
+                                              new VirtualNode(2, 1), 5, 10);
+    assertTrue(snapshot.canHost(path, virtualLink));
+    snapshot.addBandwidthLoad(physicalLinks.get("2:3"), 6);
+    assertFalse(snapshot.canHost(path, virtualLink));
+    assertTrue(path.canHost(virtualLink));
+  }
+
+  public void testRejectsForeignNode() {
+    ResidualSnapshot snapshot = new ResidualSnapshot(substrateNetwork);
+    try {
+      snapshot.addLoad(new PhysicalNode(99, 10), 1);
+      fail();
+    } catch(RuntimeException e) {
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package simulator.network;
+
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+
+import simulator.network.components.Path;
+import simulator.network.components.physical.*;
+
+public class ShortestPathCacheTest extends TestCase {
+
+  private SubstrateNetwork substrateNetwork;
+  private HashMap<Integer, PhysicalNode> physicalNodes;
+  private HashMap<String, PhysicalLink> physicalLinks;
+
+  public void setUp() {
+    physicalNodes = new HashMap<Integer, PhysicalNode>();
+    physicalLinks = new HashMap<String, PhysicalLink>();
+    for(int i = 1; i < 5; i++) {
+      physicalNodes.put(i, new PhysicalNode(i, 100));
+    }
+    addLink(2, 1, 10);
+    addLink(3, 2, 10);
+    addLink(4, 3, 10);
+    addLink(4, 1, 50);
+    substrateNetwork = new SubstrateNetwork(physicalNodes, physicalLinks);
+  }
+
+  public void testGetPathsFromReachesEveryOtherNode() {
+    HashMap<PhysicalNode, Path> paths = substrateNetwork.getShortestPathCache().
+      getPathsFrom(physicalNodes.get(1));
+    assertEquals(3, paths.size());
+    assertFalse(paths.containsKey(physicalNodes.get(1)));
+  }
+
+  public void testGetPathFollowsSmallestDelay() {
+    Path path = substrateNetwork.getShortestPathCache().getPath(
+      physicalNodes.get(1), physicalNodes.get(4));
+    assertEquals(30D, path.getTotalDelay());
+    assertEquals(3, path.getLinks().size());
+  }
+
+  public void testGetPathIsComputedOnlyOnce() {
+    ShortestPathCache cache = substrateNetwork.getShortestPathCache();
+    assertSame(cache.getPath(physicalNodes.get(1), physicalNodes.get(3)),
+      cache.getPath(physicalNodes.get(1), physicalNodes.get(3)));
+  }
+
+  public void testGetPathsFromReturnsIndependentMaps() {
+    ShortestPathCache cache = substrateNetwork.getShortestPathCache();
+    cache.getPathsFrom(physicalNodes.get(1)).clear();
+    assertEquals(3, cache.getPathsFrom(physicalNodes.get(1)).size());
+  }
+
+  public void testCacheIsKeptWhileTopologyIsUnchanged() {
+    assertSame(substrateNetwork.getShortestPathCache(),
+      substrateNetwork.getShortestPathCache());
+  }
+
+  public void testTopologyChangeInvalidatesCache() {
+    ShortestPathCache cache = substrateNetwork.getShortestPathCache();
+    physicalLinks.remove("4:3");
+    substrateNetwork.setHashLinks(physicalLinks);
+    assertNotSame(cache, substrateNetwork.getShortestPathCache());
+    assertEquals(50D, substrateNetwork.getShortestPathCache().getPath(
+      physicalNodes.get(1), physicalNodes.get(4)).getTotalDelay());
+  }
+
+  private void addLink(int sourceId, int destinyId, double delay) {
+    String linkId = String.format("%s:%s", sourceId, destinyId);
+    physicalLinks.put(linkId, new PhysicalLink(linkId,
+      physicalNodes.get(sourceId), physicalNodes.get(destinyId), 100, delay, 0));
+  }
+}
@@ -0,0 +1,87 @@
+package simulator.network;
+
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+
+import simulator.network.components.Path;
+import simulator.network.components.physical.*;
+import simulator.network.components.virtual.*;
+
+public class ShortestPathTreeTest extends TestCase {
+
+  private HashMap<Integer, PhysicalNode> physicalNodes;
+  private HashMap<String, PhysicalLink> physicalLinks;
+  private ShortestPathTree tree;
+  private VirtualLink virtualLink;
+
+  public void setUp() {
+    physicalNodes = new HashMap<Integer, PhysicalNode>();
+    physicalLinks = new HashMap<String, PhysicalLink>();
+    for(int i = 1; i < 6; i++) {
+      physicalNodes.put(i, new PhysicalNode(i, 100));
+    }
+    addLink(2, 1, 10, 20);
+    addLink(3, 2, 5, 5);
+    addLink(3, 1, 30, 50);
+    SubstrateNetwork substrateNetwork =
+      new SubstrateNetwork(physicalNodes, physicalLinks);
+    tree = substrateNetwork.getShortestPathCache().getTreeFrom(
+      physicalNodes.get(1));
+    virtualLink = new VirtualLink("1:2", new VirtualNode(1, 10),
+      new VirtualNode(2, 10), 5, 25);
+  }
+
+  public void testGetSourceNode() {
+    assertEquals(physicalNodes.get(1), tree.getSourceNode());
+  }
+
+  public void testReaches() {
+    assertTrue(tree.reaches(physicalNodes.get(3)));
+    assertFalse(tree.reaches(physicalNodes.get(1)));
+    assertFalse(tree.reaches(physicalNodes.get(5)));
+  }
+
+  public void testGetDelayTo() {
+    assertEquals(25D, tree.getDelayTo(physicalNodes.get(3)));
+    assertEquals(Double.POSITIVE_INFINITY, tree.getDelayTo(physicalNodes.get(5)));
+  }
+
+  public void testGetPathTo() {
+    Path path = tree.getPathTo(physicalNodes.get(3));
+    assertEquals(physicalNodes.get(1), path.getSourceNode());
+    assertEquals(physicalNodes.get(3), path.getDestinyNode());
+    assertEquals(physicalLinks.get("2:1"), path.getLinks().get(0));
+    assertEquals(physicalLinks.get("3:2"), path.getLinks().get(1));
+  }
+
+  public void testGetPathToUnreachableNode() {
+    assertNull(tree.getPathTo(physicalNodes.get(5)));
+  }
+
+  public void testCanHostMatchesPathCanHost() {
+    PhysicalNode destiny = physicalNodes.get(3);
+    assertTrue(tree.canHost(destiny, virtualLink));
+    assertEquals(tree.getPathTo(destiny).canHost(virtualLink),
+      tree.canHost(destiny, virtualLink));
+  }
+
+  public void testCanHostWhenBandwidthIsMissing() {
+    virtualLink.setBandwidthCapacity(6);
+    assertFalse(tree.canHost(physicalNodes.get(3), virtualLink));
+    assertTrue(tree.canHost(physicalNodes.get(2), virtualLink));
+  }
+
+  public void testCanHostWhenDelayIsExceeded() {
+    virtualLink.setDelay(15);
+    assertFalse(tree.canHost(physicalNodes.get(3), virtualLink));
+  }
+
+  private void addLink(int sourceId, int destinyId, double bandwidth,
+                       double delay) {
+    String linkId = String.format("%s:%s", sourceId, destinyId);
+    physicalLinks.put(linkId, new PhysicalLink(linkId,
+      physicalNodes.get(sourceId), physicalNodes.get(destinyId), bandwidth,
+      delay, 0));
+  }
+}
@@ -5,6 +5,7 @@ import junit.framework.TestCase;
 import java.util.HashMap;
 
 import simulator.network.components.physical.*;
+import simulator.util.Util;
 
 public class SubstrateNetworkTest extends TestCase {
 
@@ -71,6 +72,23 @@ public class SubstrateNetworkTest extends TestCase {
       getPhysicalNodesWithRemainingCapacityGreaterThan(500).size());
   }
 
+  public void testGetMaximumRemainingCapacity() {
+    substrateNetwork.setHashNodes(physicalNodes);
+    physicalNodes.get(5).addLoad(200);
+    assertEquals(400D, substrateNetwork.getMaximumRemainingCapacity());
+  }
+
+  public void testGetAvailabilityRank() {
+    substrateNetwork = new SubstrateNetwork(physicalNodes, physicalLinks);
+    PhysicalNode mostAvailable = null;
+    for(PhysicalNode physicalNode : substrateNetwork.getHashNodes().values()) {
+      if(mostAvailable == null || physicalNode.getNodeAvailability().compareTo(
+         mostAvailable.getNodeAvailability()) > 0)
+        mostAvailable = physicalNode;
+    }
+    assertEquals(0, substrateNetwork.getAvailabilityRank(mostAvailable));
+  }
+
   public void testCollectNodesLoad() {
     substrateNetwork.setHashNodes(physicalNodes);
     assertEquals(physicalNodes.size(),
@@ -136,4 +154,39 @@ public class SubstrateNetworkTest extends TestCase {
     assertEquals(0D,
       substrateNetwork.getLinksBandwidthLoadStandardDeviation());
   }
+
+  public void testLoadStatisticsFollowLoadChanges() {
+    substrateNetwork = new SubstrateNetwork(physicalNodes, physicalLinks);
+    assertEquals(0D, substrateNetwork.getMaximumNodesLoad());
+    physicalNodes.get(1).addLoad(50);
+    physicalLinks.get("1:5").addBandwidthLoad(2.5);
+    assertEquals(0.5, substrateNetwork.getMaximumNodesLoad());
+    assertEquals(0.1, substrateNetwork.getAverageNodesLoad());
+    assertEquals(0.5, substrateNetwork.getMaximumLinksBandwidthLoad());
+    physicalNodes.get(1).removeLoad(50);
+    physicalLinks.get("1:5").removeBandwidthLoad(2.5);
+    assertEquals(0D, substrateNetwork.getAverageNodesLoad());
+    assertEquals(0D, substrateNetwork.getNodesLoadStandardDeviation());
+    assertEquals(0D, substrateNetwork.getAverageLinksBandwidthLoad());
+  }
+
+  public void testLoadStatisticsMatchCollectedLoads() {
+    substrateNetwork = new SubstrateNetwork(physicalNodes, physicalLinks);
+    substrateNetwork.getAverageNodesLoad();
+    substrateNetwork.getAverageLinksBandwidthLoad();
+    for(int i = 1; i < 6; i++)
+      physicalNodes.get(i).addLoad(i * 7.3);
+    physicalLinks.get("2:5").addBandwidthLoad(0.7);
+    physicalLinks.get("3:5").addBandwidthLoad(1.9);
+    physicalNodes.get(4).removeLoad(4 * 7.3);
+    assertEquals(Util.getAverage(substrateNetwork.collectNodesLoad()),
+      substrateNetwork.getAverageNodesLoad());
+    assertEquals(Util.getStandardDeviation(substrateNetwork.collectNodesLoad()),
+      substrateNetwork.getNodesLoadStandardDeviation());
+    assertEquals(Util.getAverage(substrateNetwork.collectLinksBandwidthLoad()),
+      substrateNetwork.getAverageLinksBandwidthLoad());
+    assertEquals(Util.getStandardDeviation(
+      substrateNetwork.collectLinksBandwidthLoad()),
+      substrateNetwork.getLinksBandwidthLoadStandardDeviation());
+  }
 }
@@ -0,0 +1,120 @@
+package simulator.network;
+
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+
+import simulator.network.components.physical.*;
+
+public class SubstrateTopologyTest extends TestCase {
+
+  private SubstrateNetwork substrateNetwork;
+  private HashMap<Integer, PhysicalNode> physicalNodes;
+  private HashMap<String, PhysicalLink> physicalLinks;
+  private SubstrateTopology topology;
+
+  public void setUp() {
+    physicalNodes = new HashMap<Integer, PhysicalNode>();
+    physicalLinks = new HashMap<String, PhysicalLink>();
+    for(int i = 1; i < 6; i++) {
+      physicalNodes.put(i, new PhysicalNode(i, i * 100));
+    }
+    for(int i = 1; i < 5; i++) {
+      String linkId = String.format("%s:%s", i, 5);
+      physicalLinks.put(linkId, new PhysicalLink(linkId, physicalNodes.get(i),
+                                                 physicalNodes.get(5), 10 * i, i, 5));
+    }
+    substrateNetwork = new SubstrateNetwork(physicalNodes, physicalLinks);
+    topology = substrateNetwork.getTopology();
+  }
+
+  public void testAmounts() {
+    assertEquals(5, topology.getAmountNodes());
+    assertEquals(4, topology.getAmountLinks());
+  }
+
+  public void testIndexesMatchComponents() {
+    for(PhysicalNode node : physicalNodes.values()) {
+      assertSame(node, topology.getNode(topology.indexOf(node)));
+      assertEquals(node.getIndex(), topology.indexOf(node));
+    }
+    for(PhysicalLink link : physicalLinks.values()) {
+      assertSame(link, topology.getLink(topology.indexOf(link)));
+    }
+  }
+
+  public void testIndexOfForeignNode() {
+    assertEquals(-1, topology.indexOf(new PhysicalNode(1, 100)));
+  }
+
+  public void testAdjacency() {
+    int hub = topology.indexOf(physicalNodes.get(5));
+    assertEquals(4, topology.getDegree(hub));
+    for(int i = topology.getAdjacencyStart(hub); i < topology.getAdjacencyEnd(hub); i++) {
+      int link = topology.getAdjacentLink(i);
+      int target = topology.getTarget(i);
+      assertEquals(hub, topology.getLinkDestiny(link));
+      assertEquals(target, topology.getLinkSource(link));
+      assertEquals(1, topology.getDegree(target));
+    }
+  }
+
+  public void testParallelAttributes() {
+    PhysicalLink link = physicalLinks.get("3:5");
+    int index = topology.indexOf(link);
+    assertEquals(link.getDelay(), topology.getLinkDelay(index));
+    assertEquals(link.getBandwidthCapacity(), topology.getLinkBandwidthCapacity(index));
+    PhysicalNode node = physicalNodes.get(2);
+    assertEquals(node.getCapacity(), topology.getNodeCapacity(topology.indexOf(node)));
+  }
+
+  public void testNodesByAvailability() {
+    int[] nodesByAvailability = topology.getNodesByAvailability();
+    assertEquals(5, nodesByAvailability.length);
+    for(int rank = 0; rank < nodesByAvailability.length; rank++) {
+      assertEquals(rank, topology.getAvailabilityRank(nodesByAvailability[rank]));
+      if(rank > 0) {
+        assertTrue(topology.getNode(nodesByAvailability[rank - 1]).
+          getNodeAvailability().compareTo(topology.getNode(
+            nodesByAvailability[rank]).getNodeAvailability()) >= 0);
+      }
+    }
+  }
+
+  public void testCollectNodesWithRemainingCapacity() {
+    int[] nodes = new int[topology.getAmountNodes()];
+    assertEquals(3, topology.collectNodesWithRemainingCapacityAtLeast(300, nodes));
+    for(int i = 1; i < 3; i++) {
+      assertTrue(topology.getAvailabilityRank(nodes[i - 1])
+        < topology.getAvailabilityRank(nodes[i]));
+    }
+    assertEquals(2, topology.collectNodesWithRemainingCapacityGreaterThan(300,
+      nodes));
+    physicalNodes.get(5).addLoad(450);
+    assertEquals(1, topology.collectNodesWithRemainingCapacityGreaterThan(300,
+      nodes));
+    assertEquals(400D, topology.getMaxRemainingCapacity());
+  }
+
+  public void testRemainingCapacityFollowsNodeLoad() {
+    PhysicalNode node = physicalNodes.get(2);
+    node.addLoad(50.5);
+    assertEquals(node.getRemainingCapacity(),
+      topology.getRemainingCapacity(topology.indexOf(node)));
+    node.removeLoad(50.5);
+    assertEquals(node.getCapacity(),
+      topology.getRemainingCapacity(topology.indexOf(node)));
+  }
+
+  public void testResidualBandwidthFollowsLinkLoad() {
+    PhysicalLink link = physicalLinks.get("4:5");
+    link.addBandwidthLoad(12.3);
+    assertEquals(link.getRemainingBandwidth(),
+      topology.getResidualBandwidth(topology.indexOf(link)));
+  }
+
+  public void testTopologyIsRebuiltAfterInvalidation() {
+    substrateNetwork.invalidateTopology();
+    assertNotSame(topology, substrateNetwork.getTopology());
+  }
+}
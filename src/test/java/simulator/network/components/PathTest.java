@@ -71,6 +71,11 @@ public class PathTest extends TestCase {
       path.getAvailability().round(new MathContext(8)).doubleValue());
   }
 
+  public void testGetLogAvailability() {
+    assertEquals(Math.log(path.getAvailability().doubleValue()),
+      path.getLogAvailability(), 1e-8);
+  }
+
   public void testGetLinks() {
     ArrayList<PhysicalLink> links = path.getLinks();
     assertTrue(links.contains(physicalLink1));
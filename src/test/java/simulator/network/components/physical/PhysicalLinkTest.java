@@ -50,6 +50,11 @@ public class PhysicalLinkTest extends TestCase {
     assertNotNull(physicalLink.getAvailability());
   }
 
+  public void testGetLogAvailability() {
+    assertEquals(Math.log(physicalLink.getAvailability().doubleValue()),
+      physicalLink.getLogAvailability(), 1e-12);
+  }
+
   public void testSourceNodeAttachment() {
     assertTrue(node1.getAttachedLinks().contains(physicalLink));
   }
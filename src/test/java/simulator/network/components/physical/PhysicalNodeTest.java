@@ -33,6 +33,11 @@ public class PhysicalNodeTest extends TestCase {
     assertNotNull(physicalNode.getNodeAvailability());
   }
 
+  public void testGetNodeAvailabilityIsCached() {
+    assertSame(physicalNode.getNodeAvailability(),
+      physicalNode.getNodeAvailability());
+  }
+
   public void testGetIntermediaryNodeAvailability() {
     assertNotNull(physicalNode.getIntermediaryNodeAvailability());
   }
@@ -62,6 +67,13 @@ public class PhysicalNodeTest extends TestCase {
       physicalNode.getNodeAvailability()));
   }
 
+  public void testGetLogAvailability() {
+    assertEquals(Math.log(physicalNode.getNodeAvailability().doubleValue()),
+      physicalNode.getLogAvailability(), 1e-12);
+    assertEquals(Math.log(physicalNode.getIntermediaryNodeAvailability().
+      doubleValue()), physicalNode.getIntermediaryNodeLogAvailability(), 1e-12);
+  }
+
   public void testAddLoad() {
     double initialLoad = physicalNode.getLoad();
     double loadVar = 50.05;
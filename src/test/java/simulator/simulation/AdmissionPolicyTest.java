@@ -0,0 +1,42 @@
+package simulator.simulation;
+
+import junit.framework.TestCase;
+
+import simulator.network.components.virtual.VirtualLink;
+import simulator.network.components.virtual.VirtualNode;
+
+public class AdmissionPolicyTest extends TestCase {
+
+  private Request smallRequest;
+  private Request largeRequest;
+
+  public void setUp() {
+    smallRequest = new Request(0, 0, 100);
+    smallRequest.getVirtualNodes().put(0, new VirtualNode(0, 10));
+    largeRequest = new Request(1, 0, 10);
+    VirtualNode source = new VirtualNode(0, 5);
+    VirtualNode destiny = new VirtualNode(1, 5);
+    largeRequest.getVirtualNodes().put(0, source);
+    largeRequest.getVirtualNodes().put(1, destiny);
+    largeRequest.getVirtualLinks().put("0:1",
+      new VirtualLink("0:1", source, destiny, 20, 1));
+  }
+
+  public void testArrivalOrderKeepsEveryRequestEqual() {
+    assertEquals(0, AdmissionPolicy.ARRIVAL_ORDER.compare(smallRequest,
+      largeRequest));
+  }
+
+  public void testLargestFirst() {
+    assertTrue(AdmissionPolicy.LARGEST_FIRST.compare(largeRequest,
+      smallRequest) < 0);
+    assertTrue(AdmissionPolicy.LARGEST_FIRST.compare(smallRequest,
+      largeRequest) > 0);
+  }
+
+  public void testHighestRevenueWeighsLifeTime() {
+    // (10 + 0) * 100 contra (5 + 5 + 20) * 10
+    assertTrue(AdmissionPolicy.HIGHEST_REVENUE.compare(smallRequest,
+      largeRequest) < 0);
+  }
+}
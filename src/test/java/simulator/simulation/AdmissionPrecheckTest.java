@@ -0,0 +1,94 @@
+package simulator.simulation;
+
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+
+import generator.dependability.AvailabilityGenerator;
+
+import simulator.network.SubstrateNetwork;
+import simulator.network.components.physical.PhysicalLink;
+import simulator.network.components.physical.PhysicalNode;
+import simulator.network.components.virtual.VirtualLink;
+import simulator.network.components.virtual.VirtualNode;
+
+public class AdmissionPrecheckTest extends TestCase {
+
+  private SubstrateNetwork substrateNetwork;
+  private AdmissionPrecheck precheck;
+
+  // Estrela: nós 1 a 4, de capacidade i * 100, ligados ao nó 5 com banda 5
+  public void setUp() {
+    AvailabilityGenerator availabilityGenerator = new AvailabilityGenerator(7);
+    HashMap<Integer, PhysicalNode> physicalNodes =
+      new HashMap<Integer, PhysicalNode>();
+    HashMap<String, PhysicalLink> physicalLinks =
+      new HashMap<String, PhysicalLink>();
+    for(int i = 1; i < 6; i++)
+      physicalNodes.put(i, new PhysicalNode(i, i * 100, availabilityGenerator));
+    for(int i = 1; i < 5; i++) {
+      String linkId = String.format("%s:%s", i, 5);
+      physicalLinks.put(linkId, new PhysicalLink(linkId, physicalNodes.get(i),
+        physicalNodes.get(5), 5, 5, 5, availabilityGenerator));
+    }
+    substrateNetwork = new SubstrateNetwork(physicalNodes, physicalLinks);
+    precheck = new AdmissionPrecheck();
+  }
+
+  public void testFeasibleRequestPasses() {
+    assertNull(precheck.check(linkedPair(10, 3), substrateNetwork));
+  }
+
+  public void testNodeLargerThanAnyRemainingCapacity() {
+    Request request = new Request(0, 0, 10);
+    request.getVirtualNodes().put(0, new VirtualNode(0, 600));
+    assertEquals(RejectionReason.NODE_TOO_LARGE,
+      precheck.check(request, substrateNetwork));
+  }
+
+  public void testDemandLargerThanTotalRemainingCapacity() {
+    Request request = new Request(0, 0, 10);
+    for(int i = 0; i < 4; i++)
+      request.getVirtualNodes().put(i, new VirtualNode(i, 400));
+    assertEquals(RejectionReason.NOT_ENOUGH_CAPACITY,
+      precheck.check(request, substrateNetwork));
+  }
+
+  public void testLinkWiderThanAnyAdjacentBandwidth() {
+    assertEquals(RejectionReason.NOT_ENOUGH_BANDWIDTH,
+      precheck.check(linkedPair(10, 6), substrateNetwork));
+    assertNull(new AdmissionPrecheck(true).check(linkedPair(10, 6),
+      substrateNetwork));
+  }
+
+  public void testNodeLinksNeedMoreThanBandwidthAround() {
+    // O centro pede 4 * 5 = 20, o que só o nó 5 tem ao redor
+    Request request = new Request(0, 0, 10);
+    VirtualNode center = new VirtualNode(0, 450);
+    request.getVirtualNodes().put(0, center);
+    for(int i = 1; i < 5; i++) {
+      VirtualNode leaf = new VirtualNode(i, 10);
+      request.getVirtualNodes().put(i, leaf);
+      request.getVirtualLinks().put("0:" + i,
+        new VirtualLink("0:" + i, center, leaf, 5, 1));
+    }
+    assertNull(precheck.check(request, substrateNetwork));
+    center.setCapacity(300);
+    assertNull(precheck.check(request, substrateNetwork));
+    request.getVirtualLinks().get("0:1").setBandwidthCapacity(5.5);
+    assertEquals(RejectionReason.NOT_ENOUGH_BANDWIDTH,
+      precheck.check(request, substrateNetwork));
+  }
+
+  private Request linkedPair(double capacity, double bandwidth) {
+    Request request = new Request(0, 0, 10);
+    VirtualNode source = new VirtualNode(0, capacity);
+    VirtualNode destiny = new VirtualNode(1, capacity);
+    request.getVirtualNodes().put(0, source);
+    request.getVirtualNodes().put(1, destiny);
+    request.getVirtualLinks().put("0:1",
+      new VirtualLink("0:1", source, destiny, bandwidth, 1));
+
+    return request;
+  }
+}
@@ -0,0 +1,121 @@
+package simulator.simulation;
+
+import junit.framework.TestCase;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+public class RequestEventQueueTest extends TestCase {
+
+  private RequestEventQueue queue;
+
+  public void setUp() {
+    queue = new RequestEventQueue(64);
+  }
+
+  public void testPollOnEmptyQueue() {
+    assertTrue(queue.isEmpty());
+    assertNull(queue.poll());
+  }
+
+  public void testPollsInTimeOrder() {
+    queue.add(arrival(1, 30));
+    queue.add(arrival(2, 10));
+    queue.add(arrival(3, 20));
+    assertEquals(3, queue.size());
+    assertEquals(10, queue.poll().getTime());
+    assertEquals(20, queue.poll().getTime());
+    assertEquals(30, queue.poll().getTime());
+    assertTrue(queue.isEmpty());
+  }
+
+  public void testSameTimeEventsComeDeparturesFirstThenById() {
+    queue.add(arrival(3, 5));
+    queue.add(arrival(1, 5));
+    queue.add(new RequestEvent(new Request(2, 0, 5), 5, RequestEvent.DEPARTURE_EVENT));
+    RequestEvent event = queue.poll();
+    assertTrue(event.isDepartureEvent());
+    assertEquals(1, queue.poll().getRequest().getId());
+    assertEquals(3, queue.poll().getRequest().getId());
+  }
+
+  public void testEventsBeyondWindow() {
+    queue.add(arrival(1, 0));
+    queue.add(arrival(2, 1000));
+    queue.add(arrival(3, 70));
+    assertEquals(0, queue.poll().getTime());
+    queue.add(arrival(4, 500));
+    assertEquals(70, queue.poll().getTime());
+    assertEquals(500, queue.poll().getTime());
+    assertEquals(1000, queue.poll().getTime());
+  }
+
+  public void testEventAddedToCurrentTime() {
+    queue.add(arrival(5, 3));
+    queue.add(arrival(6, 3));
+    assertEquals(5, queue.poll().getRequest().getId());
+    queue.add(new RequestEvent(new Request(9, 0, 3), 3, RequestEvent.DEPARTURE_EVENT));
+    assertEquals(9, queue.poll().getRequest().getId());
+    assertEquals(6, queue.poll().getRequest().getId());
+  }
+
+  public void testEventBeforeLastPolledEvent() {
+    queue.add(arrival(1, 10));
+    queue.poll();
+    try {
+      queue.add(arrival(2, 9));
+      fail("Event before the last polled one should be rejected.");
+    } catch(RuntimeException e) {
+    }
+  }
+
+  public void testMatchesPriorityQueueOrder() {
+    Random random = new Random(3);
+    PriorityQueue<RequestEvent> expected = new PriorityQueue<RequestEvent>();
+    int id = 0;
+    for(int i = 0; i < 200; i++) {
+      RequestEvent event = arrival(id++, random.nextInt(500));
+      queue.add(event);
+      expected.add(event);
+    }
+    while(!expected.isEmpty()) {
+      RequestEvent event = queue.poll();
+      assertSame(expected.poll(), event);
+      if(event.isArrivalEvent()) {
+        RequestEvent departure = new RequestEvent(event.getRequest(),
+          event.getTime() + random.nextInt(300), RequestEvent.DEPARTURE_EVENT);
+        queue.add(departure);
+        expected.add(departure);
+      }
+    }
+    assertTrue(queue.isEmpty());
+  }
+
+  public void testPeekDoesNotRemove() {
+    assertNull(queue.peek());
+    queue.add(arrival(1, 300));
+    queue.add(arrival(2, 20));
+    assertEquals(2, queue.peek().getRequest().getId());
+    assertEquals(2, queue.size());
+    assertEquals(2, queue.poll().getRequest().getId());
+    assertEquals(1, queue.peek().getRequest().getId());
+    assertEquals(1, queue.poll().getRequest().getId());
+  }
+
+  public void testGetEventsListsRingAndOverflow() {
+    queue.add(arrival(1, 5));
+    queue.add(arrival(2, 5));
+    queue.add(arrival(3, 500));
+    queue.poll();
+    assertEquals(2, queue.getEvents().size());
+    int sum = 0;
+    for(RequestEvent event : queue.getEvents())
+      sum += event.getRequest().getId();
+    assertEquals(5, sum);
+    assertEquals(2, queue.size());
+  }
+
+  private RequestEvent arrival(int id, int time) {
+    return new RequestEvent(new Request(id, time, 1), time, RequestEvent.ARRIVAL_EVENT);
+  }
+}
@@ -31,4 +31,16 @@ public class RequestEventTest extends TestCase {
   public void testCompareToLesserEvent() {
     assertEquals(1, event.compareTo(new RequestEvent(request, 1, RequestEvent.ARRIVAL_EVENT)));
   }
+
+  public void testCompareToPutsDeparturesFirst() {
+    assertEquals(1, event.compareTo(new RequestEvent(new Request(9, 0, 2), 2,
+      RequestEvent.DEPARTURE_EVENT)));
+  }
+
+  public void testCompareToBreaksTiesByRequestId() {
+    assertEquals(-1, event.compareTo(new RequestEvent(new Request(2, 2, 3), 2,
+      RequestEvent.ARRIVAL_EVENT)));
+    assertEquals(0, event.compareTo(new RequestEvent(request, 2,
+      RequestEvent.ARRIVAL_EVENT)));
+  }
 }
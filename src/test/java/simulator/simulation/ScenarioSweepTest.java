@@ -0,0 +1,121 @@
+package simulator.simulation;
+
+import junit.framework.TestCase;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import generator.util.RandomContext;
+
+import simulator.io.IVNMPReader;
+import simulator.io.IVNMPReaderFactory;
+import simulator.io.OptFIVNMPReader;
+import simulator.io.VirtuaVNMPReader;
+import simulator.mapping.GraspMapper;
+import simulator.mapping.HaterMapper;
+import simulator.mapping.IMapper;
+import simulator.mapping.IMapperFactory;
+
+public class ScenarioSweepTest extends TestCase {
+
+  private File outputDirectory;
+  private ScenarioSweep sweep;
+
+  public void setUp() throws IOException {
+    outputDirectory = File.createTempFile("sweep", "");
+    outputDirectory.delete();
+    outputDirectory.mkdir();
+    sweep = createSweep();
+  }
+
+  protected void tearDown() {
+    for(File file : outputDirectory.listFiles())
+      file.delete();
+    outputDirectory.delete();
+  }
+
+  public void testRunsEveryInstanceAndConfiguration() {
+    ArrayList<SweepResult> results = sweep.run(2);
+    assertEquals(4, results.size());
+    for(SweepResult result : results) {
+      assertTrue(result.isSuccessful());
+      assertTrue(result.getWallTime() >= 0);
+      assertTrue(new File(result.getSimulationName() + "_simulation.txt").exists());
+    }
+  }
+
+  public void testRunsLargestInstancesFirst() {
+    ArrayList<SweepResult> results = sweep.run(1);
+    assertEquals("eu_20_0_prob", results.get(0).getInstance().getName());
+    assertEquals("vVNMP1.txt", results.get(3).getInstance().getName());
+  }
+
+  public void testNamesSimulationsByConfiguration() {
+    ArrayList<SweepResult> results = sweep.run(1);
+    assertEquals(new File(outputDirectory, "grasp_eu_20_0_prob").getPath(),
+      new File(results.get(0).getSimulationName()).getPath());
+    assertEquals(new File(outputDirectory, "hater_vVNMP1").getPath(),
+      new File(results.get(3).getSimulationName()).getPath());
+  }
+
+  public void testResultsDoNotDependOnThreads() throws IOException {
+    sweep.run(1);
+    ArrayList<String> sequentialTrace = readTrace("grasp_vVNMP1");
+    createSweep().run(4);
+    assertEquals(sequentialTrace, readTrace("grasp_vVNMP1"));
+  }
+
+  public void testRecordsFailures() {
+    sweep = createSweep();
+    sweep.addInstance(new File(outputDirectory, "missing.txt"));
+    int failures = 0;
+    for(SweepResult result : sweep.run(2)) {
+      if(!result.isSuccessful())
+        failures++;
+    }
+    assertEquals(2, failures);
+  }
+
+  private ScenarioSweep createSweep() {
+    ScenarioSweep sweep = new ScenarioSweep(outputDirectory.getPath() + File.separator,
+      new IVNMPReaderFactory() {
+        public IVNMPReader createReader(File instance, RandomContext context) {
+          if(instance.getName().endsWith(".txt"))
+            return new VirtuaVNMPReader(instance.getPath(), context);
+
+          return new OptFIVNMPReader(instance.getPath(), context);
+        }
+      }, new RandomContext(5));
+    sweep.addInstance(new File("src/test/resources/VirtuaSimulator/VNMPs/vVNMP1.txt"));
+    sweep.addInstance(new File("src/test/resources/OptFI/VNMPs/eu_20_0_prob"));
+    sweep.addConfiguration("grasp", new IMapperFactory() {
+      public IMapper createMapper(RandomContext context) {
+        return new GraspMapper(context);
+      }
+    });
+    sweep.addConfiguration("hater", new IMapperFactory() {
+      public IMapper createMapper(RandomContext context) {
+        return new HaterMapper();
+      }
+    });
+
+    return sweep;
+  }
+
+  // Linhas do trace, sem a última, que guarda o tempo de execução
+  private ArrayList<String> readTrace(String simulationName) throws IOException {
+    BufferedReader reader = new BufferedReader(new FileReader(
+      new File(outputDirectory, simulationName + "_simulation.txt")));
+    ArrayList<String> lines = new ArrayList<String>();
+    String line;
+    while((line = reader.readLine()) != null)
+      lines.add(line);
+    reader.close();
+    lines.remove(lines.size() - 1);
+
+    return lines;
+  }
+}
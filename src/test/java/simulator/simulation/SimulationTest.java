@@ -3,15 +3,27 @@ package simulator.simulation;
 import junit.framework.TestCase;
 
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 
+import generator.util.RandomContext;
+
+import graphicator.io.BinaryTraceReader;
+
+import simulator.io.ICheckpointable;
+import simulator.io.ListRequestSource;
 import simulator.io.OptFIVNMPReader;
+import simulator.mapping.GraspMapper;
 import simulator.mapping.IMapper;
 import simulator.mapping.HaterMapper;
 import simulator.mapping.Mapping;
+import simulator.network.SubstrateNetwork;
+import simulator.network.components.virtual.VirtualNode;
 
 public class SimulationTest extends TestCase {
 
@@ -19,6 +31,7 @@ public class SimulationTest extends TestCase {
   private Simulation simulation;
   private IMapper mapper;
   private final String OUTPUT_FILE_NAME = "OptFIVNMP_20_0_simulation.txt";
+  private final String CHECKPOINT_FILE_NAME = "OptFIVNMP_20_0.checkpoint";
 
   public void setUp() {
     simulationName = "OptFIVNMP_20_0";
@@ -32,6 +45,8 @@ public class SimulationTest extends TestCase {
     if(outputFile.exists()) {
       outputFile.delete();
     }
+    new File(CHECKPOINT_FILE_NAME).delete();
+    new File(CHECKPOINT_FILE_NAME + ".outcomes").delete();
   }
 
   public void testGetMappings() {
@@ -58,4 +73,310 @@ public class SimulationTest extends TestCase {
     assertTrue("Last line should hold the time information.",
       Integer.valueOf(lastLine) > 0);
   }
+
+  public void testRejectedRequestsOutcomes() {
+    simulation.simulate(mapper);
+    assertFalse(simulation.getOutcomes().isEmpty());
+    for(RequestOutcome outcome : simulation.getOutcomes())
+      assertFalse(outcome.isAccepted());
+  }
+
+  public void testSimulationWithoutRetainedMappings() {
+    Simulation retainingSimulation = createGraspSimulation();
+    retainingSimulation.simulate(new GraspMapper(new RandomContext(3)));
+    int acceptedRequests = retainingSimulation.getMappings().size();
+
+    simulation = createGraspSimulation();
+    simulation.setRetainDepartedMappings(false);
+    simulation.simulate(new GraspMapper(new RandomContext(3)));
+    assertEquals(0, simulation.getMappings().size());
+    int acceptedOutcomes = 0;
+    for(RequestOutcome outcome : simulation.getOutcomes()) {
+      if(outcome.isAccepted()) {
+        acceptedOutcomes++;
+        assertTrue(outcome.getAvailability() > 0);
+        assertTrue(outcome.getPhysicalNodes() > 0);
+      }
+    }
+    assertTrue(acceptedRequests > 0);
+    assertEquals(acceptedRequests, acceptedOutcomes);
+    assertEquals(retainingSimulation.getOutcomes().size(),
+      simulation.getOutcomes().size());
+  }
+
+  private Simulation createGraspSimulation() {
+    return new Simulation(simulationName, new OptFIVNMPReader(
+      "src/test/resources/OptFI/VNMPs/eu_20_0_prob", new RandomContext(3)));
+  }
+
+  public void testSimulationWithStreamedRequests() {
+    Simulation readingSimulation = createGraspSimulation();
+    readingSimulation.simulate(new GraspMapper(new RandomContext(3)));
+
+    OptFIVNMPReader streamingReader = new OptFIVNMPReader(
+      "src/test/resources/OptFI/VNMPs/eu_20_0_prob", new RandomContext(3), true);
+    simulation = new Simulation(simulationName, streamingReader);
+    simulation.simulate(new GraspMapper(new RandomContext(3)));
+    assertEquals(readingSimulation.getOutcomes().size(),
+      simulation.getOutcomes().size());
+    for(int i = 0; i < simulation.getOutcomes().size(); i++) {
+      RequestOutcome expected = readingSimulation.getOutcomes().get(i);
+      RequestOutcome outcome = simulation.getOutcomes().get(i);
+      assertEquals(expected.getRequestId(), outcome.getRequestId());
+      assertEquals(expected.isAccepted(), outcome.isAccepted());
+      assertEquals(expected.getAvailability(), outcome.getAvailability());
+    }
+  }
+
+  public void testResumeFromCheckpointMatchesUninterruptedRun() throws Exception {
+    simulation = createGraspSimulation();
+    simulation.simulate(new CrashingMapper(Integer.MAX_VALUE));
+    ArrayList<String> expectedTrace = readTraceEvents();
+    ArrayList<RequestOutcome> expectedOutcomes = simulation.getOutcomes();
+
+    simulation = createGraspSimulation();
+    simulation.setCheckpoint(CHECKPOINT_FILE_NAME, 4);
+    try {
+      simulation.simulate(new CrashingMapper(30));
+      fail("Mapper should have crashed the simulation.");
+    } catch(RuntimeException e) {
+      assertEquals("crash", e.getMessage());
+    }
+    assertTrue(new File(CHECKPOINT_FILE_NAME).exists());
+
+    simulation = createGraspSimulation();
+    simulation.setCheckpoint(CHECKPOINT_FILE_NAME, 4);
+    simulation.resume(new CrashingMapper(Integer.MAX_VALUE));
+    assertEquals(expectedTrace, readTraceEvents());
+    assertEquals(expectedOutcomes.size(), simulation.getOutcomes().size());
+    for(int i = 0; i < expectedOutcomes.size(); i++) {
+      RequestOutcome expected = expectedOutcomes.get(i);
+      RequestOutcome outcome = simulation.getOutcomes().get(i);
+      assertEquals(expected.getRequestId(), outcome.getRequestId());
+      assertEquals(expected.isAccepted(), outcome.isAccepted());
+      assertEquals(expected.getAvailability(), outcome.getAvailability());
+    }
+    assertFalse(new File(CHECKPOINT_FILE_NAME).exists());
+    assertFalse(new File(CHECKPOINT_FILE_NAME + ".outcomes").exists());
+  }
+
+  public void testResumeWithoutCheckpointSimulatesFromStart() {
+    simulation.setCheckpoint(CHECKPOINT_FILE_NAME, 4);
+    simulation.resume(mapper);
+    assertFalse(simulation.getOutcomes().isEmpty());
+    assertTrue(new File(OUTPUT_FILE_NAME).exists());
+  }
+
+  // Linhas do rastro sem a última, que traz o tempo de execução
+  private ArrayList<String> readTraceEvents() throws IOException {
+    return readTraceEvents(OUTPUT_FILE_NAME);
+  }
+
+  private ArrayList<String> readTraceEvents(String fileName) throws IOException {
+    BufferedReader reader = new BufferedReader(new FileReader(fileName));
+    ArrayList<String> lines = new ArrayList<String>();
+    String line;
+    while((line = reader.readLine()) != null)
+      lines.add(line);
+    reader.close();
+    lines.remove(lines.size() - 1);
+
+    return lines;
+  }
+
+  // GraspMapper que falha depois de certo número de mapeamentos
+  private static class CrashingMapper implements IMapper, ICheckpointable {
+    private GraspMapper mapper = new GraspMapper(new RandomContext(3));
+    private int remainingMaps;
+
+    CrashingMapper(int maps) {
+      remainingMaps = maps;
+    }
+
+    public Mapping map(Request request, SubstrateNetwork substrateNetwork) {
+      if(remainingMaps-- == 0)
+        throw new RuntimeException("crash");
+
+      return mapper.map(request, substrateNetwork);
+    }
+
+    public void writeCheckpoint(DataOutputStream out) throws IOException {
+      mapper.writeCheckpoint(out);
+    }
+
+    public void readCheckpoint(DataInputStream in) throws IOException {
+      mapper.readCheckpoint(in);
+    }
+  }
+
+  public void testAdmissionPolicyOrdersArrivalsOfSameTime() throws Exception {
+    ArrayList<Request> requests = new ArrayList<Request>();
+    requests.add(requestWithNodes(1, 0, 1));
+    requests.add(requestWithNodes(2, 0, 3));
+    requests.add(requestWithNodes(3, 0, 2));
+    requests.add(requestWithNodes(4, 1, 5));
+    simulation = new Simulation(simulationName, new SubstrateNetwork(),
+      new ListRequestSource(requests));
+    simulation.setAdmissionPolicy(AdmissionPolicy.LARGEST_FIRST);
+    simulation.simulate(mapper);
+    ArrayList<String> trace = readTraceEvents();
+    assertEquals(4, trace.size());
+    String[] expectedIds = { "2", "3", "1", "4" };
+    for(int i = 0; i < expectedIds.length; i++)
+      assertEquals(expectedIds[i], trace.get(i).split(" ")[0]);
+    assertEquals(2, simulation.getOutcomes().get(0).getRequestId());
+  }
+
+  public void testPrecheckRejectsWithoutCallingMapper() {
+    ArrayList<Request> requests = new ArrayList<Request>();
+    requests.add(requestWithNodes(1, 0, 2));
+    simulation = new Simulation(simulationName, new SubstrateNetwork(),
+      new ListRequestSource(requests));
+    simulation.setAdmissionPrecheck(new AdmissionPrecheck());
+    simulation.simulate(new CrashingMapper(0));
+    assertEquals(RejectionReason.NODE_TOO_LARGE,
+      simulation.getOutcomes().get(0).getRejectionReason());
+  }
+
+  public void testMapperRejectionReason() {
+    simulation.simulate(mapper);
+    assertEquals(RejectionReason.MAPPING_FAILED,
+      simulation.getOutcomes().get(0).getRejectionReason());
+  }
+
+  public void testBinaryTraceHoldsTheTextTraceFields() throws Exception {
+    simulation = createGraspSimulation();
+    simulation.simulate(new GraspMapper(new RandomContext(3)));
+    ArrayList<String> textTrace = readTraceEvents();
+
+    simulation = createGraspSimulation();
+    simulation.setBinaryTrace(true);
+    simulation.simulate(new GraspMapper(new RandomContext(3)));
+    String binaryFileName = simulation.getTraceFileName();
+    try {
+      BinaryTraceReader reader = new BinaryTraceReader(binaryFileName);
+      assertEquals(textTrace.size(), reader.getAmountRecords());
+      assertTrue(reader.getExecutionTime() > 0);
+      for(int record = 0; record < textTrace.size(); record++) {
+        String[] tokens = textTrace.get(record).split(" ");
+        for(int column = 0; column < tokens.length; column++) {
+          assertEquals(Double.valueOf(tokens[column]),
+            reader.getDouble(record, column));
+        }
+      }
+    } finally {
+      new File(binaryFileName).delete();
+    }
+  }
+
+  public void testAsyncTraceMatchesSynchronousTrace() throws Exception {
+    simulation = createGraspSimulation();
+    simulation.simulate(new GraspMapper(new RandomContext(3)));
+    ArrayList<String> expectedTrace = readTraceEvents();
+
+    simulation = createGraspSimulation();
+    simulation.setAsyncTrace(true);
+    simulation.simulate(new GraspMapper(new RandomContext(3)));
+    assertEquals(expectedTrace, readTraceEvents());
+  }
+
+  public void testSampledTraceKeepsEveryNthEvent() throws Exception {
+    simulation = createGraspSimulation();
+    simulation.simulate(new GraspMapper(new RandomContext(3)));
+    ArrayList<String> fullTrace = readTraceEvents();
+
+    simulation = createGraspSimulation();
+    simulation.setTraceSampling(3);
+    simulation.setAsyncTrace(true);
+    simulation.simulate(new GraspMapper(new RandomContext(3)));
+    ArrayList<String> sampledTrace = readTraceEvents();
+    assertEquals((fullTrace.size() + 2) / 3, sampledTrace.size());
+    for(int i = 0; i < sampledTrace.size(); i++)
+      assertEquals(fullTrace.get(3 * i), sampledTrace.get(i));
+  }
+
+  public void testWindowedTraceAggregatesEveryEvent() throws Exception {
+    simulation = createGraspSimulation();
+    simulation.simulate(new GraspMapper(new RandomContext(3)));
+    ArrayList<String> fullTrace = readTraceEvents();
+
+    simulation = createGraspSimulation();
+    simulation.setTraceWindow(10);
+    simulation.simulate(new GraspMapper(new RandomContext(3)));
+    String windowFileName = simulation.getTraceFileName();
+    try {
+      ArrayList<String> windows = readTraceEvents(windowFileName);
+      assertTrue(windows.size() < fullTrace.size());
+      int events = 0;
+      int previousStart = -1;
+      for(String window : windows) {
+        String[] tokens = window.split(" ");
+        int start = Integer.valueOf(tokens[0]);
+        assertEquals(0, start % 10);
+        assertTrue(start > previousStart);
+        previousStart = start;
+        events += Integer.valueOf(tokens[2]);
+      }
+      assertEquals(fullTrace.size(), events);
+    } finally {
+      new File(windowFileName).delete();
+    }
+  }
+
+  public void testTraceWindowRejectsOtherTraceOptions() {
+    simulation.setTraceSampling(3);
+    try {
+      simulation.setTraceWindow(10);
+      fail("Windows and sampling should not combine.");
+    } catch(RuntimeException e) {
+    }
+    simulation.setTraceSampling(1);
+    simulation.setTraceWindow(10);
+    try {
+      simulation.setBinaryTrace(true);
+      fail("Windows and binary traces should not combine.");
+    } catch(RuntimeException e) {
+    }
+    try {
+      simulation.setAsyncTrace(true);
+      fail("Windows and async traces should not combine.");
+    } catch(RuntimeException e) {
+    }
+  }
+
+  public void testResumeWindowedTraceMatchesUninterruptedRun() throws Exception {
+    simulation = createGraspSimulation();
+    simulation.setTraceWindow(10);
+    simulation.simulate(new CrashingMapper(Integer.MAX_VALUE));
+    String windowFileName = simulation.getTraceFileName();
+    try {
+      ArrayList<String> expectedWindows = readTraceEvents(windowFileName);
+
+      simulation = createGraspSimulation();
+      simulation.setTraceWindow(10);
+      simulation.setCheckpoint(CHECKPOINT_FILE_NAME, 3);
+      try {
+        simulation.simulate(new CrashingMapper(30));
+        fail("Mapper should have crashed the simulation.");
+      } catch(RuntimeException e) {
+        assertEquals("crash", e.getMessage());
+      }
+
+      simulation = createGraspSimulation();
+      simulation.setTraceWindow(10);
+      simulation.setCheckpoint(CHECKPOINT_FILE_NAME, 3);
+      simulation.resume(new CrashingMapper(Integer.MAX_VALUE));
+      assertEquals(expectedWindows, readTraceEvents(windowFileName));
+    } finally {
+      new File(windowFileName).delete();
+    }
+  }
+
+  private Request requestWithNodes(int id, int creationTime, int amountNodes) {
+    Request request = new Request(id, creationTime, 10);
+    for(int i = 0; i < amountNodes; i++)
+      request.getVirtualNodes().put(i, new VirtualNode(i, 1));
+
+    return request;
+  }
 }
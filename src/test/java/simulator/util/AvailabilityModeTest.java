@@ -0,0 +1,56 @@
+package simulator.util;
+
+import junit.framework.TestCase;
+
+import java.math.BigDecimal;
+
+import simulator.network.components.Dependable;
+import simulator.network.components.physical.PhysicalNode;
+
+public class AvailabilityModeTest extends TestCase {
+
+  private PhysicalNode physicalNode;
+  private PhysicalNode otherPhysicalNode;
+
+  public void setUp() {
+    physicalNode = new PhysicalNode(1, 100);
+    otherPhysicalNode = new PhysicalNode(2, 100);
+  }
+
+  public void testModesAgree() {
+    int exact = AvailabilityMode.EXACT.compare(physicalNode, otherPhysicalNode);
+    assertEquals(exact, AvailabilityMode.LOG_SPACE.compare(physicalNode,
+      otherPhysicalNode));
+    assertEquals(exact, AvailabilityMode.VALIDATED.compare(physicalNode,
+      otherPhysicalNode));
+  }
+
+  public void testSameComponentIsEqual() {
+    for(AvailabilityMode mode : AvailabilityMode.values()) {
+      assertEquals(0, mode.compare(physicalNode, physicalNode));
+    }
+  }
+
+  public void testValidatedRejectsDivergentLogAvailability() {
+    Dependable divergent = new Dependable() {
+      public BigDecimal getAvailability() {
+        return new BigDecimal("0.99");
+      }
+
+      public double getLogAvailability() {
+        return Math.log(0.9);
+      }
+    };
+    try {
+      AvailabilityMode.VALIDATED.compare(divergent, physicalNode);
+      fail();
+    } catch(RuntimeException e) {
+    }
+  }
+
+  public void testNodesOrderedByExactAvailability() {
+    assertEquals(-physicalNode.getAvailability().compareTo(
+      otherPhysicalNode.getAvailability()),
+      physicalNode.compareTo(otherPhysicalNode));
+  }
+}
@@ -0,0 +1,49 @@
+package simulator.util;
+
+import junit.framework.TestCase;
+
+public class IndexedMinHeapTest extends TestCase {
+
+  private IndexedMinHeap heap;
+
+  protected void setUp() {
+    heap = new IndexedMinHeap(5);
+  }
+
+  public void testPollReturnsItemsByAscendingKey() {
+    heap.insertOrDecrease(0, 4.0);
+    heap.insertOrDecrease(1, 1.5);
+    heap.insertOrDecrease(2, 3.0);
+    heap.insertOrDecrease(3, 0.5);
+    assertEquals(3, heap.poll());
+    assertEquals(1, heap.poll());
+    assertEquals(2, heap.poll());
+    assertEquals(0, heap.poll());
+    assertTrue(heap.isEmpty());
+  }
+
+  public void testInsertOrDecreaseLowersKey() {
+    heap.insertOrDecrease(0, 4.0);
+    heap.insertOrDecrease(1, 2.0);
+    heap.insertOrDecrease(0, 1.0);
+    assertEquals(1.0, heap.getKey(0));
+    assertEquals(0, heap.poll());
+  }
+
+  public void testInsertOrDecreaseIgnoresGreaterKey() {
+    heap.insertOrDecrease(0, 1.0);
+    heap.insertOrDecrease(0, 3.0);
+    assertEquals(1.0, heap.getKey(0));
+    assertEquals(1, heap.size());
+  }
+
+  public void testClearAllowsReuse() {
+    heap.insertOrDecrease(0, 1.0);
+    heap.insertOrDecrease(4, 2.0);
+    heap.clear();
+    assertTrue(heap.isEmpty());
+    assertFalse(heap.contains(4));
+    heap.insertOrDecrease(4, 7.0);
+    assertEquals(4, heap.poll());
+  }
+}
@@ -0,0 +1,55 @@
+package simulator.util;
+
+import junit.framework.TestCase;
+
+public class MaxSegmentTreeTest extends TestCase {
+
+  private MaxSegmentTree tree;
+
+  public void setUp() {
+    tree = new MaxSegmentTree(new double[] {5, 1, 8, 3, 8});
+  }
+
+  public void testMax() {
+    assertEquals(8D, tree.max());
+  }
+
+  public void testSet() {
+    tree.set(2, 0);
+    tree.set(4, 2);
+    assertEquals(5D, tree.max());
+    assertEquals(2D, tree.get(4));
+    tree.set(1, 9);
+    assertEquals(9D, tree.max());
+  }
+
+  public void testCollectAtLeast() {
+    int[] positions = new int[tree.size()];
+    assertEquals(3, tree.collectAtLeast(5, positions));
+    assertEquals(0, positions[0]);
+    assertEquals(2, positions[1]);
+    assertEquals(4, positions[2]);
+  }
+
+  public void testCollectGreaterThan() {
+    int[] positions = new int[tree.size()];
+    assertEquals(2, tree.collectGreaterThan(5, positions));
+    assertEquals(2, positions[0]);
+    assertEquals(4, positions[1]);
+    assertEquals(0, tree.collectGreaterThan(8, positions));
+  }
+
+  public void testCopyIsIndependent() {
+    MaxSegmentTree copy = new MaxSegmentTree(tree);
+    copy.set(2, 0);
+    copy.set(4, 0);
+    assertEquals(5D, copy.max());
+    assertEquals(8D, tree.max());
+  }
+
+  public void testEmptyTree() {
+    MaxSegmentTree emptyTree = new MaxSegmentTree(new double[0]);
+    assertEquals(Double.NEGATIVE_INFINITY, emptyTree.max());
+    assertEquals(0, emptyTree.collectAtLeast(Double.NEGATIVE_INFINITY, new int[0]));
+  }
+}